@@ -0,0 +1,58 @@
+package com.example.tienda.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PRUEBA DE CARGA HTTP: hilos de plataforma vs hilos virtuales
+ * Cada hilo de JMH es un cliente concurrente que llama a la API por HTTP.
+ * Se ejecuta una vez con hilosVirtuales=false y otra con true (ver ServidorEstado):
+ * comparar ops/ms y los percentiles p99/p99.9 de SampleTime entre ambos.
+ *
+ * La concurrencia se cambia con -t (por ejemplo -t 400 para superar los 200 hilos de Tomcat).
+ * En Java 21, -Djdk.tracePinnedThreads imprime la pila cada vez que un hilo virtual
+ * queda fijado a su hilo portador (synchronized o código nativo) durante una espera.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class CargaHttpBenchmark {
+
+    /**
+     * POST /api/clientes/{id}/pedidos
+     */
+    @Benchmark
+    public int crearPedido(ServidorEstado estado) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return estado.post("/clientes/" + estado.clienteAleatorio(random) + "/pedidos", estado.pedidoJson(random))
+                .statusCode();
+    }
+
+    /**
+     * GET /api/productos/{id} (caché del catálogo)
+     */
+    @Benchmark
+    public int buscarProducto(ServidorEstado estado) throws Exception {
+        return estado.get("/productos/" + estado.productoAleatorio(ThreadLocalRandom.current())).statusCode();
+    }
+
+    /**
+     * GET /api/productos?page=N&size=20 (página del catálogo en la base de datos)
+     */
+    @Benchmark
+    public int listarCatalogo(ServidorEstado estado) throws Exception {
+        int paginas = Math.max(1, estado.productos / 20);
+        return estado.get("/productos?size=20&page=" + ThreadLocalRandom.current().nextInt(paginas)).statusCode();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.tienda.benchmark;
+
+import com.example.tienda.dto.ClienteDTO;
+import com.example.tienda.entity.Cliente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARKS DE CLIENTES
+ * Throughput (ops/ms) y latencia muestreada (percentiles en ms) de ClienteService y ClienteRepository
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClienteBenchmark {
+
+    /**
+     * Listar todos los clientes con su dirección (entity graph)
+     */
+    @Benchmark
+    public List<Cliente> findAllWithDirecciones(TiendaEstado estado) {
+        return estado.clienteRepository.findAllWithDirecciones();
+    }
+
+    /**
+     * Buscar un cliente por ID
+     */
+    @Benchmark
+    public Optional<ClienteDTO> buscarClienteConDireccion(TiendaEstado estado) {
+        return estado.clienteService.buscarClienteConDireccion(estado.clienteAleatorio(ThreadLocalRandom.current()));
+    }
+
+    /**
+     * Buscar clientes por la ciudad de su dirección
+     */
+    @Benchmark
+    public List<ClienteDTO> buscarPorCiudad(TiendaEstado estado) {
+        return estado.clienteService.buscarPorCiudad("Ciudad " + ThreadLocalRandom.current().nextInt(20));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.tienda.benchmark;
+
+import com.example.tienda.entity.Cliente;
+import com.example.tienda.entity.ItemPedido;
+import com.example.tienda.entity.Pedido;
+import com.example.tienda.entity.Producto;
+import com.example.tienda.dto.PedidoDTO;
+import com.example.tienda.dto.TotalClienteDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARKS DE PEDIDOS
+ * Throughput (ops/ms) y latencia muestreada (percentiles en ms) de los métodos de PedidoService
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedidoBenchmark {
+
+    /**
+     * Crear un pedido completo: reserva de stock, items, total e inserción
+     */
+    @Benchmark
+    public PedidoDTO crearPedido(TiendaEstado estado) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return estado.pedidoService.crearPedido(estado.clienteAleatorio(random), estado.carritoAleatorio(random));
+    }
+
+    /**
+     * Leer un pedido con sus items y productos (una consulta proyectada a DTO)
+     */
+    @Benchmark
+    public Optional<PedidoDTO> buscarPedidoConItems(TiendaEstado estado) {
+        return estado.pedidoService.buscarPedidoConItems(estado.pedidoAleatorio(ThreadLocalRandom.current()));
+    }
+
+    /**
+     * Listar los pedidos de un cliente
+     */
+    @Benchmark
+    public List<PedidoDTO> listarPedidosDeCliente(TiendaEstado estado) {
+        return estado.pedidoService.listarPedidosDeCliente(estado.clienteAleatorio(ThreadLocalRandom.current()));
+    }
+
+    /**
+     * Reporte de totales gastados por cliente (primera página de la tabla materializada)
+     */
+    @Benchmark
+    public Page<TotalClienteDTO> obtenerTotalesPorCliente(TiendaEstado estado) {
+        return estado.pedidoService.obtenerTotalesPorCliente(PageRequest.of(0, 20));
+    }
+
+    /**
+     * El mismo reporte con el GROUP BY sobre todos los pedidos, para comparar
+     */
+    @Benchmark
+    public List<TotalClienteDTO> agruparTotalesPorCliente(TiendaEstado estado) {
+        return estado.pedidoRepository.findTotalPorCliente();
+    }
+
+    /**
+     * Cálculo del total en memoria (sin base de datos) para un pedido de N líneas
+     */
+    @Benchmark
+    public BigDecimal calcularTotal(PedidoEnMemoria pedidoEnMemoria) {
+        pedidoEnMemoria.pedido.calcularTotal();
+        return pedidoEnMemoria.pedido.getTotal();
+    }
+
+    /**
+     * Pedido armado en memoria para medir Pedido.calcularTotal aislado
+     */
+    @State(Scope.Thread)
+    public static class PedidoEnMemoria {
+
+        @Param("50")
+        public int lineas;
+
+        public Pedido pedido;
+
+        @Setup(Level.Trial)
+        public void armar() {
+            pedido = new Pedido(new Cliente("Bench", "bench@bench.com"));
+            for (int i = 0; i < lineas; i++) {
+                Producto producto = new Producto("Producto " + i, BigDecimal.valueOf(1000 + i, 2), 100);
+                pedido.getItems().add(new ItemPedido(pedido, producto, 1 + i % 5));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.tienda.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ESTADO DE LA COMPARACIÓN DE PERFILES DE PERSISTENCIA
+ * Igual que ServidorEstado, pero con la configuración real de cada perfil en lugar de
+ * la de benchmark (que apaga el log de SQL):
+ * - perfil=default: application.properties tal cual (sin log de SQL, ddl-auto=update)
+ * - perfil=dev: además application-dev.properties (show-sql, SQL en DEBUG, binder en TRACE)
+ * - perfil=prod: application-prod.properties (Flyway, sin log de SQL, cache de planes, H2 ajustada)
+ * Ambos usan una H2 en archivo en un directorio temporal, como la aplicación real.
+ */
+@State(Scope.Benchmark)
+public class PerfilEstado extends ServidorEstado {
+
+    @Param({"default", "dev", "prod"})
+    public String perfil;
+
+    private Path directorio;
+
+    @Override
+    protected String[] argumentosSpring() {
+        try {
+            directorio = Files.createTempDirectory("tienda-bench-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<String> argumentos = new ArrayList<>();
+        argumentos.add("--server.port=0");
+        argumentos.add("--spring.h2.console.enabled=false");
+        if ("prod".equals(perfil)) {
+            argumentos.add("--spring.profiles.active=prod");
+            argumentos.add("--tienda.datos.directorio=" + directorio);
+        } else {
+            if ("dev".equals(perfil)) {
+                argumentos.add("--spring.profiles.active=dev");
+            }
+            argumentos.add("--spring.datasource.url=jdbc:h2:file:" + directorio.resolve("tienda_online"));
+        }
+        return argumentos.toArray(new String[0]);
+    }
+
+    @Override
+    public void detener() {
+        super.detener();
+        try (var archivos = Files.walk(directorio)) {
+            archivos.sorted((a, b) -> b.compareTo(a)).forEach(archivo -> archivo.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
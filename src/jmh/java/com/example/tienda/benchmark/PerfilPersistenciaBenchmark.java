@@ -0,0 +1,57 @@
+package com.example.tienda.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RENDIMIENTO HTTP: PERFIL POR DEFECTO vs PERFIL DEV vs PERFIL PROD
+ * Las mismas peticiones contra la aplicación arrancada con cada perfil (ver PerfilEstado).
+ * hilosVirtuales se hereda de ServidorEstado y no interesa aquí:
+ * ejecutar con -p hilosVirtuales=false
+ *
+ * El perfil dev escribe cada sentencia (formateada, con sus parámetros) en la
+ * consola: conviene redirigir la salida de JMH a un archivo.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class PerfilPersistenciaBenchmark {
+
+    /**
+     * POST /api/clientes/{id}/pedidos (lecturas, UPDATE de stock e INSERT en lote)
+     */
+    @Benchmark
+    public int crearPedido(PerfilEstado estado) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return estado.post("/clientes/" + estado.clienteAleatorio(random) + "/pedidos", estado.pedidoJson(random))
+                .statusCode();
+    }
+
+    /**
+     * GET /api/pedidos/{id} (consulta con JOIN a items y productos)
+     */
+    @Benchmark
+    public int buscarPedido(PerfilEstado estado) throws Exception {
+        return estado.get("/pedidos/" + estado.pedidoAleatorio(ThreadLocalRandom.current())).statusCode();
+    }
+
+    /**
+     * GET /api/productos?page=N&size=20 (página del catálogo en la base de datos)
+     */
+    @Benchmark
+    public int listarCatalogo(PerfilEstado estado) throws Exception {
+        int paginas = Math.max(1, estado.productos / 20);
+        return estado.get("/productos?size=20&page=" + ThreadLocalRandom.current().nextInt(paginas)).statusCode();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.tienda.benchmark;
+
+import com.example.tienda.dto.CatalogoDTO;
+import com.example.tienda.dto.FacetaDTO;
+import com.example.tienda.dto.ProductoDTO;
+import com.example.tienda.dto.ResultadoBusquedaDTO;
+import com.example.tienda.entity.Categoria;
+import com.example.tienda.entity.Producto;
+import com.example.tienda.service.ProductoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARKS DE PRODUCTOS
+ * Throughput (ops/ms) y latencia muestreada (percentiles en ms) de los métodos de ProductoService
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductoBenchmark {
+
+    /**
+     * Buscar un producto por ID
+     */
+    @Benchmark
+    public Optional<ProductoDTO> buscarPorId(TiendaEstado estado) {
+        return estado.productoService.buscarPorId(estado.productoAleatorio(ThreadLocalRandom.current()));
+    }
+
+    /**
+     * Productos con stock bajo
+     */
+    @Benchmark
+    public List<ProductoDTO> buscarProductosConStockBajo(TiendaEstado estado) {
+        return estado.productoService.buscarProductosConStockBajo(10);
+    }
+
+    /**
+     * Buscar por parte del nombre con el índice de trigramas (GET /api/productos/buscar)
+     */
+    @Benchmark
+    public ResultadoBusquedaDTO buscarPorNombre(TiendaEstado estado) {
+        return estado.productoService.buscar(textoAleatorio(estado), 20);
+    }
+
+    /**
+     * La misma búsqueda con LOWER(nombre) LIKE '%texto%' (recorre la tabla), como referencia
+     */
+    @Benchmark
+    public List<Producto> buscarPorNombreConLike(TiendaEstado estado) {
+        return estado.productoRepository.findByNombreContainingIgnoreCase(textoAleatorio(estado));
+    }
+
+    /**
+     * Catálogo con dos categorías (OR), rango de precio y stock, con facetas
+     * (GET /api/productos/catalogo)
+     */
+    @Benchmark
+    public CatalogoDTO catalogoConFacetas(TiendaEstado estado) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ProductoService.FiltroCatalogo filtro = new ProductoService.FiltroCatalogo(
+                new HashSet<>(List.of(estado.categoriaAleatoria(random), estado.categoriaAleatoria(random))), false,
+                BigDecimal.valueOf(50), BigDecimal.valueOf(250), true);
+        return estado.productoService.catalogo(filtro, PageRequest.of(0, 20, Sort.by("precio")));
+    }
+
+    /**
+     * Categorías con productos y sus cantidades, desde el índice de bitmaps
+     */
+    @Benchmark
+    public List<FacetaDTO> categoriasConProductos(TiendaEstado estado) {
+        return estado.productoService.categoriasConProductos();
+    }
+
+    /**
+     * Categorías con productos con SIZE(c.productos) en la BD, como referencia
+     */
+    @Benchmark
+    public List<Categoria> categoriasConProductosEnBD(TiendaEstado estado) {
+        return estado.categoriaRepository.findCategoriasConProductos();
+    }
+
+    /**
+     * Actualizar el stock de un producto
+     */
+    @Benchmark
+    public ProductoDTO actualizarStock(TiendaEstado estado) {
+        return estado.productoService.actualizarStock(estado.productoAleatorio(ThreadLocalRandom.current()),
+                Integer.MAX_VALUE / 2);
+    }
+
+    /**
+     * Parte de un nombre sembrado ("Producto 123" -> "ducto 123")
+     */
+    private String textoAleatorio(TiendaEstado estado) {
+        return "ducto " + ThreadLocalRandom.current().nextInt(estado.productos);
+    }
+}
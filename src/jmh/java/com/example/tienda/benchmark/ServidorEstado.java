@@ -0,0 +1,106 @@
+package com.example.tienda.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.WebApplicationType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * ESTADO DE LA PRUEBA DE CARGA HTTP
+ * Igual que TiendaEstado, pero con el servidor web (Tomcat) en un puerto libre.
+ * hilosVirtuales=true activa spring.threads.virtual.enabled y el pool de conexiones
+ * de application-virtual.properties; solo tiene efecto si el benchmark corre en Java 21+.
+ */
+@State(Scope.Benchmark)
+public class ServidorEstado extends TiendaEstado {
+
+    @Param({"false", "true"})
+    public boolean hilosVirtuales;
+
+    public HttpClient http;
+    public String baseUrl;
+    private ExecutorService ejecutorHttp;
+
+    @Override
+    protected WebApplicationType tipoAplicacion() {
+        return WebApplicationType.SERVLET;
+    }
+
+    @Override
+    protected String[] argumentosSpring() {
+        List<String> argumentos = new ArrayList<>(Arrays.asList(super.argumentosSpring()));
+        argumentos.add("--server.port=0");
+        if (hilosVirtuales) {
+            argumentos.add("--spring.profiles.active=virtual");
+        }
+        return argumentos.toArray(new String[0]);
+    }
+
+    @Override
+    public void arrancar() {
+        super.arrancar();
+        baseUrl = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api";
+        // Un cliente compartido; su pool interno reutiliza las conexiones HTTP
+        // HTTP/1.1 explícito: Tomcat no acepta h2c y el intento de upgrade agrega ruido
+        ejecutorHttp = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "cliente-http");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(ejecutorHttp)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @Override
+    public void detener() {
+        ejecutorHttp.shutdownNow();
+        super.detener();
+    }
+
+    public HttpResponse<String> get(String ruta) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ruta)).GET().build();
+        return verificar(http.send(request, HttpResponse.BodyHandlers.ofString()));
+    }
+
+    public HttpResponse<String> post(String ruta, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ruta))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return verificar(http.send(request, HttpResponse.BodyHandlers.ofString()));
+    }
+
+    /**
+     * Cuerpo JSON de un pedido con un carrito aleatorio
+     */
+    public String pedidoJson(Random random) {
+        return carritoAleatorio(random).stream()
+                .map(item -> "{\"productoId\":" + item.getProductoId() + ",\"cantidad\":" + item.getCantidad() + "}")
+                .collect(Collectors.joining(",", "{\"items\":[", "]}"));
+    }
+
+    /**
+     * Una respuesta de error invalida la medición: mejor fallar que medir errores rápidos
+     */
+    private HttpResponse<String> verificar(HttpResponse<String> respuesta) {
+        if (respuesta.statusCode() >= 400) {
+            throw new IllegalStateException("HTTP " + respuesta.statusCode() + " en " + respuesta.uri());
+        }
+        return respuesta;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.tienda.benchmark;
+
+import com.example.tienda.TiendaOnlineApplication;
+import com.example.tienda.dto.ClienteDTO;
+import com.example.tienda.dto.PedidoDTO;
+import com.example.tienda.dto.ProductoDTO;
+import com.example.tienda.repository.CategoriaRepository;
+import com.example.tienda.repository.ClienteRepository;
+import com.example.tienda.repository.PedidoRepository;
+import com.example.tienda.repository.ProductoRepository;
+import com.example.tienda.service.ClienteService;
+import com.example.tienda.service.PedidoService;
+import com.example.tienda.service.ProductoService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * ESTADO COMPARTIDO DE LOS BENCHMARKS
+ * Arranca la capa JPA (sin servidor web) contra una H2 en memoria y la llena con
+ * una cantidad configurable de clientes, productos y pedidos.
+ * Los tamaños se cambian con -p, por ejemplo: -p clientes=1000 -p pedidos=20000
+ */
+@State(Scope.Benchmark)
+public class TiendaEstado {
+
+    @Param("100")
+    public int clientes;
+
+    @Param("500")
+    public int productos;
+
+    @Param("2000")
+    public int pedidos;
+
+    /**
+     * Líneas por pedido en los pedidos sembrados y en los carritos de CrearPedido
+     */
+    @Param("5")
+    public int carrito;
+
+    /**
+     * Categorías sembradas; cada producto tiene dos
+     */
+    @Param("10")
+    public int categorias;
+
+    public ConfigurableApplicationContext contexto;
+    public ClienteService clienteService;
+    public ProductoService productoService;
+    public PedidoService pedidoService;
+    public ClienteRepository clienteRepository;
+    public PedidoRepository pedidoRepository;
+    public ProductoRepository productoRepository;
+    public CategoriaRepository categoriaRepository;
+
+    public List<Long> clienteIds = new ArrayList<>();
+    public List<Long> productoIds = new ArrayList<>();
+    public List<Long> pedidoIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = new SpringApplicationBuilder(TiendaOnlineApplication.class)
+                .web(tipoAplicacion())
+                .run(argumentosSpring());
+
+        clienteService = contexto.getBean(ClienteService.class);
+        productoService = contexto.getBean(ProductoService.class);
+        pedidoService = contexto.getBean(PedidoService.class);
+        clienteRepository = contexto.getBean(ClienteRepository.class);
+        pedidoRepository = contexto.getBean(PedidoRepository.class);
+        productoRepository = contexto.getBean(ProductoRepository.class);
+        categoriaRepository = contexto.getBean(CategoriaRepository.class);
+
+        sembrar();
+    }
+
+    /**
+     * Sin servidor web: los benchmarks llaman a los servicios directamente
+     */
+    protected WebApplicationType tipoAplicacion() {
+        return WebApplicationType.NONE;
+    }
+
+    /**
+     * Configuración del contexto de benchmark
+     * Se pasa como argumentos de línea de comandos porque tienen prioridad sobre
+     * application.properties (que apunta a la base de datos en archivo)
+     */
+    protected String[] argumentosSpring() {
+        return new String[] {
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=OFF",
+                "--logging.level.org.hibernate.orm.jdbc.bind=OFF"
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    /**
+     * Llenar la base de datos con datos reproducibles (semilla fija)
+     */
+    private void sembrar() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < clientes; i++) {
+            ClienteDTO cliente = clienteService.crearClienteConDireccion("Cliente " + i, "cliente" + i + "@bench.com",
+                    "Calle " + i, "Ciudad " + (i % 20), "Colombia", "110" + i);
+            clienteIds.add(cliente.getId());
+        }
+
+        // Stock muy alto para que los pedidos del benchmark nunca se queden sin stock
+        for (int i = 0; i < productos; i++) {
+            ProductoDTO producto = productoService.crearProducto("Producto " + i,
+                    BigDecimal.valueOf(1 + random.nextInt(50000), 2), Integer.MAX_VALUE / 2);
+            productoIds.add(producto.getId());
+            productoService.asignarCategorias(producto.getId(), Set.of(
+                    "Categoria " + random.nextInt(categorias / 2),
+                    "Categoria " + (categorias / 2 + random.nextInt(categorias - categorias / 2))));
+        }
+
+        for (int i = 0; i < pedidos; i++) {
+            PedidoDTO pedido = pedidoService.crearPedido(clienteAleatorio(random), carritoAleatorio(random));
+            pedidoIds.add(pedido.getId());
+        }
+    }
+
+    public Long clienteAleatorio(Random random) {
+        return clienteIds.get(random.nextInt(clienteIds.size()));
+    }
+
+    public String categoriaAleatoria(Random random) {
+        return "Categoria " + random.nextInt(categorias);
+    }
+
+    public Long productoAleatorio(Random random) {
+        return productoIds.get(random.nextInt(productoIds.size()));
+    }
+
+    public Long pedidoAleatorio(Random random) {
+        return pedidoIds.get(random.nextInt(pedidoIds.size()));
+    }
+
+    /**
+     * Carrito con productos distintos (el pedido no admite productos repetidos)
+     */
+    public List<PedidoService.ItemPedidoRequest> carritoAleatorio(Random random) {
+        int inicio = random.nextInt(productoIds.size());
+        int lineas = Math.min(carrito, productoIds.size());
+        List<PedidoService.ItemPedidoRequest> items = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            Long productoId = productoIds.get((inicio + i) % productoIds.size());
+            items.add(new PedidoService.ItemPedidoRequest(productoId, 1 + random.nextInt(3)));
+        }
+        return items;
+    }
+}
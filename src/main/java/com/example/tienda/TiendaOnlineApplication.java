@@ -2,6 +2,8 @@ package com.example.tienda;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Clase principal de la aplicación Spring Boot
@@ -9,8 +11,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - El servidor web (Tomcat)
  * - La conexión a base de datos
  * - Los componentes de la aplicación
+ * @EnableScheduling activa las tareas periódicas (volcado del inventario en memoria)
+ * @EnableCaching activa la caché del catálogo (Caffeine)
  */
 @SpringBootApplication
+@EnableScheduling
+@EnableCaching
 public class TiendaOnlineApplication {
 
     /**
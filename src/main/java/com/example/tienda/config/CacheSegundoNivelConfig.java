@@ -0,0 +1,38 @@
+package com.example.tienda.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+/**
+ * CACHÉ DE SEGUNDO NIVEL: el CacheManager de JCache (Caffeine) que usa Hibernate
+ * Se crea aquí y se le pasa ya armado. Con hibernate.javax.cache.uri, Hibernate busca
+ * "classpath:..." como URL, y eso solo funciona si el Tomcat embebido ya registró el
+ * protocolo classpath (no en los tests ni arrancando sin servidor web).
+ */
+@Configuration
+public class CacheSegundoNivelConfig {
+
+    /**
+     * Regiones y tamaños de la caché (formato Typesafe Config)
+     */
+    @Value("${tienda.cache.segundo-nivel.configuracion:classpath:cache-segundo-nivel.conf}")
+    private String configuracion;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(configuracion), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheManagerDeHibernate(CacheManager cacheManagerSegundoNivel) {
+        return propiedades -> propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+    }
+}
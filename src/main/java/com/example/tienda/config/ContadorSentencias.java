@@ -0,0 +1,202 @@
+package com.example.tienda.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * CONTADOR DE SENTENCIAS SQL / DETECTOR N+1
+ * Hibernate llama a inspect() con cada sentencia que prepara (se devuelve sin cambios).
+ * Cada petición HTTP y cada llamada a un servicio abre una medición en el hilo actual
+ * (pueden anidarse: la petición contiene al servicio, que puede llamar a otro servicio).
+ * Cada sentencia se cuenta en todas las mediciones abiertas, agrupada por su "forma"
+ * (el SQL con los parámetros como ?).
+ *
+ * Al cerrar una medición se informa en el log si pasó su presupuesto o si una misma
+ * forma se repitió muchas veces (la firma de un N+1). Con tienda.sentencias.fallar=true
+ * la sentencia que pasa el presupuesto lanza PresupuestoSentenciasExcedido.
+ *
+ * Las sentencias que el código ejecuta de a una por elemento a propósito (porElemento, por
+ * ejemplo la reserva de stock de cada línea del carrito) se cuentan aparte: no gastan
+ * presupuesto ni cuentan como repetición.
+ *
+ * Una operación que procesa su trabajo en bloques (porBloque, por ejemplo la carga de pedidos
+ * en lote) mide cada bloque con su propio presupuesto: para las mediciones que lo contienen
+ * las sentencias del bloque cuentan aparte, como las de porElemento.
+ *
+ * Las sentencias que se ejecutan en otros hilos (tareas programadas, exportaciones
+ * en streaming) no se cuentan en la petición que las originó.
+ */
+@Component
+public class ContadorSentencias implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(ContadorSentencias.class);
+
+    private static final ThreadLocal<Deque<Medicion>> MEDICIONES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static final ThreadLocal<Boolean> POR_ELEMENTO = ThreadLocal.withInitial(() -> false);
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern LISTA_IN = Pattern.compile("\\(\\?(\\s*,\\s*\\?)+\\)");
+    private static final int LARGO_MAXIMO_FORMA = 160;
+
+    @Autowired
+    private PresupuestoSentencias presupuesto;
+
+    @Override
+    public String inspect(String sql) {
+        Deque<Medicion> mediciones = MEDICIONES.get();
+        if (mediciones.isEmpty()) {
+            return sql;
+        }
+        if (POR_ELEMENTO.get()) {
+            mediciones.forEach(medicion -> medicion.porElemento++);
+            return sql;
+        }
+        String forma = forma(sql);
+        for (Medicion medicion : mediciones) {
+            if (medicion.apartada) {
+                medicion.porElemento++;
+                continue;
+            }
+            medicion.registrar(forma);
+            if (presupuesto.isFallar() && medicion.total == medicion.presupuesto + 1) {
+                throw new PresupuestoSentenciasExcedido(describir(medicion));
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Abrir una medición en el hilo actual
+     */
+    public Medicion iniciar(String operacion, int presupuestoSentencias) {
+        Medicion medicion = new Medicion(operacion, presupuestoSentencias);
+        MEDICIONES.get().push(medicion);
+        return medicion;
+    }
+
+    /**
+     * Ejecutar sentencias que van de a una por elemento a propósito (una por línea del carrito,
+     * tantas como líneas tenga): se cuentan aparte en las mediciones abiertas
+     */
+    public void porElemento(Runnable operacion) {
+        porElemento(() -> {
+            operacion.run();
+            return null;
+        });
+    }
+
+    /**
+     * Igual, devolviendo el resultado de la operación
+     */
+    public <T> T porElemento(Supplier<T> operacion) {
+        boolean anterior = POR_ELEMENTO.get();
+        POR_ELEMENTO.set(true);
+        try {
+            return operacion.get();
+        } finally {
+            if (!anterior) {
+                POR_ELEMENTO.remove();
+            }
+        }
+    }
+
+    /**
+     * Ejecutar un bloque de una operación en lotes con su propia medición y presupuesto
+     * (el de la operación, por ejemplo "PedidoService.crearPedidosEnLote.bloque"): así el
+     * presupuesto no depende de cuántos bloques tenga la carga, y un N+1 dentro de un bloque
+     * sigue fallando. Las mediciones ya abiertas cuentan sus sentencias aparte
+     */
+    public <T> T porBloque(String operacion, Supplier<T> bloque) {
+        Deque<Medicion> abiertas = MEDICIONES.get();
+        List<Medicion> apartadas = abiertas.stream().filter(medicion -> !medicion.apartada).collect(Collectors.toList());
+        apartadas.forEach(medicion -> medicion.apartada = true);
+        Medicion medicion = iniciar(operacion, presupuesto.paraServicio(operacion));
+        try {
+            return bloque.get();
+        } finally {
+            terminar(medicion);
+            apartadas.forEach(apartada -> apartada.apartada = false);
+        }
+    }
+
+    /**
+     * Cerrar la medición (la última abierta) e informarla si es sospechosa
+     */
+    public void terminar(Medicion medicion) {
+        Deque<Medicion> mediciones = MEDICIONES.get();
+        mediciones.remove(medicion);
+        if (mediciones.isEmpty()) {
+            MEDICIONES.remove();
+        }
+        if (medicion.total > medicion.presupuesto || medicion.maximoRepeticiones() >= presupuesto.getRepeticionesSospechosas()) {
+            log.warn(describir(medicion));
+        }
+    }
+
+    /**
+     * Sentencias "iguales salvo parámetros": espacios normalizados y listas IN (?, ?, ...) colapsadas
+     */
+    private String forma(String sql) {
+        String forma = LISTA_IN.matcher(ESPACIOS.matcher(sql.trim()).replaceAll(" ")).replaceAll("(?...)");
+        return forma.length() > LARGO_MAXIMO_FORMA ? forma.substring(0, LARGO_MAXIMO_FORMA) + "..." : forma;
+    }
+
+    private String describir(Medicion medicion) {
+        String repetidas = medicion.formas.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(3)
+                .map(entrada -> "\n    " + entrada.getValue() + "x " + entrada.getKey())
+                .collect(Collectors.joining());
+        String porElemento = medicion.porElemento > 0 ? " y " + medicion.porElemento + " por elemento" : "";
+        return "Posible N+1 en " + medicion.operacion + ": " + medicion.total
+                + " sentencias" + porElemento + " (presupuesto " + medicion.presupuesto + "). Más repetidas:" + repetidas;
+    }
+
+    /**
+     * Sentencias de una petición o llamada a servicio
+     */
+    public static class Medicion {
+        private final String operacion;
+        private final int presupuesto;
+        private final Map<String, Integer> formas = new LinkedHashMap<>();
+        private int total;
+        private int porElemento;
+        private boolean apartada;
+
+        private Medicion(String operacion, int presupuesto) {
+            this.operacion = operacion;
+            this.presupuesto = presupuesto;
+        }
+
+        private void registrar(String forma) {
+            total++;
+            formas.merge(forma, 1, Integer::sum);
+        }
+
+        private int maximoRepeticiones() {
+            return formas.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        }
+
+        public String getOperacion() {
+            return operacion;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.tienda.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * CONFIGURACIÓN DE MÉTRICAS (Micrometer, expuestas en /actuator/prometheus)
+ * - @Timed en los servicios: TimedAspect crea un timer por clase y método
+ * - ContadorSentencias se registra en Hibernate para contar sentencias por petición
+ * Las métricas del pool de conexiones (hikaricp.connections.acquire, .pending, ...)
+ * y de los repositorios (spring.data.repository.invocations) las registra Spring Boot.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer inspectorDeSentencias(ContadorSentencias contadorSentencias) {
+        return propiedades -> propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, contadorSentencias);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.tienda.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.BaseStream;
+
+/**
+ * FILAS POR CONSULTA DE REPOSITORIO
+ * La latencia de cada método de repositorio ya la mide Spring Boot
+ * (métrica spring.data.repository.invocations); este aspecto agrega cuántas filas
+ * devolvió o modificó cada llamada (métrica tienda.repositorio.filas).
+ * - Listas, páginas y slices: cantidad de elementos
+ * - Optional / entidad: 0 o 1
+ * - UPDATE/DELETE (@Modifying): filas afectadas
+ * Los Stream no se cuentan (se consumen después de que el método devuelve).
+ */
+@Aspect
+@Component
+public class MetricasRepositorioAspect {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Nombre del repositorio por clase de proxy (evita recalcularlo en cada llamada)
+     */
+    private final Map<Class<?>, String> nombres = new ConcurrentHashMap<>();
+
+    /**
+     * Métrica de filas por clase de proxy y método: se registra una vez, no en cada llamada
+     */
+    private final Map<Class<?>, Map<String, DistributionSummary>> filasPorMetodo = new ConcurrentHashMap<>();
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object medirFilas(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object resultado = joinPoint.proceed();
+        if (((MethodSignature) joinPoint.getSignature()).getReturnType() == void.class) {
+            return resultado; // save/delete sin resultado
+        }
+
+        Long filas = contarFilas(resultado);
+        if (filas != null) {
+            filasDe(joinPoint.getThis(), joinPoint.getSignature().getName()).record(filas);
+        }
+        return resultado;
+    }
+
+    private DistributionSummary filasDe(Object proxy, String metodo) {
+        return filasPorMetodo
+                .computeIfAbsent(proxy.getClass(), clase -> new ConcurrentHashMap<>())
+                .computeIfAbsent(metodo, nombre -> DistributionSummary.builder("tienda.repositorio.filas")
+                        .description("Filas devueltas o modificadas por cada llamada a un repositorio")
+                        .baseUnit("filas")
+                        .tag("repositorio", nombreRepositorio(proxy))
+                        .tag("metodo", nombre)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    private Long contarFilas(Object resultado) {
+        if (resultado == null) {
+            return 0L;
+        }
+        if (resultado instanceof Collection<?> coleccion) {
+            return (long) coleccion.size();
+        }
+        if (resultado instanceof Slice<?> pagina) {
+            return (long) pagina.getNumberOfElements();
+        }
+        if (resultado instanceof Optional<?> opcional) {
+            return opcional.isPresent() ? 1L : 0L;
+        }
+        if (resultado instanceof Integer afectadas) {
+            return afectadas.longValue(); // @Modifying: filas afectadas
+        }
+        if (resultado instanceof Number || resultado instanceof Boolean
+                || resultado instanceof BaseStream) {
+            return null; // conteos, existencias, streams: no son filas
+        }
+        return 1L; // una entidad o un DTO
+    }
+
+    private String nombreRepositorio(Object proxy) {
+        return nombres.computeIfAbsent(proxy.getClass(), clase -> {
+            for (Class<?> interfaz : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+                if (Repository.class.isAssignableFrom(interfaz)) {
+                    return interfaz.getSimpleName();
+                }
+            }
+            return clase.getSimpleName();
+        });
+    }
+}
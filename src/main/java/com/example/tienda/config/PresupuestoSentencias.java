@@ -0,0 +1,98 @@
+package com.example.tienda.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PRESUPUESTO DE SENTENCIAS SQL (propiedades tienda.sentencias.*)
+ * Cuántas sentencias puede ejecutar una petición HTTP o una llamada a un servicio
+ * antes de considerarse sospechosa de N+1. Ver ContadorSentencias.
+ */
+@Component
+@ConfigurationProperties(prefix = "tienda.sentencias")
+public class PresupuestoSentencias {
+
+    /**
+     * Máximo por petición HTTP (si la ruta no tiene uno propio)
+     */
+    private int presupuestoPeticion = 50;
+
+    /**
+     * Máximo por llamada a un método público de un servicio
+     */
+    private int presupuestoServicio = 50;
+
+    /**
+     * Una misma sentencia repetida esta cantidad de veces se informa como posible N+1
+     */
+    private int repeticionesSospechosas = 20;
+
+    /**
+     * true: lanzar PresupuestoSentenciasExcedido al pasarse (perfil test)
+     * false: solo registrar en el log
+     */
+    private boolean fallar = false;
+
+    /**
+     * Presupuestos propios por operación, con la clave "GET /api/ruta/{id}" o "Servicio.metodo"
+     */
+    private Map<String, Integer> presupuestos = new HashMap<>();
+
+    /**
+     * Presupuesto de una petición HTTP
+     */
+    public int paraPeticion(String operacion) {
+        return presupuestos.getOrDefault(operacion, presupuestoPeticion);
+    }
+
+    /**
+     * Presupuesto de una llamada a servicio
+     */
+    public int paraServicio(String operacion) {
+        return presupuestos.getOrDefault(operacion, presupuestoServicio);
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public int getPresupuestoPeticion() {
+        return presupuestoPeticion;
+    }
+
+    public void setPresupuestoPeticion(int presupuestoPeticion) {
+        this.presupuestoPeticion = presupuestoPeticion;
+    }
+
+    public int getPresupuestoServicio() {
+        return presupuestoServicio;
+    }
+
+    public void setPresupuestoServicio(int presupuestoServicio) {
+        this.presupuestoServicio = presupuestoServicio;
+    }
+
+    public int getRepeticionesSospechosas() {
+        return repeticionesSospechosas;
+    }
+
+    public void setRepeticionesSospechosas(int repeticionesSospechosas) {
+        this.repeticionesSospechosas = repeticionesSospechosas;
+    }
+
+    public boolean isFallar() {
+        return fallar;
+    }
+
+    public void setFallar(boolean fallar) {
+        this.fallar = fallar;
+    }
+
+    public Map<String, Integer> getPresupuestos() {
+        return presupuestos;
+    }
+
+    public void setPresupuestos(Map<String, Integer> presupuestos) {
+        this.presupuestos = presupuestos;
+    }
+}
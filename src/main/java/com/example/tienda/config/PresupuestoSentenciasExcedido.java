@@ -0,0 +1,14 @@
+package com.example.tienda.config;
+
+/**
+ * Una petición o llamada a servicio superó su presupuesto de sentencias SQL
+ * Solo se lanza con tienda.sentencias.fallar=true (perfil test)
+ */
+public class PresupuestoSentenciasExcedido extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PresupuestoSentenciasExcedido(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.tienda.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SENTENCIAS SQL POR PETICIÓN
+ * Abre una medición de ContadorSentencias por cada petición atendida por un controlador,
+ * con el presupuesto de su ruta ("GET /api/pedidos/{id}"), y publica cuántas sentencias
+ * ejecutó (métrica tienda.http.sentencias, por método y ruta).
+ * En las respuestas asíncronas (exportaciones) solo se cuenta la parte que corre
+ * en el hilo de la petición.
+ */
+@Component
+public class SentenciasPorPeticionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ATRIBUTO_MEDICION = SentenciasPorPeticionInterceptor.class.getName() + ".medicion";
+
+    @Autowired
+    private ContadorSentencias contadorSentencias;
+
+    @Autowired
+    private PresupuestoSentencias presupuesto;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Métrica de sentencias por método HTTP y ruta: se registra una vez, no en cada petición
+     */
+    private final Map<String, Map<String, DistributionSummary>> sentenciasPorRuta = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object ruta = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (ruta == null || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true; // recursos estáticos, errores y despachos asíncronos no se miden
+        }
+        String operacion = request.getMethod() + " " + ruta;
+        request.setAttribute(ATRIBUTO_MEDICION,
+                contadorSentencias.iniciar(operacion, presupuesto.paraPeticion(operacion)));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        terminar(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        terminar(request);
+    }
+
+    private void terminar(HttpServletRequest request) {
+        Object atributo = request.getAttribute(ATRIBUTO_MEDICION);
+        if (!(atributo instanceof ContadorSentencias.Medicion medicion)) {
+            return;
+        }
+        request.removeAttribute(ATRIBUTO_MEDICION);
+        contadorSentencias.terminar(medicion);
+        sentenciasDe(request.getMethod(), request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE).toString())
+                .record(medicion.getTotal());
+    }
+
+    private DistributionSummary sentenciasDe(String metodo, String uri) {
+        return sentenciasPorRuta
+                .computeIfAbsent(metodo, clave -> new ConcurrentHashMap<>())
+                .computeIfAbsent(uri, ruta -> DistributionSummary.builder("tienda.http.sentencias")
+                        .description("Sentencias SQL ejecutadas por petición")
+                        .baseUnit("sentencias")
+                        .tag("metodo", metodo)
+                        .tag("uri", ruta)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+}
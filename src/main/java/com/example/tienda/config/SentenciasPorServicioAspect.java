@@ -0,0 +1,40 @@
+package com.example.tienda.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * SENTENCIAS SQL POR LLAMADA A SERVICIO
+ * Abre una medición de ContadorSentencias en cada método público de los servicios
+ * ("PedidoService.crearPedido"), para saber qué operación originó un N+1 aunque
+ * la petición que la llamó tenga muchas más sentencias.
+ * Envuelve a @Transactional para contar también las sentencias del flush al confirmar.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SentenciasPorServicioAspect {
+
+    @Autowired
+    private ContadorSentencias contadorSentencias;
+
+    @Autowired
+    private PresupuestoSentencias presupuesto;
+
+    @Around("within(com.example.tienda.service..*) && @within(org.springframework.stereotype.Service)")
+    public Object medirSentencias(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operacion = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        ContadorSentencias.Medicion medicion = contadorSentencias.iniciar(operacion, presupuesto.paraServicio(operacion));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            contadorSentencias.terminar(medicion);
+        }
+    }
+}
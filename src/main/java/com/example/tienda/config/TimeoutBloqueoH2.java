@@ -0,0 +1,24 @@
+package com.example.tienda.config;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+import java.sql.SQLException;
+
+/**
+ * TIEMPO DE ESPERA DE BLOQUEO EN H2 (spring.datasource.hikari.exception-override-class-name)
+ * H2 informa el LOCK_TIMEOUT vencido como SQLTimeoutException, y HikariCP da por rota la
+ * conexión ante cualquier SQLTimeoutException: la cierra, el ROLLBACK posterior falla y esa
+ * excepción tapa a la original (PessimisticLockingFailureException). Pero la conexión sigue
+ * sana: solo esa sentencia no consiguió el bloqueo. Este código de error no la descarta.
+ */
+public class TimeoutBloqueoH2 implements SQLExceptionOverride {
+
+    /**
+     * ErrorCode.LOCK_TIMEOUT_1 de H2 ("Timeout trying to lock table")
+     */
+    private static final int LOCK_TIMEOUT = 50200;
+
+    @java.lang.Override // SQLExceptionOverride.Override tapa el nombre de la anotación
+    public Override adjudicate(SQLException e) {
+        return e.getErrorCode() == LOCK_TIMEOUT ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+}
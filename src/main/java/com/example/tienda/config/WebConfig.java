@@ -0,0 +1,22 @@
+package com.example.tienda.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * CONFIGURACIÓN DE SPRING MVC
+ * - SentenciasPorPeticionInterceptor: sentencias SQL por petición (detector N+1)
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private SentenciasPorPeticionInterceptor sentenciasPorPeticionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sentenciasPorPeticionInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -37,18 +37,38 @@ public class ApiController {
         productosEndpoints.put("GET /api/productos", "Listar productos (con filtros)");
         productosEndpoints.put("POST /api/productos", "Crear producto");
         productosEndpoints.put("GET /api/productos/{id}", "Buscar producto por ID");
+        productosEndpoints.put("GET /api/productos/catalogo?categoria=Backend&precioMin=50&precioMax=500&enStock=true", "Catálogo con filtros combinados y facetas");
+        productosEndpoints.put("GET /api/productos/categorias", "Categorías con productos y sus cantidades");
+        productosEndpoints.put("GET /api/productos/buscar?q=laptop", "Buscar productos y categorías por nombre");
+        productosEndpoints.put("GET /api/productos/buscar/sugerencias?prefijo=lap", "Autocompletar nombres");
         productosEndpoints.put("POST /api/productos/{id}/categorias", "Asignar categorías");
         productosEndpoints.put("GET /api/productos?categoria=Frontend&page=0&size=5", "Filtrar por categoría");
+        productosEndpoints.put("GET /api/productos?page=0&size=20&sort=precio,desc", "Catálogo paginado y ordenado");
+        productosEndpoints.put("GET /api/productos?despuesDe=100&size=20", "Catálogo por clave (páginas profundas)");
 
         // Endpoints de Pedidos
         Map<String, String> pedidosEndpoints = new LinkedHashMap<>();
-        pedidosEndpoints.put("POST /api/clientes/{clienteId}/pedidos", "Crear pedido con items");
+        pedidosEndpoints.put("POST /api/clientes/{clienteId}/pedidos", "Crear pedido con items (cabecera opcional Idempotency-Key para reintentos)");
+        pedidosEndpoints.put("POST /api/clientes/{clienteId}/pedidos/asincrono", "Aceptar pedido (202) y completarlo en segundo plano");
+        pedidosEndpoints.put("GET /api/pedidos/{id}/procesamiento", "Estado de un pedido asíncrono");
+        pedidosEndpoints.put("POST /api/pedidos/lote", "Crear muchos pedidos (resultado por pedido)");
         pedidosEndpoints.put("GET /api/pedidos/{id}", "Ver pedido con items");
+        pedidosEndpoints.put("GET /api/pedidos/{id}/eventos", "Cambios de estado del pedido (Server-Sent Events)");
+        pedidosEndpoints.put("GET /api/clientes/{clienteId}/pedidos/eventos", "Cambios de estado de los pedidos del cliente (SSE)");
         pedidosEndpoints.put("PUT /api/pedidos/{id}/estado?valor=ENVIADO", "Cambiar estado");
+        pedidosEndpoints.put("PUT /api/pedidos/estado", "Cambiar estado de muchos pedidos (IDs o filtro estado + antesDe)");
         pedidosEndpoints.put("PUT /api/pedidos/{id}/cancelar", "Cancelar pedido");
+        pedidosEndpoints.put("PUT /api/pedidos/cancelar", "Cancelar muchos pedidos y devolver su stock");
 
         // Endpoints de Reportes
         Map<String, String> reportesEndpoints = new LinkedHashMap<>();
+        reportesEndpoints.put("GET /api/reportes/totales-cliente?page=0&size=20", "Total gastado por cliente (paginado)");
+        reportesEndpoints.put("GET /api/reportes/totales-cliente/top?n=10", "Los N clientes que más gastaron");
+        reportesEndpoints.put("POST /api/reportes/totales-cliente/reconstruir", "Recalcular los totales desde los pedidos");
+        reportesEndpoints.put("GET /api/reportes/eventos-pedido", "Posición del outbox de pedidos y offset de cada consumidor");
+        reportesEndpoints.put("GET /api/reportes/cache", "Estadísticas de la caché del catálogo");
+        reportesEndpoints.put("GET /api/exportar/pedidos?formato=csv&desde=2024-01-01T00:00:00&estado=PAGADO",
+                "Exportar pedidos con items (NDJSON o CSV, en streaming)");
 
         info.put("endpoints", Map.of(
                 "clientes", clientesEndpoints,
@@ -59,6 +79,7 @@ public class ApiController {
 
         info.put("herramientas", Map.of(
                 "h2_console", "http://localhost:8080/h2-console",
+                "metricas", "http://localhost:8080/actuator/prometheus",
                 "documentacion", "Ver README.md del proyecto"
         ));
 
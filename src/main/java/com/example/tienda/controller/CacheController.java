@@ -0,0 +1,29 @@
+package com.example.tienda.controller;
+
+import com.example.tienda.service.CatalogoCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.Map;
+
+/**
+ * CONTROLADOR DE ESTADÍSTICAS DE CACHÉ
+ * Permite ver cómo se comporta la caché del catálogo para dimensionarla
+ */
+@RestController
+@RequestMapping("/api/reportes")
+public class CacheController {
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    /**
+     * GET /api/reportes/cache - Aciertos, fallos y expulsiones por caché
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Map<String, Object>>> estadisticasCache() {
+        return ResponseEntity.ok(catalogoCache.estadisticas());
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.tienda.controller;
 
-import com.example.tienda.entity.Cliente;
+import com.example.tienda.dto.ClienteDTO;
 import com.example.tienda.service.ClienteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -27,9 +27,9 @@ public class ClienteController {
      * Este endpoint cumple con el requisito del taller
      */
     @PostMapping
-    public ResponseEntity<Cliente> crearCliente(@RequestBody CrearClienteRequest request) {
+    public ResponseEntity<ClienteDTO> crearCliente(@RequestBody CrearClienteRequest request) {
         try {
-            Cliente cliente = clienteService.crearClienteConDireccion(
+            ClienteDTO cliente = clienteService.crearClienteConDireccion(
                 request.getNombre(),
                 request.getEmail(),
                 request.getCalle(),
@@ -47,8 +47,8 @@ public class ClienteController {
      * GET /api/clientes/{id} - Buscar cliente por ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Cliente> buscarCliente(@PathVariable Long id) {
-        Optional<Cliente> cliente = clienteService.buscarClienteConDireccion(id);
+    public ResponseEntity<ClienteDTO> buscarCliente(@PathVariable Long id) {
+        Optional<ClienteDTO> cliente = clienteService.buscarClienteConDireccion(id);
         return cliente.map(ResponseEntity::ok)
                      .orElse(ResponseEntity.notFound().build());
     }
@@ -57,8 +57,8 @@ public class ClienteController {
      * GET /api/clientes - Listar todos los clientes
      */
     @GetMapping
-    public ResponseEntity<List<Cliente>> listarClientes() {
-        List<Cliente> clientes = clienteService.listarTodosConDirecciones();
+    public ResponseEntity<List<ClienteDTO>> listarClientes() {
+        List<ClienteDTO> clientes = clienteService.listarTodosConDirecciones();
         return ResponseEntity.ok(clientes);
     }
 
@@ -66,8 +66,8 @@ public class ClienteController {
      * GET /api/clientes/email/{email} - Buscar cliente por email
      */
     @GetMapping("/email/{email}")
-    public ResponseEntity<Cliente> buscarPorEmail(@PathVariable String email) {
-        Optional<Cliente> cliente = clienteService.buscarPorEmail(email);
+    public ResponseEntity<ClienteDTO> buscarPorEmail(@PathVariable String email) {
+        Optional<ClienteDTO> cliente = clienteService.buscarPorEmail(email);
         return cliente.map(ResponseEntity::ok)
                      .orElse(ResponseEntity.notFound().build());
     }
@@ -76,10 +76,10 @@ public class ClienteController {
      * PUT /api/clientes/{id}/direccion - Actualizar dirección
      */
     @PutMapping("/{id}/direccion")
-    public ResponseEntity<Cliente> actualizarDireccion(@PathVariable Long id,
+    public ResponseEntity<ClienteDTO> actualizarDireccion(@PathVariable Long id,
                                                      @RequestBody DireccionRequest request) {
         try {
-            Cliente cliente = clienteService.actualizarDireccion(id,
+            ClienteDTO cliente = clienteService.actualizarDireccion(id,
                 request.getCalle(), request.getCiudad(), request.getPais(), request.getZip());
             return ResponseEntity.ok(cliente);
         } catch (IllegalArgumentException e) {
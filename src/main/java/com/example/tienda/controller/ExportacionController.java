@@ -0,0 +1,60 @@
+package com.example.tienda.controller;
+
+import com.example.tienda.entity.Pedido;
+import com.example.tienda.service.ExportacionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDateTime;
+
+/**
+ * CONTROLADOR DE EXPORTACIÓN
+ * Descarga masiva de pedidos con sus items, escrita en streaming
+ */
+@RestController
+@RequestMapping("/api/exportar")
+public class ExportacionController {
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    /**
+     * GET /api/exportar/pedidos?formato=ndjson|csv&desde=2024-01-01T00:00:00&hasta=...&estado=PAGADO
+     * Una fila por item de pedido. desde es inclusivo y hasta exclusivo, así las
+     * exportaciones incrementales (por ejemplo, la de cada noche) no se solapan.
+     */
+    @GetMapping("/pedidos")
+    public ResponseEntity<StreamingResponseBody> exportarPedidos(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String estado) {
+
+        ExportacionService.Formato formatoExportacion;
+        Pedido.EstadoPedido estadoPedido;
+        try {
+            formatoExportacion = ExportacionService.Formato.valueOf(formato.toUpperCase());
+            estadoPedido = estado != null ? Pedido.EstadoPedido.valueOf(estado.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // El cuerpo se escribe fuera del hilo del request; la transacción la abre el servicio
+        StreamingResponseBody cuerpo = salida ->
+                exportacionService.exportarPedidos(desde, hasta, estadoPedido, formatoExportacion, salida);
+
+        boolean csv = formatoExportacion == ExportacionService.Formato.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"pedidos." + (csv ? "csv" : "ndjson") + "\"")
+                .body(cuerpo);
+    }
+}
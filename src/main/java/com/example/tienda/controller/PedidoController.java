@@ -1,13 +1,32 @@
 package com.example.tienda.controller;
 
 import com.example.tienda.entity.Pedido;
+import com.example.tienda.service.AvisosEstadoPedido;
+import com.example.tienda.service.BusEventosPedido;
+import com.example.tienda.service.ColaPedidos;
+import com.example.tienda.service.IdempotenciaPedidos;
 import com.example.tienda.service.PedidoService;
+import com.example.tienda.service.PublicadorEventosPedido;
+import com.example.tienda.service.TotalesClienteService;
+import com.example.tienda.dto.CambioEstadoLoteDTO;
+import com.example.tienda.dto.PedidoDTO;
+import com.example.tienda.dto.ProcesamientoPedidoDTO;
+import com.example.tienda.dto.ResultadoPedidoLoteDTO;
 import com.example.tienda.dto.TotalClienteDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -21,16 +40,96 @@ public class PedidoController {
     @Autowired
     private PedidoService pedidoService;
 
+    @Autowired
+    private TotalesClienteService totalesClienteService;
+
+    @Autowired
+    private IdempotenciaPedidos idempotenciaPedidos;
+
+    @Autowired
+    private ColaPedidos colaPedidos;
+
+    @Autowired
+    private PublicadorEventosPedido publicadorEventosPedido;
+
+    @Autowired
+    private BusEventosPedido busEventosPedido;
+
+    @Autowired
+    private AvisosEstadoPedido avisosEstadoPedido;
+
     /**
      * POST /api/clientes/{clienteId}/pedidos - Crear pedido con items
      * CUMPLE CON EL REQUISITO DEL TALLER
+     * Con la cabecera Idempotency-Key, un reintento con la misma clave devuelve el pedido
+     * del primer intento (cabecera Idempotent-Replayed: true) en lugar de crear otro
+     * - 422 si la clave ya se usó con otro carrito
+     * - 409 si el primer intento sigue en proceso pasado el tiempo de espera
      */
     @PostMapping("/clientes/{clienteId}/pedidos")
-    public ResponseEntity<Pedido> crearPedido(@PathVariable Long clienteId,
+    public ResponseEntity<PedidoDTO> crearPedido(@PathVariable Long clienteId,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia,
                                             @RequestBody CrearPedidoRequest request) {
         try {
-            Pedido pedido = pedidoService.crearPedido(clienteId, request.getItems());
-            return ResponseEntity.status(HttpStatus.CREATED).body(pedido);
+            if (claveIdempotencia == null) {
+                PedidoDTO pedido = pedidoService.crearPedido(clienteId, request.getItems());
+                return ResponseEntity.status(HttpStatus.CREATED).body(pedido);
+            }
+            IdempotenciaPedidos.Resultado resultado =
+                    idempotenciaPedidos.crearPedido(clienteId, claveIdempotencia, request.getItems());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", String.valueOf(resultado.isRepetido()))
+                    .body(resultado.getPedido());
+        } catch (IdempotenciaPedidos.ClaveReutilizada e) {
+            return ResponseEntity.unprocessableEntity().build();
+        } catch (IdempotenciaPedidos.ClaveEnProceso e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * POST /api/clientes/{clienteId}/pedidos/asincrono - Aceptar pedido y completarlo en segundo plano
+     * Responde 202 en cuanto el stock está reservado (pedido en NUEVO, todavía sin items);
+     * el resultado se consulta en la URL de Location. 503 si la cola está llena.
+     */
+    @PostMapping("/clientes/{clienteId}/pedidos/asincrono")
+    public ResponseEntity<ProcesamientoPedidoDTO> crearPedidoAsincrono(@PathVariable Long clienteId,
+                                                                  @RequestBody CrearPedidoRequest request) {
+        try {
+            Long pedidoId = colaPedidos.encolar(clienteId, request.getItems());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/pedidos/" + pedidoId + "/procesamiento"))
+                    .body(ProcesamientoPedidoDTO.enCola(pedidoId));
+        } catch (ColaPedidos.ColaLlena e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * GET /api/pedidos/{id}/procesamiento - Estado de un pedido asíncrono (EN_COLA, PROCESADO o RECHAZADO)
+     */
+    @GetMapping("/pedidos/{id}/procesamiento")
+    public ResponseEntity<ProcesamientoPedidoDTO> consultarProcesamiento(@PathVariable Long id) {
+        return colaPedidos.consultar(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * POST /api/pedidos/lote - Crear muchos pedidos en una petición
+     * Devuelve el resultado de cada pedido (ACEPTADO con su ID, o RECHAZADO con el motivo)
+     */
+    @PostMapping("/pedidos/lote")
+    public ResponseEntity<List<ResultadoPedidoLoteDTO>> crearPedidosEnLote(@RequestBody CrearPedidosLoteRequest request) {
+        if (request.getPedidos() == null || request.getPedidos().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(pedidoService.crearPedidosEnLote(request.getPedidos()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -39,61 +138,168 @@ public class PedidoController {
     /**
      * GET /api/pedidos/{id} - Obtener pedido con items y totales
      * CUMPLE CON EL REQUISITO DEL TALLER
+     * 404 también para un pedido asíncrono sin completar o descartado (ver /procesamiento)
      */
     @GetMapping("/pedidos/{id}")
-    public ResponseEntity<Pedido> buscarPedido(@PathVariable Long id) {
-        Optional<Pedido> pedido = pedidoService.buscarPedidoConItems(id);
+    public ResponseEntity<PedidoDTO> buscarPedido(@PathVariable Long id) {
+        Optional<PedidoDTO> pedido = pedidoService.buscarPedidoConItems(id);
         return pedido.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * GET /api/pedidos/{id}/eventos - Cambios de estado del pedido (Server-Sent Events)
+     * Reemplaza el sondeo de GET /api/pedidos/{id}: primero el estado actual ("actual"),
+     * después cada cambio ("estado"). 503 si se alcanzó el máximo de suscripciones
+     */
+    @GetMapping(value = "/pedidos/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirPedido(@PathVariable Long id) {
+        try {
+            return avisosEstadoPedido.suscribirPedido(id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (AvisosEstadoPedido.SinPlaza e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    /**
+     * GET /api/clientes/{clienteId}/pedidos/eventos - Cambios de estado de todos los pedidos del cliente (SSE)
+     */
+    @GetMapping(value = "/clientes/{clienteId}/pedidos/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirCliente(@PathVariable Long clienteId) {
+        try {
+            return avisosEstadoPedido.suscribirCliente(clienteId)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (AvisosEstadoPedido.SinPlaza e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
     /**
      * PUT /api/pedidos/{id}/estado?valor=ENVIADO - Cambiar estado del pedido
      * CUMPLE CON EL REQUISITO DEL TALLER
      */
     @PutMapping("/pedidos/{id}/estado")
-    public ResponseEntity<Pedido> cambiarEstado(@PathVariable Long id,
+    public ResponseEntity<PedidoDTO> cambiarEstado(@PathVariable Long id,
                                               @RequestParam String valor) {
         try {
             Pedido.EstadoPedido nuevoEstado = Pedido.EstadoPedido.valueOf(valor.toUpperCase());
-            Pedido pedido = pedidoService.cambiarEstado(id, nuevoEstado);
+            PedidoDTO pedido = pedidoService.cambiarEstado(id, nuevoEstado);
             return ResponseEntity.ok(pedido);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * PUT /api/pedidos/estado - Cambiar el estado de muchos pedidos en una petición
+     * Cuerpo: {"valor": "ENVIADO", "ids": [1, 2, 3]} o, por filtro,
+     * {"valor": "ENVIADO", "estado": "PAGADO", "antesDe": "2024-01-01T00:00:00"} (antesDe opcional)
+     * Devuelve los IDs cambiados y los rechazados con su motivo
+     */
+    @PutMapping("/pedidos/estado")
+    public ResponseEntity<CambioEstadoLoteDTO> cambiarEstadoEnLote(@RequestBody CambiarEstadoLoteRequest request) {
+        if (request.getValor() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Pedido.EstadoPedido nuevoEstado = Pedido.EstadoPedido.valueOf(request.getValor().toUpperCase());
+            if (request.getIds() != null && request.getEstado() == null) {
+                return ResponseEntity.ok(pedidoService.cambiarEstadoEnLote(request.getIds(), nuevoEstado));
+            }
+            if (request.getIds() == null && request.getEstado() != null) {
+                Pedido.EstadoPedido estadoActual = Pedido.EstadoPedido.valueOf(request.getEstado().toUpperCase());
+                LocalDateTime antesDe = request.getAntesDe() != null ? request.getAntesDe() : LocalDateTime.now();
+                return ResponseEntity.ok(pedidoService.cambiarEstadoPorFiltro(estadoActual, antesDe, nuevoEstado));
+            }
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * PUT /api/pedidos/{id}/cancelar - Cancelar pedido y revertir stock
      */
     @PutMapping("/pedidos/{id}/cancelar")
-    public ResponseEntity<Pedido> cancelarPedido(@PathVariable Long id) {
+    public ResponseEntity<PedidoDTO> cancelarPedido(@PathVariable Long id) {
         try {
-            Pedido pedido = pedidoService.cancelarPedido(id);
+            PedidoDTO pedido = pedidoService.cancelarPedido(id);
             return ResponseEntity.ok(pedido);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * PUT /api/pedidos/cancelar - Cancelar muchos pedidos y devolver su stock en una transacción
+     * Cuerpo: {"ids": [1, 2, 3]}. Devuelve los IDs cancelados y los rechazados con su motivo
+     */
+    @PutMapping("/pedidos/cancelar")
+    public ResponseEntity<CambioEstadoLoteDTO> cancelarPedidosEnLote(@RequestBody CancelarPedidosLoteRequest request) {
+        if (request.getIds() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(pedidoService.cancelarPedidosEnLote(request.getIds()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * GET /api/clientes/{clienteId}/pedidos - Listar pedidos de un cliente
      */
     @GetMapping("/clientes/{clienteId}/pedidos")
-    public ResponseEntity<List<Pedido>> listarPedidosDeCliente(@PathVariable Long clienteId) {
-        List<Pedido> pedidos = pedidoService.listarPedidosDeCliente(clienteId);
+    public ResponseEntity<List<PedidoDTO>> listarPedidosDeCliente(@PathVariable Long clienteId) {
+        List<PedidoDTO> pedidos = pedidoService.listarPedidosDeCliente(clienteId);
         return ResponseEntity.ok(pedidos);
     }
 
     /**
-     * GET /api/reportes/totales-cliente - Reporte de totales por cliente
+     * GET /api/reportes/totales-cliente?page=0&size=20 - Reporte de totales por cliente
+     * Paginado y ordenado por total gastado (mayor primero)
      */
     @GetMapping("/reportes/totales-cliente")
-    public ResponseEntity<List<TotalClienteDTO>> obtenerTotalesPorCliente() {
-        List<TotalClienteDTO> totales = pedidoService.obtenerTotalesPorCliente();
+    public ResponseEntity<Page<TotalClienteDTO>> obtenerTotalesPorCliente(@PageableDefault(size = 20) Pageable pageable) {
+        Page<TotalClienteDTO> totales = pedidoService.obtenerTotalesPorCliente(pageable);
         return ResponseEntity.ok(totales);
     }
 
+    /**
+     * GET /api/reportes/totales-cliente/top?n=10 - Los N clientes que más gastaron
+     */
+    @GetMapping("/reportes/totales-cliente/top")
+    public ResponseEntity<List<TotalClienteDTO>> topClientes(@RequestParam(defaultValue = "10") int n) {
+        if (n < 1 || n > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(totalesClienteService.top(n));
+    }
+
+    /**
+     * POST /api/reportes/totales-cliente/reconstruir - Recalcular todos los totales desde los pedidos
+     */
+    @PostMapping("/reportes/totales-cliente/reconstruir")
+    public ResponseEntity<Map<String, Integer>> reconstruirTotales() {
+        int clientes = totalesClienteService.reconstruir();
+        return ResponseEntity.ok(Map.of("clientes", clientes));
+    }
+
+    /**
+     * GET /api/reportes/eventos-pedido - Última posición publicada y offset de cada consumidor
+     * de este nodo. La diferencia es lo que le falta procesar a cada uno
+     */
+    @GetMapping("/reportes/eventos-pedido")
+    public ResponseEntity<Map<String, Object>> estadoEventos() {
+        return ResponseEntity.ok(Map.of(
+                "ultimaPosicion", publicadorEventosPedido.getUltimaPosicion(),
+                "nodo", busEventosPedido.getNodo(),
+                "consumidores", busEventosPedido.getOffsets()));
+    }
+
     // ===== CLASES AUXILIARES =====
 
     public static class CrearPedidoRequest {
@@ -102,4 +308,34 @@ public class PedidoController {
         public List<PedidoService.ItemPedidoRequest> getItems() { return items; }
         public void setItems(List<PedidoService.ItemPedidoRequest> items) { this.items = items; }
     }
+
+    public static class CambiarEstadoLoteRequest {
+        private String valor;
+        private List<Long> ids;
+        private String estado;
+        private LocalDateTime antesDe;
+
+        public String getValor() { return valor; }
+        public void setValor(String valor) { this.valor = valor; }
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+        public String getEstado() { return estado; }
+        public void setEstado(String estado) { this.estado = estado; }
+        public LocalDateTime getAntesDe() { return antesDe; }
+        public void setAntesDe(LocalDateTime antesDe) { this.antesDe = antesDe; }
+    }
+
+    public static class CancelarPedidosLoteRequest {
+        private List<Long> ids;
+
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+    }
+
+    public static class CrearPedidosLoteRequest {
+        private List<PedidoService.PedidoLoteRequest> pedidos;
+
+        public List<PedidoService.PedidoLoteRequest> getPedidos() { return pedidos; }
+        public void setPedidos(List<PedidoService.PedidoLoteRequest> pedidos) { this.pedidos = pedidos; }
+    }
 }
@@ -1,11 +1,16 @@
 package com.example.tienda.controller;
 
-import com.example.tienda.entity.Producto;
+import com.example.tienda.dto.CatalogoDTO;
+import com.example.tienda.dto.FacetaDTO;
+import com.example.tienda.dto.ProductoDTO;
+import com.example.tienda.dto.ResultadoBusquedaDTO;
+import com.example.tienda.dto.SugerenciaDTO;
 import com.example.tienda.service.ProductoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,9 +35,9 @@ public class ProductoController {
      * Cumple con el requisito del taller
      */
     @PostMapping
-    public ResponseEntity<Producto> crearProducto(@RequestBody CrearProductoRequest request) {
+    public ResponseEntity<ProductoDTO> crearProducto(@RequestBody CrearProductoRequest request) {
         try {
-            Producto producto = productoService.crearProducto(
+            ProductoDTO producto = productoService.crearProducto(
                 request.getNombre(),
                 request.getPrecio(),
                 request.getStock()
@@ -48,10 +53,10 @@ public class ProductoController {
      * Cumple con el requisito del taller
      */
     @PostMapping("/{id}/categorias")
-    public ResponseEntity<Producto> asignarCategorias(@PathVariable Long id,
+    public ResponseEntity<ProductoDTO> asignarCategorias(@PathVariable Long id,
                                                     @RequestBody AsignarCategoriasRequest request) {
         try {
-            Producto producto = productoService.asignarCategorias(id, request.getCategorias());
+            ProductoDTO producto = productoService.asignarCategorias(id, request.getCategorias());
             return ResponseEntity.ok(producto);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -61,33 +66,98 @@ public class ProductoController {
     /**
      * GET /api/productos?categoria=Backend&page=0&size=5
      * Filtrar productos por categoría con paginación - requisito del taller
+     * GET /api/productos?page=0&size=20&sort=precio,desc - Catálogo paginado y ordenado
+     *     (por id, nombre, precio o stock; otra propiedad responde 400)
+     * GET /api/productos?despuesDe=1234&size=20 - Paginación por clave (seek) sobre el ID,
+     *     para páginas profundas: enviar el último ID recibido para obtener la siguiente
      */
     @GetMapping
-    public ResponseEntity<Page<Producto>> listarProductos(
+    public ResponseEntity<Slice<ProductoDTO>> listarProductos(
             @RequestParam(required = false) String categoria,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        Pageable pageable = PageRequest.of(page, size);
-
-        if (categoria != null) {
-            // Filtrar por categoría
-            Page<Producto> productos = productoService.buscarPorCategoria(categoria, pageable);
-            return ResponseEntity.ok(productos);
-        } else {
-            // Listar todos
-            List<Producto> todosLosProductos = productoService.listarTodos();
-            // Convertir lista a página (simplificado para el ejemplo)
-            return ResponseEntity.ok(Page.empty());
+            @RequestParam(required = false) Long despuesDe,
+            @PageableDefault(size = 10) Pageable pageable) {
+
+        try {
+            if (categoria != null) {
+                // Filtrar por categoría
+                Page<ProductoDTO> productos = productoService.buscarPorCategoria(categoria, pageable);
+                return ResponseEntity.ok(productos);
+            } else if (despuesDe != null) {
+                // Siguiente bloque después del último ID recibido
+                Slice<ProductoDTO> productos = productoService.listarDespuesDe(despuesDe, pageable.getPageSize());
+                return ResponseEntity.ok(productos);
+            } else {
+                // Listar todos, paginado en la base de datos
+                Page<ProductoDTO> productos = productoService.listar(pageable);
+                return ResponseEntity.ok(productos);
+            }
+        } catch (IllegalArgumentException e) {
+            // Orden por una propiedad que no se admite
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * GET /api/productos/catalogo?categoria=Backend&categoria=Frontend&precioMin=50&precioMax=500&enStock=true
+     *     &page=0&size=20&sort=precio,asc
+     * Catálogo con filtros combinados (categoría: cualquiera de las indicadas, o todas con
+     * todas=true) y facetas por categoría y rango de precio, en una sola llamada
+     */
+    @GetMapping("/catalogo")
+    public ResponseEntity<CatalogoDTO> catalogo(
+            @RequestParam(required = false) Set<String> categoria,
+            @RequestParam(defaultValue = "false") boolean todas,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            @RequestParam(defaultValue = "false") boolean enStock,
+            @PageableDefault(size = 20) Pageable pageable) {
+        try {
+            ProductoService.FiltroCatalogo filtro = new ProductoService.FiltroCatalogo(categoria, todas, precioMin, precioMax, enStock);
+            return ResponseEntity.ok(productoService.catalogo(filtro, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * GET /api/productos/categorias - Categorías con productos y cuántos tiene cada una
+     */
+    @GetMapping("/categorias")
+    public ResponseEntity<List<FacetaDTO>> categoriasConProductos() {
+        return ResponseEntity.ok(productoService.categoriasConProductos());
+    }
+
+    /**
+     * GET /api/productos/buscar?q=laptop&limite=20 - Buscar productos y categorías por nombre
+     * Por relevancia (índice de trigramas en memoria); tolera tildes y errores de tipeo
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<ResultadoBusquedaDTO> buscar(@RequestParam String q,
+                                                       @RequestParam(defaultValue = "20") int limite) {
+        if (q.isBlank() || limite < 1 || limite > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productoService.buscar(q, limite));
+    }
+
+    /**
+     * GET /api/productos/buscar/sugerencias?prefijo=lap&limite=10 - Autocompletar
+     */
+    @GetMapping("/buscar/sugerencias")
+    public ResponseEntity<List<SugerenciaDTO>> sugerir(@RequestParam String prefijo,
+                                                       @RequestParam(defaultValue = "10") int limite) {
+        if (limite < 1 || limite > 100) {
+            return ResponseEntity.badRequest().build();
         }
+        return ResponseEntity.ok(productoService.sugerir(prefijo, limite));
     }
 
     /**
      * GET /api/productos/{id} - Buscar producto por ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Producto> buscarProducto(@PathVariable Long id) {
-        Optional<Producto> producto = productoService.buscarPorId(id);
+    public ResponseEntity<ProductoDTO> buscarProducto(@PathVariable Long id) {
+        Optional<ProductoDTO> producto = productoService.buscarPorId(id);
         return producto.map(ResponseEntity::ok)
                       .orElse(ResponseEntity.notFound().build());
     }
@@ -96,10 +166,10 @@ public class ProductoController {
      * PUT /api/productos/{id}/stock - Actualizar stock
      */
     @PutMapping("/{id}/stock")
-    public ResponseEntity<Producto> actualizarStock(@PathVariable Long id,
+    public ResponseEntity<ProductoDTO> actualizarStock(@PathVariable Long id,
                                                    @RequestBody ActualizarStockRequest request) {
         try {
-            Producto producto = productoService.actualizarStock(id, request.getNuevoStock());
+            ProductoDTO producto = productoService.actualizarStock(id, request.getNuevoStock());
             return ResponseEntity.ok(producto);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -110,9 +180,9 @@ public class ProductoController {
      * GET /api/productos/stock-bajo?minimo=5 - Productos con stock bajo
      */
     @GetMapping("/stock-bajo")
-    public ResponseEntity<List<Producto>> productosConStockBajo(
+    public ResponseEntity<List<ProductoDTO>> productosConStockBajo(
             @RequestParam(defaultValue = "10") Integer minimo) {
-        List<Producto> productos = productoService.buscarProductosConStockBajo(minimo);
+        List<ProductoDTO> productos = productoService.buscarProductosConStockBajo(minimo);
         return ResponseEntity.ok(productos);
     }
 
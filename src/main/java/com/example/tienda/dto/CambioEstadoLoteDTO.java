@@ -0,0 +1,53 @@
+package com.example.tienda.dto;
+
+import com.example.tienda.entity.Pedido;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO con el resultado de un cambio de estado en lote
+ * cambiados: IDs que pasaron al estado pedido; rechazados: ID -> motivo (solo al pasar una
+ * lista de IDs; con filtro se toman únicamente los pedidos que pueden cambiar)
+ */
+public class CambioEstadoLoteDTO {
+
+    private Pedido.EstadoPedido estado;
+    private List<Long> cambiados = new ArrayList<>();
+    private Map<Long, String> rechazados = new LinkedHashMap<>();
+
+    // ===== CONSTRUCTORES =====
+
+    public CambioEstadoLoteDTO() {}
+
+    public CambioEstadoLoteDTO(Pedido.EstadoPedido estado) {
+        this.estado = estado;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Pedido.EstadoPedido getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Pedido.EstadoPedido estado) {
+        this.estado = estado;
+    }
+
+    public List<Long> getCambiados() {
+        return cambiados;
+    }
+
+    public void setCambiados(List<Long> cambiados) {
+        this.cambiados = cambiados;
+    }
+
+    public Map<Long, String> getRechazados() {
+        return rechazados;
+    }
+
+    public void setRechazados(Map<Long, String> rechazados) {
+        this.rechazados = rechazados;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.tienda.dto;
+
+import org.springframework.data.domain.Page;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de GET /api/productos/catalogo: la página de productos que cumple
+ * todos los filtros y las facetas para refinar la búsqueda
+ *
+ * Facetas "disyuntivas": las de categoría se cuentan con todos los filtros salvo
+ * el de categoría, y las de precio con todos salvo el de precio; así cada opción
+ * dice cuántos productos habría al elegirla en lugar de la actual
+ */
+public class CatalogoDTO {
+
+    private Page<ProductoDTO> productos;
+    private List<FacetaDTO> categorias = new ArrayList<>();
+    private List<RangoPrecioDTO> precios = new ArrayList<>();
+
+    // ===== CONSTRUCTORES =====
+
+    public CatalogoDTO() {}
+
+    public CatalogoDTO(Page<ProductoDTO> productos, List<FacetaDTO> categorias, List<RangoPrecioDTO> precios) {
+        this.productos = productos;
+        this.categorias = categorias;
+        this.precios = precios;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Page<ProductoDTO> getProductos() {
+        return productos;
+    }
+
+    public void setProductos(Page<ProductoDTO> productos) {
+        this.productos = productos;
+    }
+
+    public List<FacetaDTO> getCategorias() {
+        return categorias;
+    }
+
+    public void setCategorias(List<FacetaDTO> categorias) {
+        this.categorias = categorias;
+    }
+
+    public List<RangoPrecioDTO> getPrecios() {
+        return precios;
+    }
+
+    public void setPrecios(List<RangoPrecioDTO> precios) {
+        this.precios = precios;
+    }
+}
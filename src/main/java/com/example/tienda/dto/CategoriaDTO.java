@@ -0,0 +1,37 @@
+package com.example.tienda.dto;
+
+/**
+ * DTO de categoría (sin la colección de productos)
+ */
+public class CategoriaDTO {
+
+    private Long id;
+    private String nombre;
+
+    // ===== CONSTRUCTORES =====
+
+    public CategoriaDTO() {}
+
+    public CategoriaDTO(Long id, String nombre) {
+        this.id = id;
+        this.nombre = nombre;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+}
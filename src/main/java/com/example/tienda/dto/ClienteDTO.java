@@ -0,0 +1,82 @@
+package com.example.tienda.dto;
+
+import com.example.tienda.entity.Cliente;
+import com.example.tienda.entity.Direccion;
+
+/**
+ * DTO de respuesta para clientes
+ * Se llena con una proyección por constructor (cliente + dirección en una sola consulta)
+ * No incluye la lista de pedidos: para eso está GET /api/clientes/{id}/pedidos
+ */
+public class ClienteDTO {
+
+    private Long id;
+    private String nombre;
+    private String email;
+    private DireccionDTO direccion;
+
+    // ===== CONSTRUCTORES =====
+
+    public ClienteDTO() {}
+
+    /**
+     * Constructor para las consultas JPQL (LEFT JOIN con la dirección)
+     * Si el cliente no tiene dirección, las columnas de dirección llegan en null
+     */
+    public ClienteDTO(Long id, String nombre, String email,
+                      Long direccionId, String calle, String ciudad, String pais, String zip) {
+        this.id = id;
+        this.nombre = nombre;
+        this.email = email;
+        if (direccionId != null) {
+            this.direccion = new DireccionDTO(direccionId, calle, ciudad, pais, zip);
+        }
+    }
+
+    /**
+     * Crear el DTO desde una entidad que ya tiene su dirección en memoria
+     */
+    public static ClienteDTO desde(Cliente cliente) {
+        Direccion direccion = cliente.getDireccion();
+        if (direccion == null) {
+            return new ClienteDTO(cliente.getId(), cliente.getNombre(), cliente.getEmail(),
+                    null, null, null, null, null);
+        }
+        return new ClienteDTO(cliente.getId(), cliente.getNombre(), cliente.getEmail(),
+                direccion.getId(), direccion.getCalle(), direccion.getCiudad(), direccion.getPais(), direccion.getZip());
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public DireccionDTO getDireccion() {
+        return direccion;
+    }
+
+    public void setDireccion(DireccionDTO direccion) {
+        this.direccion = direccion;
+    }
+}
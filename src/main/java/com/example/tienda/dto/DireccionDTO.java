@@ -0,0 +1,67 @@
+package com.example.tienda.dto;
+
+/**
+ * DTO de la dirección de un cliente (solo datos, sin la referencia al cliente)
+ */
+public class DireccionDTO {
+
+    private Long id;
+    private String calle;
+    private String ciudad;
+    private String pais;
+    private String zip;
+
+    // ===== CONSTRUCTORES =====
+
+    public DireccionDTO() {}
+
+    public DireccionDTO(Long id, String calle, String ciudad, String pais, String zip) {
+        this.id = id;
+        this.calle = calle;
+        this.ciudad = ciudad;
+        this.pais = pais;
+        this.zip = zip;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCalle() {
+        return calle;
+    }
+
+    public void setCalle(String calle) {
+        this.calle = calle;
+    }
+
+    public String getCiudad() {
+        return ciudad;
+    }
+
+    public void setCiudad(String ciudad) {
+        this.ciudad = ciudad;
+    }
+
+    public String getPais() {
+        return pais;
+    }
+
+    public void setPais(String pais) {
+        this.pais = pais;
+    }
+
+    public String getZip() {
+        return zip;
+    }
+
+    public void setZip(String zip) {
+        this.zip = zip;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.tienda.dto;
+
+import com.example.tienda.entity.Pedido;
+import java.math.BigDecimal;
+
+/**
+ * Proyección mínima de un pedido para los cambios de estado en lote
+ * Lo justo para validar la transición y armar su EventoPedido, sin cargar la entidad
+ */
+public class EstadoPedidoDTO {
+
+    private Long pedidoId;
+    private Long clienteId;
+    private Pedido.EstadoPedido estado;
+    private BigDecimal total;
+    private boolean enProceso;
+
+    // ===== CONSTRUCTORES =====
+
+    public EstadoPedidoDTO() {}
+
+    public EstadoPedidoDTO(Long pedidoId, Long clienteId, Pedido.EstadoPedido estado, BigDecimal total,
+                           boolean enProceso) {
+        this.pedidoId = pedidoId;
+        this.clienteId = clienteId;
+        this.estado = estado;
+        this.total = total;
+        this.enProceso = enProceso;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(Long pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public Pedido.EstadoPedido getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Pedido.EstadoPedido estado) {
+        this.estado = estado;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    /**
+     * Pedido asíncrono que todavía no se completó (carrito pendiente)
+     */
+    public boolean isEnProceso() {
+        return enProceso;
+    }
+
+    public void setEnProceso(boolean enProceso) {
+        this.enProceso = enProceso;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.tienda.dto;
+
+import com.example.tienda.entity.EventoPedido;
+import com.example.tienda.entity.Pedido;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un evento de pedido publicado (lo que reciben los consumidores del bus)
+ * posicion es el offset en el registro de eventos; estadoAnterior null = pedido creado
+ */
+public class EventoPedidoDTO {
+
+    private Long posicion;
+    private Long pedidoId;
+    private Long clienteId;
+    private Pedido.EstadoPedido estadoAnterior;
+    private Pedido.EstadoPedido estado;
+    private BigDecimal total;
+    private LocalDateTime fecha;
+
+    // ===== CONSTRUCTORES =====
+
+    public EventoPedidoDTO() {}
+
+    public EventoPedidoDTO(Long posicion, Long pedidoId, Long clienteId, Pedido.EstadoPedido estadoAnterior,
+                           Pedido.EstadoPedido estado, BigDecimal total, LocalDateTime fecha) {
+        this.posicion = posicion;
+        this.pedidoId = pedidoId;
+        this.clienteId = clienteId;
+        this.estadoAnterior = estadoAnterior;
+        this.estado = estado;
+        this.total = total;
+        this.fecha = fecha;
+    }
+
+    public static EventoPedidoDTO desde(EventoPedido evento) {
+        return new EventoPedidoDTO(evento.getPosicion(), evento.getPedidoId(), evento.getClienteId(),
+                evento.getEstadoAnterior(), evento.getEstado(), evento.getTotal(), evento.getFecha());
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getPosicion() {
+        return posicion;
+    }
+
+    public void setPosicion(Long posicion) {
+        this.posicion = posicion;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(Long pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public Pedido.EstadoPedido getEstadoAnterior() {
+        return estadoAnterior;
+    }
+
+    public void setEstadoAnterior(Pedido.EstadoPedido estadoAnterior) {
+        this.estadoAnterior = estadoAnterior;
+    }
+
+    public Pedido.EstadoPedido getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Pedido.EstadoPedido estado) {
+        this.estado = estado;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.tienda.dto;
+
+/**
+ * Faceta de categoría del catálogo: cuántos productos quedarían al elegir esa categoría
+ */
+public class FacetaDTO {
+
+    private String valor;
+    private long cantidad;
+
+    // ===== CONSTRUCTORES =====
+
+    public FacetaDTO() {}
+
+    public FacetaDTO(String valor, long cantidad) {
+        this.valor = valor;
+        this.cantidad = cantidad;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public String getValor() {
+        return valor;
+    }
+
+    public void setValor(String valor) {
+        this.valor = valor;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(long cantidad) {
+        this.cantidad = cantidad;
+    }
+}
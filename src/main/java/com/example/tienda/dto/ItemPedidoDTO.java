@@ -0,0 +1,79 @@
+package com.example.tienda.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO de una línea de pedido (con el nombre del producto, sin la entidad Producto)
+ */
+public class ItemPedidoDTO {
+
+    private Long id;
+    private Long productoId;
+    private String productoNombre;
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+    private BigDecimal subtotal;
+
+    // ===== CONSTRUCTORES =====
+
+    public ItemPedidoDTO() {}
+
+    public ItemPedidoDTO(Long id, Long productoId, String productoNombre, Integer cantidad, BigDecimal precioUnitario) {
+        this.id = id;
+        this.productoId = productoId;
+        this.productoNombre = productoNombre;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+        this.subtotal = precioUnitario.multiply(BigDecimal.valueOf(cantidad));
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getProductoNombre() {
+        return productoNombre;
+    }
+
+    public void setProductoNombre(String productoNombre) {
+        this.productoNombre = productoNombre;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public void setPrecioUnitario(BigDecimal precioUnitario) {
+        this.precioUnitario = precioUnitario;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(BigDecimal subtotal) {
+        this.subtotal = subtotal;
+    }
+}
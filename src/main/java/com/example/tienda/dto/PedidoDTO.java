@@ -0,0 +1,116 @@
+package com.example.tienda.dto;
+
+import com.example.tienda.entity.ItemPedido;
+import com.example.tienda.entity.Pedido;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO de respuesta para pedidos con sus items
+ * Solo lleva el ID del cliente, no la entidad (evita recorrer Cliente -> pedidos -> ...)
+ */
+public class PedidoDTO {
+
+    private Long id;
+    private LocalDateTime fecha;
+    private Pedido.EstadoPedido estado;
+    private BigDecimal total;
+    private Long clienteId;
+    private List<ItemPedidoDTO> items = new ArrayList<>();
+
+    // ===== CONSTRUCTORES =====
+
+    public PedidoDTO() {}
+
+    public PedidoDTO(Long id, LocalDateTime fecha, Pedido.EstadoPedido estado, BigDecimal total, Long clienteId) {
+        this.id = id;
+        this.fecha = fecha;
+        this.estado = estado;
+        this.total = total;
+        this.clienteId = clienteId;
+    }
+
+    /**
+     * Crear el DTO desde una entidad cuyos items y productos ya están en memoria
+     * (por ejemplo, el pedido recién creado o uno cargado con findWithItemsById)
+     */
+    public static PedidoDTO desde(Pedido pedido) {
+        PedidoDTO dto = new PedidoDTO(pedido.getId(), pedido.getFecha(), pedido.getEstado(),
+                pedido.getTotal(), pedido.getCliente().getId());
+        for (ItemPedido item : pedido.getItems()) {
+            dto.items.add(new ItemPedidoDTO(item.getId(), item.getProducto().getId(), item.getProducto().getNombre(),
+                    item.getCantidad(), item.getPrecioUnitario()));
+        }
+        return dto;
+    }
+
+    /**
+     * Armar los pedidos a partir de las filas planas (una por item), respetando el orden
+     */
+    public static List<PedidoDTO> agrupar(List<PedidoLineaDTO> lineas) {
+        Map<Long, PedidoDTO> pedidos = new LinkedHashMap<>();
+        for (PedidoLineaDTO linea : lineas) {
+            PedidoDTO dto = pedidos.computeIfAbsent(linea.getPedidoId(), id -> new PedidoDTO(id,
+                    linea.getFecha(), linea.getEstado(), linea.getTotal(), linea.getClienteId()));
+            if (linea.getItemId() != null) {
+                dto.items.add(new ItemPedidoDTO(linea.getItemId(), linea.getProductoId(), linea.getProductoNombre(),
+                        linea.getCantidad(), linea.getPrecioUnitario()));
+            }
+        }
+        return new ArrayList<>(pedidos.values());
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public Pedido.EstadoPedido getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Pedido.EstadoPedido estado) {
+        this.estado = estado;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public List<ItemPedidoDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemPedidoDTO> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.tienda.dto;
+
+import com.example.tienda.entity.Pedido;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO "plano": una fila por cada item de pedido con los datos de su pedido
+ * Permite leer pedidos con sus items en UNA consulta de solo las columnas necesarias
+ * (Pedido LEFT JOIN items LEFT JOIN producto); luego PedidoDTO.agrupar arma el árbol
+ */
+public class PedidoLineaDTO {
+
+    private Long pedidoId;
+    private LocalDateTime fecha;
+    private Pedido.EstadoPedido estado;
+    private BigDecimal total;
+    private Long clienteId;
+    private Long itemId;
+    private Long productoId;
+    private String productoNombre;
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+
+    // ===== CONSTRUCTORES =====
+
+    public PedidoLineaDTO() {}
+
+    /**
+     * Constructor para las consultas JPQL en PedidoRepository
+     * Solo pedidos completos: los pedidos asíncronos sin items no se proyectan
+     */
+    public PedidoLineaDTO(Long pedidoId, LocalDateTime fecha, Pedido.EstadoPedido estado, BigDecimal total,
+                          Long clienteId, Long itemId, Long productoId, String productoNombre,
+                          Integer cantidad, BigDecimal precioUnitario) {
+        this.pedidoId = pedidoId;
+        this.fecha = fecha;
+        this.estado = estado;
+        this.total = total;
+        this.clienteId = clienteId;
+        this.itemId = itemId;
+        this.productoId = productoId;
+        this.productoNombre = productoNombre;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(Long pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public Pedido.EstadoPedido getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Pedido.EstadoPedido estado) {
+        this.estado = estado;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getProductoNombre() {
+        return productoNombre;
+    }
+
+    public void setProductoNombre(String productoNombre) {
+        this.productoNombre = productoNombre;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public void setPrecioUnitario(BigDecimal precioUnitario) {
+        this.precioUnitario = precioUnitario;
+    }
+}
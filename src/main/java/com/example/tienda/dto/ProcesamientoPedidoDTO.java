@@ -0,0 +1,93 @@
+package com.example.tienda.dto;
+
+import com.example.tienda.entity.Pedido;
+
+/**
+ * DTO con el estado de un pedido asíncrono (POST /api/clientes/{clienteId}/pedidos/asincrono)
+ * EN_COLA: stock reservado, el pedido existe en NUEVO y espera sus items y su total
+ * PROCESADO: pedido completo (en pedido); RECHAZADO: se devolvió el stock y se canceló (motivo)
+ */
+public class ProcesamientoPedidoDTO {
+
+    public enum Estado {
+        EN_COLA, PROCESADO, RECHAZADO
+    }
+
+    private Long pedidoId;
+    private Estado estado;
+    private Pedido.EstadoPedido estadoPedido;
+    private String motivo;
+    private PedidoDTO pedido;
+
+    // ===== CONSTRUCTORES =====
+
+    public ProcesamientoPedidoDTO() {}
+
+    public static ProcesamientoPedidoDTO enCola(Long pedidoId) {
+        ProcesamientoPedidoDTO resultado = new ProcesamientoPedidoDTO();
+        resultado.pedidoId = pedidoId;
+        resultado.estado = Estado.EN_COLA;
+        resultado.estadoPedido = Pedido.EstadoPedido.NUEVO;
+        return resultado;
+    }
+
+    public static ProcesamientoPedidoDTO procesado(PedidoDTO pedido) {
+        ProcesamientoPedidoDTO resultado = new ProcesamientoPedidoDTO();
+        resultado.pedidoId = pedido.getId();
+        resultado.estado = Estado.PROCESADO;
+        resultado.estadoPedido = pedido.getEstado();
+        resultado.pedido = pedido;
+        return resultado;
+    }
+
+    public static ProcesamientoPedidoDTO rechazado(Long pedidoId, String motivo) {
+        ProcesamientoPedidoDTO resultado = new ProcesamientoPedidoDTO();
+        resultado.pedidoId = pedidoId;
+        resultado.estado = Estado.RECHAZADO;
+        resultado.estadoPedido = Pedido.EstadoPedido.CANCELADO;
+        resultado.motivo = motivo;
+        return resultado;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(Long pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+
+    public Pedido.EstadoPedido getEstadoPedido() {
+        return estadoPedido;
+    }
+
+    public void setEstadoPedido(Pedido.EstadoPedido estadoPedido) {
+        this.estadoPedido = estadoPedido;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    public void setMotivo(String motivo) {
+        this.motivo = motivo;
+    }
+
+    public PedidoDTO getPedido() {
+        return pedido;
+    }
+
+    public void setPedido(PedidoDTO pedido) {
+        this.pedido = pedido;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.tienda.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO de respuesta para productos
+ * Los datos básicos salen de una proyección por constructor; las categorías de
+ * toda una página se completan con UNA consulta adicional (nunca una por producto)
+ */
+public class ProductoDTO {
+
+    private Long id;
+    private String nombre;
+    private BigDecimal precio;
+    private Integer stock;
+    private List<CategoriaDTO> categorias = new ArrayList<>();
+
+    // ===== CONSTRUCTORES =====
+
+    public ProductoDTO() {}
+
+    /**
+     * Constructor para las consultas JPQL
+     */
+    public ProductoDTO(Long id, String nombre, BigDecimal precio, Integer stock) {
+        this.id = id;
+        this.nombre = nombre;
+        this.precio = precio;
+        this.stock = stock;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+
+    public void setPrecio(BigDecimal precio) {
+        this.precio = precio;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public List<CategoriaDTO> getCategorias() {
+        return categorias;
+    }
+
+    public void setCategorias(List<CategoriaDTO> categorias) {
+        this.categorias = categorias;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.tienda.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Faceta de precio del catálogo: productos con desde <= precio < hasta
+ * (hasta es null en el último rango, sin tope)
+ */
+public class RangoPrecioDTO {
+
+    private BigDecimal desde;
+    private BigDecimal hasta;
+    private long cantidad;
+
+    // ===== CONSTRUCTORES =====
+
+    public RangoPrecioDTO() {}
+
+    public RangoPrecioDTO(BigDecimal desde, BigDecimal hasta, long cantidad) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.cantidad = cantidad;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public BigDecimal getDesde() {
+        return desde;
+    }
+
+    public void setDesde(BigDecimal desde) {
+        this.desde = desde;
+    }
+
+    public BigDecimal getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(BigDecimal hasta) {
+        this.hasta = hasta;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(long cantidad) {
+        this.cantidad = cantidad;
+    }
+}
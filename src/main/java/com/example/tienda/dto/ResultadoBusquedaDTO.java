@@ -0,0 +1,41 @@
+package com.example.tienda.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de GET /api/productos/buscar: productos y categorías cuyo nombre
+ * coincide con el texto, cada lista del más al menos relevante
+ */
+public class ResultadoBusquedaDTO {
+
+    private List<ProductoDTO> productos = new ArrayList<>();
+    private List<CategoriaDTO> categorias = new ArrayList<>();
+
+    // ===== CONSTRUCTORES =====
+
+    public ResultadoBusquedaDTO() {}
+
+    public ResultadoBusquedaDTO(List<ProductoDTO> productos, List<CategoriaDTO> categorias) {
+        this.productos = productos;
+        this.categorias = categorias;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public List<ProductoDTO> getProductos() {
+        return productos;
+    }
+
+    public void setProductos(List<ProductoDTO> productos) {
+        this.productos = productos;
+    }
+
+    public List<CategoriaDTO> getCategorias() {
+        return categorias;
+    }
+
+    public void setCategorias(List<CategoriaDTO> categorias) {
+        this.categorias = categorias;
+    }
+}
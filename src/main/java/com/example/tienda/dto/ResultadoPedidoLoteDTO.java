@@ -0,0 +1,83 @@
+package com.example.tienda.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con el resultado de UN pedido dentro de una carga en lote
+ * Cada pedido se acepta o rechaza por separado; indice es su posición en la petición
+ */
+public class ResultadoPedidoLoteDTO {
+
+    public enum Estado {
+        ACEPTADO, RECHAZADO
+    }
+
+    private int indice;
+    private Estado estado;
+    private Long pedidoId;
+    private BigDecimal total;
+    private String error;
+
+    // ===== CONSTRUCTORES =====
+
+    public ResultadoPedidoLoteDTO() {}
+
+    public static ResultadoPedidoLoteDTO aceptado(int indice, Long pedidoId, BigDecimal total) {
+        ResultadoPedidoLoteDTO resultado = new ResultadoPedidoLoteDTO();
+        resultado.indice = indice;
+        resultado.estado = Estado.ACEPTADO;
+        resultado.pedidoId = pedidoId;
+        resultado.total = total;
+        return resultado;
+    }
+
+    public static ResultadoPedidoLoteDTO rechazado(int indice, String error) {
+        ResultadoPedidoLoteDTO resultado = new ResultadoPedidoLoteDTO();
+        resultado.indice = indice;
+        resultado.estado = Estado.RECHAZADO;
+        resultado.error = error;
+        return resultado;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public int getIndice() {
+        return indice;
+    }
+
+    public void setIndice(int indice) {
+        this.indice = indice;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(Long pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.tienda.dto;
+
+/**
+ * Sugerencia de autocompletado: un producto o una categoría por su nombre
+ */
+public class SugerenciaDTO {
+
+    public enum Tipo {
+        PRODUCTO, CATEGORIA
+    }
+
+    private Tipo tipo;
+    private Long id;
+    private String nombre;
+
+    // ===== CONSTRUCTORES =====
+
+    public SugerenciaDTO() {}
+
+    public SugerenciaDTO(Tipo tipo, Long id, String nombre) {
+        this.tipo = tipo;
+        this.id = id;
+        this.nombre = nombre;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(Tipo tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+}
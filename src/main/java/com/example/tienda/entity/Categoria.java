@@ -1,15 +1,24 @@
 package com.example.tienda.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
  * ENTIDAD CATEGORIA
  * Tiene relación N:M con Producto (lado inverso de la relación)
+ * @JsonIgnoreProperties: permite serializar la categoría cuando es un proxy de Hibernate
+ * En la caché de segundo nivel (región "categoria"): casi no cambia y se lee en cada asignación
  */
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categoria")
 @Table(name = "categorias")
 public class Categoria {
 
@@ -28,7 +37,10 @@ public class Categoria {
      * RELACIÓN N:M CON PRODUCTOS (lado inverso)
      * mappedBy = "categorias" significa que la relación está definida 
      * en el lado Producto, en el atributo llamado "categorias"
+     * @JsonIgnore: no se serializa (evita la recursión Producto -> Categoria -> Producto
+     * y la carga perezosa sobre productos que ya están fuera de la sesión, p. ej. en caché)
      */
+    @JsonIgnore
     @ManyToMany(mappedBy = "categorias", fetch = FetchType.LAZY)
     private Set<Producto> productos = new HashSet<>();
 
@@ -45,6 +57,7 @@ public class Categoria {
     /**
      * Obtener la cantidad de productos en esta categoría
      */
+    @JsonIgnore
     public int getCantidadProductos() {
         return productos.size();
     }
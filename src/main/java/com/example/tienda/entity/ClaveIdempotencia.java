@@ -0,0 +1,86 @@
+package com.example.tienda.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * ENTIDAD CLAVE DE IDEMPOTENCIA
+ * Un pedido creado con la cabecera Idempotency-Key: si el cliente reintenta con la misma
+ * clave se devuelve este pedido en lugar de crear otro (ver IdempotenciaPedidos).
+ * La fila se inserta en la misma transacción que el pedido: o quedan los dos o ninguno.
+ * Las filas más viejas que tienda.pedidos.idempotencia.horas se borran periódicamente.
+ */
+@Entity
+@Table(name = "claves_idempotencia",
+       indexes = @Index(name = "idx_claves_idempotencia_fecha", columnList = "fecha"))
+public class ClaveIdempotencia {
+
+    /**
+     * ID del cliente y clave enviada, "clienteId:clave" (dos clientes pueden usar la misma clave)
+     */
+    @Id
+    @Column(length = 120)
+    private String clave;
+
+    /**
+     * SHA-256 del carrito: la misma clave con otro carrito es un error del cliente
+     */
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    /**
+     * Se completa al guardar el pedido, antes de confirmar la transacción
+     */
+    @Column(name = "pedido_id")
+    private Long pedidoId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    // ===== CONSTRUCTORES =====
+
+    public ClaveIdempotencia() {}
+
+    // ===== GETTERS Y SETTERS =====
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getHuella() {
+        return huella;
+    }
+
+    public void setHuella(String huella) {
+        this.huella = huella;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(Long pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaveIdempotencia{" +
+                "clave='" + clave + '\'' +
+                ", pedidoId=" + pedidoId +
+                ", fecha=" + fecha +
+                '}';
+    }
+}
@@ -7,9 +7,10 @@ import jakarta.validation.constraints.NotBlank;
  * ENTIDAD DIRECCIÓN
  * Tiene relación 1:1 con Cliente
  * Esta entidad POSEE la clave foránea (cliente_id)
+ * Índice por ciudad para ClienteRepository.findByCiudad
  */
 @Entity
-@Table(name = "direcciones")
+@Table(name = "direcciones", indexes = @Index(name = "idx_direcciones_ciudad", columnList = "ciudad"))
 public class Direccion {
 
     @Id
@@ -0,0 +1,158 @@
+package com.example.tienda.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * ENTIDAD EVENTO PEDIDO (outbox transaccional)
+ * Un pedido creado o un cambio de estado. Se inserta en la misma transacción que el cambio:
+ * si el pedido se deshace, el evento también. PublicadorEventosPedido lo publica después.
+ *
+ * posicion es null hasta que se publica; entonces recibe la siguiente posición del registro
+ * de eventos (1, 2, 3... sin huecos), que es lo que los consumidores guardan como offset.
+ */
+@Entity
+@Table(name = "eventos_pedido",
+       indexes = @Index(name = "idx_eventos_pedido_posicion", columnList = "posicion", unique = true))
+public class EventoPedido {
+
+    /**
+     * ID por secuencia (como Pedido): los eventos de una carga en lote se insertan en lotes JDBC
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eventos_pedido_seq")
+    @SequenceGenerator(name = "eventos_pedido_seq", sequenceName = "eventos_pedido_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "pedido_id", nullable = false)
+    private Long pedidoId;
+
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    /**
+     * Estado antes del cambio (null: pedido creado)
+     */
+    @Column(name = "estado_anterior")
+    @Enumerated(EnumType.STRING)
+    private Pedido.EstadoPedido estadoAnterior;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Pedido.EstadoPedido estado;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    private Long posicion;
+
+    // ===== CONSTRUCTORES =====
+
+    public EventoPedido() {}
+
+    /**
+     * Evento con el estado actual del pedido
+     */
+    public EventoPedido(Pedido pedido, Pedido.EstadoPedido estadoAnterior) {
+        this.pedidoId = pedido.getId();
+        this.clienteId = pedido.getCliente().getId();
+        this.estadoAnterior = estadoAnterior;
+        this.estado = pedido.getEstado();
+        this.total = pedido.getTotal();
+        this.fecha = LocalDateTime.now();
+    }
+
+    /**
+     * Evento de un cambio de estado en lote (el pedido no se carga, ver EstadoPedidoDTO)
+     */
+    public EventoPedido(Long pedidoId, Long clienteId, Pedido.EstadoPedido estadoAnterior,
+                        Pedido.EstadoPedido estado, BigDecimal total) {
+        this.pedidoId = pedidoId;
+        this.clienteId = clienteId;
+        this.estadoAnterior = estadoAnterior;
+        this.estado = estado;
+        this.total = total;
+        this.fecha = LocalDateTime.now();
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(Long pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public Pedido.EstadoPedido getEstadoAnterior() {
+        return estadoAnterior;
+    }
+
+    public void setEstadoAnterior(Pedido.EstadoPedido estadoAnterior) {
+        this.estadoAnterior = estadoAnterior;
+    }
+
+    public Pedido.EstadoPedido getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Pedido.EstadoPedido estado) {
+        this.estado = estado;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public Long getPosicion() {
+        return posicion;
+    }
+
+    public void setPosicion(Long posicion) {
+        this.posicion = posicion;
+    }
+
+    @Override
+    public String toString() {
+        return "EventoPedido{" +
+                "id=" + id +
+                ", pedidoId=" + pedidoId +
+                ", estadoAnterior=" + estadoAnterior +
+                ", estado=" + estado +
+                ", posicion=" + posicion +
+                '}';
+    }
+}
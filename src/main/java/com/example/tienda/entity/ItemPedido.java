@@ -16,12 +16,18 @@ import java.math.BigDecimal;
     uniqueConstraints = @UniqueConstraint(
         name = "uk_pedido_producto", 
         columnNames = {"pedido_id", "producto_id"}
-    )
+    ),
+    // La restricción única ya indexa por pedido_id; este cubre las búsquedas por producto
+    indexes = @Index(name = "idx_items_pedido_producto", columnList = "producto_id")
 )
 public class ItemPedido {
 
+    /**
+     * ID por secuencia (bloques de 50) para poder insertar los items en lotes JDBC
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_pedido_seq")
+    @SequenceGenerator(name = "items_pedido_seq", sequenceName = "items_pedido_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -62,6 +68,15 @@ public class ItemPedido {
     @Positive(message = "El precio unitario debe ser mayor a cero")
     private BigDecimal precioUnitario;
 
+    /**
+     * true = el stock de este item se reservó en el inventario en memoria
+     * y todavía NO se ha descontado de la tabla productos (lo hace el volcado periódico).
+     * null/false = el stock ya está aplicado en la tabla productos
+     * Al guardarse en la misma transacción que el pedido, permite reconciliar tras una caída
+     */
+    @Column(name = "stock_pendiente")
+    private Boolean stockPendiente;
+
     // ===== CONSTRUCTORES =====
 
     public ItemPedido() {}
@@ -140,6 +155,14 @@ public class ItemPedido {
         this.precioUnitario = precioUnitario;
     }
 
+    public Boolean getStockPendiente() {
+        return stockPendiente;
+    }
+
+    public void setStockPendiente(Boolean stockPendiente) {
+        this.stockPendiente = stockPendiente;
+    }
+
     @Override
     public String toString() {
         return "ItemPedido{" +
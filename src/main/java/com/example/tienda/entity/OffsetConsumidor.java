@@ -0,0 +1,112 @@
+package com.example.tienda.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * ENTIDAD OFFSET DE CONSUMIDOR
+ * Última posición de eventos_pedido procesada por cada consumidor del bus en cada nodo
+ * (ver BusEventosPedido). Los consumidores son locales al nodo (sus suscripciones SSE, su
+ * archivo): cada nodo lleva su propio offset y lee de la tabla todos los eventos, también
+ * los que publicó otro nodo.
+ * Se guarda después de procesar: tras una caída el consumidor recibe otra vez lo que no
+ * llegó a confirmar (entrega al menos una vez).
+ */
+@Entity
+@Table(name = "offsets_consumidor")
+@IdClass(OffsetConsumidor.Clave.class)
+public class OffsetConsumidor {
+
+    /**
+     * tienda.eventos.nodo del nodo dueño del offset; las filas anteriores a esta columna
+     * quedan para el nodo por defecto
+     */
+    @Id
+    @Column(length = 100)
+    @ColumnDefault("'principal'")
+    private String nodo;
+
+    @Id
+    @Column(length = 100)
+    private String consumidor;
+
+    @Column(nullable = false)
+    private Long posicion;
+
+    // ===== CONSTRUCTORES =====
+
+    public OffsetConsumidor() {}
+
+    public OffsetConsumidor(String nodo, String consumidor, Long posicion) {
+        this.nodo = nodo;
+        this.consumidor = consumidor;
+        this.posicion = posicion;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    public void setNodo(String nodo) {
+        this.nodo = nodo;
+    }
+
+    public String getConsumidor() {
+        return consumidor;
+    }
+
+    public void setConsumidor(String consumidor) {
+        this.consumidor = consumidor;
+    }
+
+    public Long getPosicion() {
+        return posicion;
+    }
+
+    public void setPosicion(Long posicion) {
+        this.posicion = posicion;
+    }
+
+    @Override
+    public String toString() {
+        return "OffsetConsumidor{" +
+                "nodo='" + nodo + '\'' +
+                ", consumidor='" + consumidor + '\'' +
+                ", posicion=" + posicion +
+                '}';
+    }
+
+    /**
+     * Clave compuesta (nodo, consumidor)
+     */
+    public static class Clave implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String nodo;
+        private String consumidor;
+
+        public Clave() {}
+
+        public Clave(String nodo, String consumidor) {
+            this.nodo = nodo;
+            this.consumidor = consumidor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave clave)) return false;
+            return Objects.equals(nodo, clave.nodo) && Objects.equals(consumidor, clave.consumidor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(nodo, consumidor);
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.example.tienda.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -12,13 +12,28 @@ import java.util.List;
  * ENTIDAD PEDIDO
  * Tiene relación N:1 con Cliente (muchos pedidos pueden pertenecer a un cliente)
  * Tiene relación 1:N con ItemPedido (un pedido puede tener muchos items)
+ *
+ * Índices según las consultas de PedidoRepository:
+ * - (cliente_id, fecha DESC, estado, total): pedidos de un cliente ya ordenados; con estado
+ *   y total responde sin leer la tabla (si no, H2 prefiere el índice de la FK cliente_id)
+ * - (estado, fecha): findByEstado y reportes por estado
+ * - (fecha): rangos de fechas (findByFechaBetween, exportación)
  */
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+        @Index(name = "idx_pedidos_cliente_fecha", columnList = "cliente_id, fecha DESC, estado, total"),
+        @Index(name = "idx_pedidos_estado_fecha", columnList = "estado, fecha"),
+        @Index(name = "idx_pedidos_fecha", columnList = "fecha")
+})
 public class Pedido {
 
+    /**
+     * ID por secuencia con optimizador pooled: Hibernate reserva bloques de 50 IDs,
+     * así puede agrupar los INSERT en lotes JDBC (IDENTITY obliga a insertar uno por uno)
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_seq")
+    @SequenceGenerator(name = "pedidos_seq", sequenceName = "pedidos_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -36,10 +51,11 @@ public class Pedido {
 
     /**
      * Total del pedido - se calcula sumando todos los items
+     * Es 0 mientras un pedido asíncrono espera sus items (ver carritoPendiente)
      */
     @Column(nullable = false, precision = 10, scale = 2)
     @NotNull
-    @Positive(message = "El total debe ser mayor a cero")
+    @PositiveOrZero(message = "El total no puede ser negativo")
     private BigDecimal total;
 
     /**
@@ -62,6 +78,14 @@ public class Pedido {
                fetch = FetchType.LAZY)
     private List<ItemPedido> items = new ArrayList<>();
 
+    /**
+     * PEDIDO ASÍNCRONO EN PROCESO (ver ColaPedidos)
+     * Carrito con el stock ya reservado cuyos items todavía no se crearon, "productoId:cantidad"
+     * separados por comas (":M" si se reservó en memoria). Null en cuanto el pedido tiene items.
+     */
+    @Column(name = "carrito_pendiente", length = 4000)
+    private String carritoPendiente;
+
     // ===== ENUM PARA ESTADOS =====
     public enum EstadoPedido {
         NUEVO, PAGADO, ENVIADO, CANCELADO
@@ -168,6 +192,14 @@ public class Pedido {
         this.items = items;
     }
 
+    public String getCarritoPendiente() {
+        return carritoPendiente;
+    }
+
+    public void setCarritoPendiente(String carritoPendiente) {
+        this.carritoPendiente = carritoPendiente;
+    }
+
     @Override
     public String toString() {
         return "Pedido{" +
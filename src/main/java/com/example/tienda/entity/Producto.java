@@ -5,6 +5,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
@@ -12,9 +14,20 @@ import java.util.Set;
 /**
  * ENTIDAD PRODUCTO
  * Tiene relación N:M con Categoria (un producto puede tener varias categorías)
+ *
+ * Índices para los filtros del catálogo: stock bajo (stock < ?) y rangos de precio
+ *
+ * En la caché de segundo nivel (región "producto"), igual que su colección de categorías.
+ * Los UPDATE de stock son SQL nativo y no vacían la región: bloquean solo las filas
+ * que tocan (ver CacheSegundoNivel.stockModificado)
  */
 @Entity
-@Table(name = "productos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "producto")
+@Table(name = "productos", indexes = {
+        @Index(name = "idx_productos_stock", columnList = "stock"),
+        @Index(name = "idx_productos_precio", columnList = "precio")
+})
 public class Producto {
 
     @Id
@@ -49,12 +62,16 @@ public class Producto {
      * Un producto puede tener múltiples categorías
      * Una categoría puede tener múltiples productos
      * @JoinTable crea una tabla intermedia producto_categoria
+     * Su clave primaria (categoria_id, producto_id) sirve para ir de categoría a productos;
+     * el índice (producto_id, categoria_id) para cargar las categorías de unos productos
      */
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "producto.categorias")
     @JoinTable(
         name = "producto_categoria", // Nombre de la tabla intermedia
         joinColumns = @JoinColumn(name = "producto_id"), // FK hacia producto
-        inverseJoinColumns = @JoinColumn(name = "categoria_id") // FK hacia categoria
+        inverseJoinColumns = @JoinColumn(name = "categoria_id"), // FK hacia categoria
+        indexes = @Index(name = "idx_producto_categoria_producto", columnList = "producto_id, categoria_id")
     )
     private Set<Categoria> categorias = new HashSet<>();
 
@@ -0,0 +1,62 @@
+package com.example.tienda.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * ENTIDAD TOTAL CLIENTE (tabla materializada)
+ * Total gastado por cada cliente en pedidos no cancelados.
+ * Se mantiene de forma incremental desde PedidoService (crear, cancelar, cambiar estado)
+ * para que el reporte de totales sea una lectura por índice y no un GROUP BY de todos los pedidos.
+ * Si se desincroniza, se recalcula con TotalesClienteService.reconstruir().
+ */
+@Entity
+@Table(name = "totales_cliente",
+       indexes = @Index(name = "idx_totales_cliente_total", columnList = "total DESC, cliente_id"))
+public class TotalCliente {
+
+    /**
+     * Mismo ID que el cliente (una fila por cliente)
+     */
+    @Id
+    @Column(name = "cliente_id")
+    private Long clienteId;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal total;
+
+    // ===== CONSTRUCTORES =====
+
+    public TotalCliente() {}
+
+    public TotalCliente(Long clienteId, BigDecimal total) {
+        this.clienteId = clienteId;
+        this.total = total;
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    @Override
+    public String toString() {
+        return "TotalCliente{" +
+                "clienteId=" + clienteId +
+                ", total=" + total +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.tienda.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AJUSTE DE SECUENCIAS AL ARRANCAR
+ * Pedido e ItemPedido pasaron de IDENTITY a secuencias. En una base de datos que ya
+ * tenía pedidos, ddl-auto=update crea las secuencias empezando en 1 y los nuevos IDs
+ * chocarían con los existentes. Antes de aceptar peticiones se adelanta cada secuencia
+ * por encima del MAX(id) de su tabla (si ya está por encima, no se toca).
+ *
+ * Con el optimizador pooled, el valor de la secuencia es el extremo superior del bloque
+ * (se usan los IDs valor-incremento+1 .. valor), por eso se reinicia en MAX(id) + incremento.
+ */
+@Component
+@DependsOn("entityManagerFactory") // el esquema (y las secuencias) ya debe existir
+public class AjusteSecuencias {
+
+    private static final Logger log = LoggerFactory.getLogger(AjusteSecuencias.class);
+
+    /**
+     * Secuencia -> tabla cuyos IDs genera
+     */
+    private static final Map<String, String> SECUENCIAS = Map.of(
+            "PEDIDOS_SEQ", "pedidos",
+            "ITEMS_PEDIDO_SEQ", "items_pedido");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void ajustar() {
+        SECUENCIAS.forEach(this::ajustar);
+    }
+
+    private void ajustar(String secuencia, String tabla) {
+        List<Map<String, Object>> filas = jdbcTemplate.queryForList(
+                "SELECT BASE_VALUE, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?", secuencia);
+        if (filas.isEmpty()) {
+            return; // esquema gestionado por otro medio (por ejemplo, migraciones)
+        }
+        long siguiente = ((Number) filas.get(0).get("BASE_VALUE")).longValue();
+        long incremento = ((Number) filas.get(0).get("INCREMENT")).longValue();
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+
+        if (siguiente - incremento + 1 <= maximo) {
+            long reinicio = maximo + incremento;
+            jdbcTemplate.execute("ALTER SEQUENCE " + secuencia + " RESTART WITH " + reinicio);
+            log.info("Secuencia {} reiniciada en {} (MAX(id) de {} = {})", secuencia, reinicio, tabla, maximo);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.tienda.repository;
 
 import com.example.tienda.entity.Categoria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.util.List;
@@ -16,9 +20,17 @@ public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
 
     /**
      * Buscar categoría por nombre exacto
+     * Cacheable: el resultado (ID) queda en la caché de consultas hasta que cambie la tabla
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Categoria> findByNombre(String nombre);
 
+    /**
+     * Solo el ID de la categoría por nombre (sin cargar la entidad)
+     */
+    @Query("SELECT c.id FROM Categoria c WHERE c.nombre = :nombre")
+    Optional<Long> findIdByNombre(@Param("nombre") String nombre);
+
     /**
      * Verificar si existe una categoría con ese nombre
      */
@@ -26,9 +38,16 @@ public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
 
     /**
      * Buscar categorías que contengan cierto texto
+     * LIKE '%texto%' recorre toda la tabla: para búsquedas usar BusquedaCatalogo
      */
     List<Categoria> findByNombreContainingIgnoreCase(String nombre);
 
+    /**
+     * (id, nombre) de todas las categorías, para cargar el índice de búsqueda
+     */
+    @Query("SELECT c.id, c.nombre FROM Categoria c")
+    List<Object[]> findIdYNombre();
+
     /**
      * Consulta para obtener categorías con más productos
      */
@@ -36,8 +55,16 @@ public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
            "GROUP BY c.id ORDER BY COUNT(p) DESC")
     List<Categoria> findCategoriasConMasProductos();
 
+    /**
+     * Cantidad de productos por categoría, solo las que tienen alguno: [nombre, cantidad]
+     * Solo mientras el índice de categorías (CategoriasCatalogo) no está cargado
+     */
+    @Query("SELECT c.nombre, COUNT(p) FROM Categoria c JOIN c.productos p GROUP BY c.nombre")
+    List<Object[]> findCantidadProductosPorCategoria();
+
     /**
      * Buscar categorías que tengan al menos un producto
+     * SIZE() es una subconsulta correlacionada por categoría: para conteos usar CategoriasCatalogo
      */
     @Query("SELECT DISTINCT c FROM Categoria c WHERE SIZE(c.productos) > 0")
     List<Categoria> findCategoriasConProductos();
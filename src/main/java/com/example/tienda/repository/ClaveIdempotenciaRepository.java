@@ -0,0 +1,48 @@
+package com.example.tienda.repository;
+
+import com.example.tienda.entity.ClaveIdempotencia;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+/**
+ * REPOSITORIO CLAVE DE IDEMPOTENCIA
+ * Registro de las claves Idempotency-Key de la creación de pedidos
+ */
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    /**
+     * Registrar la clave al empezar a crear el pedido (INSERT directo: save() haría antes un SELECT)
+     * Si otra transacción ya la registró falla por clave primaria duplicada; si todavía no
+     * confirmó, la base de datos hace esperar a esta hasta su tiempo de espera de bloqueos
+     * (LOCK_TIMEOUT en H2) y, si la otra sigue sin confirmar ni deshacer, falla con
+     * PessimisticLockingFailureException (ver IdempotenciaPedidos)
+     * Declara su tabla como espacio: sin él Hibernate vaciaría toda la caché de segundo nivel
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "claves_idempotencia"))
+    @Query(value = "INSERT INTO claves_idempotencia (clave, huella, fecha) VALUES (:clave, :huella, :fecha)",
+           nativeQuery = true)
+    int registrar(@Param("clave") String clave, @Param("huella") String huella, @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Anotar el pedido creado con la clave (misma transacción que registrar)
+     */
+    @Modifying
+    @Query("UPDATE ClaveIdempotencia c SET c.pedidoId = :pedidoId WHERE c.clave = :clave")
+    int asignarPedido(@Param("clave") String clave, @Param("pedidoId") Long pedidoId);
+
+    /**
+     * Borrar las claves anteriores a la fecha indicada (usa el índice sobre fecha)
+     */
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.fecha < :limite")
+    int borrarAnteriores(@Param("limite") LocalDateTime limite);
+}
@@ -1,5 +1,6 @@
 package com.example.tienda.repository;
 
+import com.example.tienda.dto.ClienteDTO;
 import com.example.tienda.entity.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -7,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -40,6 +42,14 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     @EntityGraph(attributePaths = "direccion")
     Optional<Cliente> findWithDireccionByEmail(String email);
 
+    /**
+     * Cuáles de estos IDs de cliente existen (carga de pedidos en lote)
+     * Solo los IDs: cargar los clientes traería la dirección de cada uno en otra consulta
+     * (el lado inverso de un @OneToOne no puede ser LAZY)
+     */
+    @Query("SELECT c.id FROM Cliente c WHERE c.id IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+
     /**
      * Listar todos los clientes CON sus direcciones
      * Útil para mostrar listados completos sin problemas de performance
@@ -60,4 +70,43 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
      */
     @Query("SELECT c FROM Cliente c JOIN c.direccion d WHERE d.ciudad = :ciudad")
     List<Cliente> findByCiudad(@Param("ciudad") String ciudad);
+
+    // ===== PROYECCIONES A DTO (cliente + dirección en una sola consulta) =====
+
+    /**
+     * Cliente por ID como DTO
+     */
+    @Query("SELECT new com.example.tienda.dto.ClienteDTO(c.id, c.nombre, c.email, d.id, d.calle, d.ciudad, d.pais, d.zip) " +
+           "FROM Cliente c LEFT JOIN c.direccion d WHERE c.id = :id")
+    Optional<ClienteDTO> findDTOById(@Param("id") Long id);
+
+    /**
+     * Cliente por email como DTO
+     */
+    @Query("SELECT new com.example.tienda.dto.ClienteDTO(c.id, c.nombre, c.email, d.id, d.calle, d.ciudad, d.pais, d.zip) " +
+           "FROM Cliente c LEFT JOIN c.direccion d WHERE c.email = :email")
+    Optional<ClienteDTO> findDTOByEmail(@Param("email") String email);
+
+    /**
+     * Todos los clientes como DTO
+     */
+    @Query("SELECT new com.example.tienda.dto.ClienteDTO(c.id, c.nombre, c.email, d.id, d.calle, d.ciudad, d.pais, d.zip) " +
+           "FROM Cliente c LEFT JOIN c.direccion d ORDER BY c.id")
+    List<ClienteDTO> findAllDTO();
+
+    /**
+     * Clientes de una ciudad como DTO
+     */
+    @Query("SELECT new com.example.tienda.dto.ClienteDTO(c.id, c.nombre, c.email, d.id, d.calle, d.ciudad, d.pais, d.zip) " +
+           "FROM Cliente c JOIN c.direccion d WHERE d.ciudad = :ciudad")
+    List<ClienteDTO> findDTOByCiudad(@Param("ciudad") String ciudad);
+
+    /**
+     * Clientes que tienen al menos un pedido, como DTO
+     * EXISTS en lugar de JOIN + DISTINCT: no multiplica filas por pedido
+     */
+    @Query("SELECT new com.example.tienda.dto.ClienteDTO(c.id, c.nombre, c.email, d.id, d.calle, d.ciudad, d.pais, d.zip) " +
+           "FROM Cliente c LEFT JOIN c.direccion d " +
+           "WHERE EXISTS (SELECT 1 FROM Pedido p WHERE p.cliente = c)")
+    List<ClienteDTO> findDTOClientesConPedidos();
 }
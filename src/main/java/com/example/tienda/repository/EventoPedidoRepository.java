@@ -0,0 +1,47 @@
+package com.example.tienda.repository;
+
+import com.example.tienda.dto.EventoPedidoDTO;
+import com.example.tienda.entity.EventoPedido;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * REPOSITORIO EVENTO PEDIDO (outbox)
+ * Eventos sin publicar para PublicadorEventosPedido y lectura por posición para los consumidores
+ */
+@Repository
+public interface EventoPedidoRepository extends JpaRepository<EventoPedido, Long> {
+
+    /**
+     * Eventos sin publicar, en el orden en que se insertaron
+     */
+    @Query("SELECT e FROM EventoPedido e WHERE e.posicion IS NULL ORDER BY e.id")
+    List<EventoPedido> findNoPublicados(Pageable pageable);
+
+    /**
+     * Última posición asignada (0 si no se publicó ninguno); lee el final del índice único
+     */
+    @Query("SELECT COALESCE(MAX(e.posicion), 0) FROM EventoPedido e")
+    long findUltimaPosicion();
+
+    /**
+     * Eventos publicados después de una posición (un consumidor que se pone al día)
+     */
+    @Query("SELECT new com.example.tienda.dto.EventoPedidoDTO(e.posicion, e.pedidoId, e.clienteId, " +
+           "e.estadoAnterior, e.estado, e.total, e.fecha) " +
+           "FROM EventoPedido e WHERE e.posicion > :posicion ORDER BY e.posicion")
+    List<EventoPedidoDTO> findPublicadosDesde(@Param("posicion") long posicion, Pageable pageable);
+
+    /**
+     * Borrar eventos ya procesados por todos los consumidores y anteriores a la fecha indicada
+     */
+    @Modifying
+    @Query("DELETE FROM EventoPedido e WHERE e.posicion <= :posicion AND e.fecha < :limite")
+    int borrarConsumidos(@Param("posicion") long posicion, @Param("limite") LocalDateTime limite);
+}
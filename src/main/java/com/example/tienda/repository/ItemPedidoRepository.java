@@ -1,10 +1,18 @@
 package com.example.tienda.repository;
 
 import com.example.tienda.entity.ItemPedido;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,4 +52,43 @@ public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Long> {
      * Verificar si existe un item con ese pedido y producto
      */
     boolean existsByPedidoIdAndProductoId(Long pedidoId, Long productoId);
+
+    // ===== INVENTARIO EN MEMORIA =====
+
+    /**
+     * Items cuyo stock se reservó en memoria y aún no se aplicó a la tabla productos
+     * Se bloquean (SELECT ... FOR UPDATE) para que una cancelación concurrente
+     * no los descarte mientras se están volcando
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ip FROM ItemPedido ip WHERE ip.stockPendiente = true ORDER BY ip.id")
+    List<ItemPedido> findConStockPendiente(Pageable pageable);
+
+    /**
+     * Marcar items como aplicados después de descontar su stock en productos
+     */
+    @Modifying
+    @Query("UPDATE ItemPedido ip SET ip.stockPendiente = false WHERE ip.id IN :ids")
+    int marcarStockAplicado(@Param("ids") Collection<Long> ids);
+
+    // ===== CANCELACIÓN =====
+
+    /**
+     * Items de los pedidos a cancelar, bloqueados (SELECT ... FOR UPDATE) en orden de ID, como
+     * el volcado: mientras se devuelve el stock, el volcado no puede aplicar uno pendiente.
+     * Solo lectura: se modifican con UPDATE por conjunto, no por entidad
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT ip FROM ItemPedido ip WHERE ip.pedido.id IN :pedidoIds ORDER BY ip.id")
+    List<ItemPedido> bloquearDePedidos(@Param("pedidoIds") Collection<Long> pedidoIds);
+
+    /**
+     * Descartar el stock pendiente de los items de estos pedidos (cancelación antes del volcado)
+     * Con los items bloqueados, los que siguen pendientes nunca se descontaron de productos
+     */
+    @Modifying
+    @Query("UPDATE ItemPedido ip SET ip.stockPendiente = false " +
+           "WHERE ip.pedido.id IN :pedidoIds AND ip.stockPendiente = true")
+    int descartarStockPendienteDePedidos(@Param("pedidoIds") Collection<Long> pedidoIds);
 }
@@ -0,0 +1,32 @@
+package com.example.tienda.repository;
+
+import com.example.tienda.entity.OffsetConsumidor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * REPOSITORIO OFFSET DE CONSUMIDOR
+ * Posición confirmada por cada consumidor del bus de eventos de pedidos, en cada nodo
+ */
+@Repository
+public interface OffsetConsumidorRepository extends JpaRepository<OffsetConsumidor, OffsetConsumidor.Clave> {
+
+    /**
+     * Confirmar la posición procesada por un consumidor de un nodo (nunca retrocede)
+     */
+    @Modifying
+    @Query("UPDATE OffsetConsumidor o SET o.posicion = :posicion " +
+           "WHERE o.nodo = :nodo AND o.consumidor = :consumidor AND o.posicion < :posicion")
+    int confirmar(@Param("nodo") String nodo, @Param("consumidor") String consumidor,
+                  @Param("posicion") long posicion);
+
+    /**
+     * Menor offset de todos los consumidores de todos los nodos (null si no hay ninguno):
+     * hasta ahí se pueden borrar eventos
+     */
+    @Query("SELECT MIN(o.posicion) FROM OffsetConsumidor o")
+    Long findPosicionMinima();
+}
@@ -0,0 +1,26 @@
+package com.example.tienda.repository;
+
+import com.example.tienda.dto.PedidoLineaDTO;
+import com.example.tienda.entity.Pedido;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * CONSULTAS DE PEDIDOS ARMADAS SEGÚN LOS FILTROS (fragmento de PedidoRepository)
+ * Solo van al WHERE los filtros presentes: una condición "(:x IS NULL OR ...)" impide
+ * que la base de datos use los índices y termina recorriendo la tabla entera
+ */
+public interface PedidoLineasRepository {
+
+    /**
+     * EXPORTACIÓN: filas planas de todos los pedidos filtrados, como Stream
+     * - Se leen del cursor JDBC de a 500 filas (fetch size), sin armar la lista completa
+     * - Son DTOs, no entidades: no se acumulan en el contexto de persistencia
+     * - Ordenadas por fecha (y ID): el rango se recorre en el orden de idx_pedidos_fecha
+     *   o idx_pedidos_estado_fecha, sin ordenar aparte
+     * Solo pedidos completos (con items); los filtros en null no se aplican; hasta es
+     * exclusivo (para exportar por tramos)
+     * Debe consumirse dentro de una transacción y cerrarse (try-with-resources)
+     */
+    Stream<PedidoLineaDTO> streamLineas(LocalDateTime desde, LocalDateTime hasta, Pedido.EstadoPedido estado);
+}
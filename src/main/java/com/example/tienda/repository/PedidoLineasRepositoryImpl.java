@@ -0,0 +1,63 @@
+package com.example.tienda.repository;
+
+import com.example.tienda.dto.PedidoLineaDTO;
+import com.example.tienda.entity.ItemPedido;
+import com.example.tienda.entity.Pedido;
+import com.example.tienda.entity.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Implementación del fragmento con Criteria API (como ProductoSpecs): cada filtro presente
+ * agrega su condición, y el SQL que llega a la base de datos es un rango simple sobre fecha
+ */
+class PedidoLineasRepositoryImpl implements PedidoLineasRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<PedidoLineaDTO> streamLineas(LocalDateTime desde, LocalDateTime hasta, Pedido.EstadoPedido estado) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PedidoLineaDTO> query = cb.createQuery(PedidoLineaDTO.class);
+        Root<Pedido> p = query.from(Pedido.class);
+        // JOIN con los items y sin carrito pendiente: los pedidos asíncronos sin completar o
+        // descartados no tienen items y no se exportan como pedidos vacíos (ver PedidoRepository)
+        Join<Pedido, ItemPedido> i = p.join("items", JoinType.INNER);
+        Join<ItemPedido, Producto> pr = i.join("producto", JoinType.INNER);
+
+        List<Predicate> filtros = new ArrayList<>();
+        filtros.add(cb.isNull(p.get("carritoPendiente")));
+        if (desde != null) {
+            filtros.add(cb.greaterThanOrEqualTo(p.get("fecha"), desde));
+        }
+        if (hasta != null) {
+            filtros.add(cb.lessThan(p.get("fecha"), hasta));
+        }
+        if (estado != null) {
+            filtros.add(cb.equal(p.get("estado"), estado));
+        }
+
+        query.select(cb.construct(PedidoLineaDTO.class,
+                        p.get("id"), p.get("fecha"), p.get("estado"), p.get("total"), p.get("cliente").get("id"),
+                        i.get("id"), pr.get("id"), pr.get("nombre"), i.get("cantidad"), i.get("precioUnitario")))
+                .where(filtros.toArray(new Predicate[0]))
+                .orderBy(cb.asc(p.get("fecha")), cb.asc(p.get("id")), cb.asc(i.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
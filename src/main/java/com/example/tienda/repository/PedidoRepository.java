@@ -2,14 +2,21 @@ package com.example.tienda.repository;
 
 import com.example.tienda.entity.Pedido;
 import com.example.tienda.entity.Cliente;
+import com.example.tienda.dto.EstadoPedidoDTO;
+import com.example.tienda.dto.PedidoLineaDTO;
 import com.example.tienda.dto.TotalClienteDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,7 +25,7 @@ import java.util.Optional;
  * Con consultas específicas para gestión de pedidos
  */
 @Repository
-public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+public interface PedidoRepository extends JpaRepository<Pedido, Long>, PedidoLineasRepository {
 
     /**
      * Buscar pedidos de un cliente específico
@@ -37,6 +44,16 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     @EntityGraph(attributePaths = {"items", "items.producto"})
     Optional<Pedido> findWithItemsById(Long id);
 
+    /**
+     * Pedido bloqueado (SELECT ... FOR UPDATE) hasta el fin de la transacción
+     * Para cambiar su estado: dos peticiones sobre el mismo pedido se ejecutan de a una, y la
+     * segunda lee el estado que dejó la primera. Se bloquea antes que sus items (como en
+     * bloquearParaCambioDeEstado), así los cambios sueltos y en lote no se bloquean mutuamente
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pedido p WHERE p.id = :id")
+    Optional<Pedido> bloquearPorId(@Param("id") Long id);
+
     /**
      * Buscar pedidos por estado
      */
@@ -50,6 +67,8 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     /**
      * CONSULTA IMPORTANTE: Calcular total gastado por cliente usando DTO
      * Esta consulta demuestra cómo usar proyecciones para optimizar consultas
+     * El reporte ahora lee la tabla materializada totales_cliente; esta consulta
+     * queda como referencia para verificarla (recorre todos los pedidos)
      */
     @Query("SELECT new com.example.tienda.dto.TotalClienteDTO(c.id, c.nombre, COALESCE(SUM(p.total), 0)) " +
            "FROM Cliente c LEFT JOIN c.pedidos p " +
@@ -69,4 +88,81 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
      * Contar pedidos por estado
      */
     long countByEstado(Pedido.EstadoPedido estado);
+
+    // ===== PROYECCIONES A DTO (pedido + items + nombre de producto en una sola consulta) =====
+    // JOIN con los items, no LEFT JOIN: todo pedido completo tiene al menos uno. Los que no
+    // tienen son asíncronos, todavía sin completar (carritoPendiente) o descartados, y no se
+    // muestran como pedidos vacíos (su estado se consulta en ColaPedidos.consultar)
+
+    /**
+     * Filas planas (una por item) de un pedido
+     */
+    @Query("SELECT new com.example.tienda.dto.PedidoLineaDTO(p.id, p.fecha, p.estado, p.total, p.cliente.id, " +
+           "i.id, pr.id, pr.nombre, i.cantidad, i.precioUnitario) " +
+           "FROM Pedido p JOIN p.items i JOIN i.producto pr " +
+           "WHERE p.id = :id AND p.carritoPendiente IS NULL ORDER BY i.id")
+    List<PedidoLineaDTO> findLineasById(@Param("id") Long id);
+
+    /**
+     * Filas planas (una por item) de todos los pedidos de un cliente, más recientes primero
+     */
+    @Query("SELECT new com.example.tienda.dto.PedidoLineaDTO(p.id, p.fecha, p.estado, p.total, p.cliente.id, " +
+           "i.id, pr.id, pr.nombre, i.cantidad, i.precioUnitario) " +
+           "FROM Pedido p JOIN p.items i JOIN i.producto pr " +
+           "WHERE p.cliente.id = :clienteId AND p.carritoPendiente IS NULL ORDER BY p.fecha DESC, p.id, i.id")
+    List<PedidoLineaDTO> findLineasByClienteId(@Param("clienteId") Long clienteId);
+
+    /**
+     * Pedidos asíncronos que quedaron sin completar (al arrancar, ver ColaPedidos)
+     * Sin índice: solo se consulta una vez por arranque
+     */
+    @Query("SELECT p.id FROM Pedido p WHERE p.carritoPendiente IS NOT NULL ORDER BY p.id")
+    List<Long> findIdsConCarritoPendiente();
+
+    // ===== CAMBIO DE ESTADO EN LOTE =====
+
+    /**
+     * Pedidos de la lista que pueden pasar a otro estado (estado entre los de origen y ya
+     * completos), bloqueados (SELECT ... FOR UPDATE) hasta el UPDATE en orden de ID, para que
+     * dos lotes con pedidos en común no se bloqueen mutuamente
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.example.tienda.dto.EstadoPedidoDTO(p.id, p.cliente.id, p.estado, p.total, false) " +
+           "FROM Pedido p WHERE p.id IN :ids AND p.estado IN :origenes AND p.carritoPendiente IS NULL " +
+           "ORDER BY p.id")
+    List<EstadoPedidoDTO> bloquearParaCambioDeEstado(@Param("ids") Collection<Long> ids,
+                                                     @Param("origenes") Collection<Pedido.EstadoPedido> origenes);
+
+    /**
+     * Igual, pero por filtro: pedidos en un estado anteriores a una fecha (idx_pedidos_estado_fecha)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.example.tienda.dto.EstadoPedidoDTO(p.id, p.cliente.id, p.estado, p.total, false) " +
+           "FROM Pedido p WHERE p.estado = :estado AND p.fecha < :antesDe AND p.carritoPendiente IS NULL " +
+           "ORDER BY p.id")
+    List<EstadoPedidoDTO> bloquearParaCambioDeEstado(@Param("estado") Pedido.EstadoPedido estado,
+                                                     @Param("antesDe") LocalDateTime antesDe,
+                                                     Pageable pageable);
+
+    /**
+     * UPDATE por conjunto: pasar al nuevo estado los pedidos que siguen en un estado de origen
+     */
+    @Modifying
+    @Query("UPDATE Pedido p SET p.estado = :nuevo WHERE p.id IN :ids AND p.estado IN :origenes")
+    int cambiarEstado(@Param("ids") Collection<Long> ids,
+                      @Param("origenes") Collection<Pedido.EstadoPedido> origenes,
+                      @Param("nuevo") Pedido.EstadoPedido nuevo);
+
+    /**
+     * Estado de los pedidos de la lista (para explicar los rechazados de un lote)
+     */
+    @Query("SELECT new com.example.tienda.dto.EstadoPedidoDTO(p.id, p.cliente.id, p.estado, p.total, " +
+           "CASE WHEN p.carritoPendiente IS NULL THEN false ELSE true END) FROM Pedido p WHERE p.id IN :ids")
+    List<EstadoPedidoDTO> findEstados(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Solo el estado de un pedido (estado inicial de una suscripción SSE, sin cargar items)
+     */
+    @Query("SELECT p.estado FROM Pedido p WHERE p.id = :id")
+    Optional<Pedido.EstadoPedido> findEstadoById(@Param("id") Long id);
 }
@@ -1,33 +1,61 @@
 package com.example.tienda.repository;
 
+import com.example.tienda.dto.ProductoDTO;
 import com.example.tienda.entity.Producto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * REPOSITORIO PRODUCTO
  * Con consultas específicas para la tienda online
+ * Los filtros combinables del catálogo están en ProductoSpecs
  */
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto> {
+
+    /**
+     * Espacio de consulta declarado por los UPDATE de stock (SQL nativo)
+     * Hibernate vacía la región de caché de toda entidad cuya tabla esté entre los espacios
+     * de un UPDATE masivo; con uno que no es de ninguna entidad, la región "producto"
+     * sobrevive a cada pedido y solo se bloquean las filas tocadas (CacheSegundoNivel)
+     */
+    String ESPACIO_STOCK = "productos_stock";
 
     /**
      * Buscar producto por nombre exacto
+     * Cacheable: el resultado (IDs) queda en la caché de consultas hasta que cambie la tabla
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Producto> findByNombre(String nombre);
 
     /**
      * Buscar productos que contengan cierto texto en el nombre
+     * LIKE '%texto%' recorre toda la tabla: para búsquedas usar BusquedaCatalogo
      */
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
 
+    /**
+     * (id, nombre) de todos los productos, para cargar el índice de búsqueda
+     */
+    @Query("SELECT p.id, p.nombre FROM Producto p")
+    List<Object[]> findIdYNombre();
+
     /**
      * CONSULTA CLAVE: Buscar productos por categoría
      * Esta es una de las consultas más importantes del taller
@@ -40,6 +68,82 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      */
     Page<Producto> findByCategoriasNombre(String nombreCategoria, Pageable pageable);
 
+    /**
+     * Solo los IDs de una página de productos de una categoría
+     * (la caché de páginas guarda IDs y los productos se resuelven por su propia caché)
+     */
+    @Query(value = "SELECT p.id FROM Producto p JOIN p.categorias c WHERE c.nombre = :nombre",
+           countQuery = "SELECT COUNT(p) FROM Producto p JOIN p.categorias c WHERE c.nombre = :nombre")
+    Page<Long> findIdsByCategoriaNombre(@Param("nombre") String nombreCategoria, Pageable pageable);
+
+    // ===== PROYECCIONES A DTO (solo las columnas que devuelve la API) =====
+
+    /**
+     * Catálogo paginado como DTO
+     */
+    @Query(value = "SELECT new com.example.tienda.dto.ProductoDTO(p.id, p.nombre, p.precio, p.stock) FROM Producto p",
+           countQuery = "SELECT COUNT(p) FROM Producto p")
+    Page<ProductoDTO> findAllDTO(Pageable pageable);
+
+    /**
+     * PAGINACIÓN POR CLAVE (keyset / seek) sobre el ID
+     * WHERE id > :ultimoId ORDER BY id LIMIT n: usa el índice de la PK, así que
+     * la página 5000 cuesta lo mismo que la primera (no hay OFFSET que recorrer).
+     * Devuelve Slice para no ejecutar el COUNT(*) de Page
+     */
+    @Query("SELECT new com.example.tienda.dto.ProductoDTO(p.id, p.nombre, p.precio, p.stock) " +
+           "FROM Producto p WHERE p.id > :ultimoId")
+    Slice<ProductoDTO> findDTOByIdGreaterThan(@Param("ultimoId") Long ultimoId, Pageable pageable);
+
+    /**
+     * Varios productos por ID como DTO, en una sola consulta
+     */
+    @Query("SELECT new com.example.tienda.dto.ProductoDTO(p.id, p.nombre, p.precio, p.stock) " +
+           "FROM Producto p WHERE p.id IN :ids")
+    List<ProductoDTO> findDTOByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Productos con stock bajo como DTO
+     */
+    @Query("SELECT new com.example.tienda.dto.ProductoDTO(p.id, p.nombre, p.precio, p.stock) " +
+           "FROM Producto p WHERE p.stock < :stockMinimo")
+    List<ProductoDTO> findDTOConStockBajo(@Param("stockMinimo") Integer stockMinimo);
+
+    /**
+     * Categorías de varios productos en UNA consulta: filas [productoId, categoriaId, categoriaNombre]
+     * Se usa para completar los DTO de una página sin hacer N+1 sobre Producto.categorias
+     */
+    @Query("SELECT p.id, c.id, c.nombre FROM Producto p JOIN p.categorias c WHERE p.id IN :ids")
+    List<Object[]> findCategoriasDeProductos(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Pares [categoriaNombre, productoId] de todo el catálogo, para cargar el índice de categorías
+     */
+    @Query("SELECT c.nombre, p.id FROM Producto p JOIN p.categorias c")
+    List<Object[]> findCategoriaYProducto();
+
+    /**
+     * Pares [productoId, precio] de todo el catálogo, para cargar el índice de precios
+     */
+    @Query("SELECT p.id, p.precio FROM Producto p")
+    List<Object[]> findIdYPrecio();
+
+    /**
+     * IDs de los productos sin stock (filtro "con stock" de las facetas; usa el índice sobre stock)
+     */
+    @Query("SELECT p.id FROM Producto p WHERE p.stock < 1")
+    List<Long> findIdsSinStock();
+
+    /**
+     * FILAS PARA LAS FACETAS DEL CATÁLOGO: [productoId, precio, categoriaNombre]
+     * Una fila por producto y categoría (categoriaNombre null si no tiene ninguna).
+     * Solo mientras el índice de categorías no está cargado.
+     * stockMinimo 1 = solo con stock, 0 = todos
+     */
+    @Query("SELECT p.id, p.precio, c.nombre FROM Producto p LEFT JOIN p.categorias c " +
+           "WHERE p.stock >= :stockMinimo")
+    List<Object[]> findFilasFacetas(@Param("stockMinimo") Integer stockMinimo);
+
     /**
      * Buscar productos con stock disponible
      */
@@ -67,4 +171,67 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      * Verificar si existe un producto con ese nombre
      */
     boolean existsByNombre(String nombre);
+
+    /**
+     * RESERVA ATÓMICA DE STOCK
+     * Descuenta el stock en un solo UPDATE condicional: la comprobación y el descuento
+     * ocurren en la misma sentencia, así dos pedidos concurrentes no pueden vender
+     * la misma unidad. Devuelve 1 si se reservó, 0 si no hay stock (o no existe el producto)
+     * Quien lo llama avisa a CacheSegundoNivel.stockModificado (ver ESPACIO_STOCK)
+     */
+    @Modifying
+    @Query(value = "UPDATE productos SET stock = stock - :cantidad WHERE id = :id AND stock >= :cantidad",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACIO_STOCK))
+    int reservarStock(@Param("id") Long id, @Param("cantidad") Integer cantidad);
+
+    /**
+     * Devolver stock de forma atómica (por ejemplo, al cancelar un pedido)
+     * No lee el valor actual, así no pisa descuentos concurrentes
+     */
+    @Modifying
+    @Query(value = "UPDATE productos SET stock = stock + :cantidad WHERE id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACIO_STOCK))
+    int devolverStock(@Param("id") Long id, @Param("cantidad") Integer cantidad);
+
+    /**
+     * Devolver en UN solo UPDATE el stock de todos los items de estos pedidos (cancelaciones)
+     * Cada producto suma las cantidades de sus items (subconsulta correlacionada). Solo cuentan
+     * los items ya descontados de productos: los pendientes del inventario en memoria se
+     * descartan aparte, DESPUÉS de este UPDATE. Quien lo llama bloquea antes los items
+     * (ItemPedidoRepository.bloquearDePedidos) y avisa a CacheSegundoNivel.stockModificado
+     */
+    @Modifying
+    @Query(value = "UPDATE productos p SET stock = stock + (" +
+                   "SELECT SUM(ip.cantidad) FROM items_pedido ip WHERE ip.producto_id = p.id " +
+                   "AND ip.pedido_id IN (:pedidoIds) AND (ip.stock_pendiente IS NULL OR ip.stock_pendiente = FALSE)) " +
+                   "WHERE p.id IN (SELECT ip.producto_id FROM items_pedido ip WHERE ip.pedido_id IN (:pedidoIds) " +
+                   "AND (ip.stock_pendiente IS NULL OR ip.stock_pendiente = FALSE))",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACIO_STOCK))
+    int devolverStockDePedidos(@Param("pedidoIds") Collection<Long> pedidoIds);
+
+    /**
+     * Descontar stock sin condición
+     * Solo lo usa el volcado del inventario en memoria, que ya validó la disponibilidad
+     */
+    @Modifying
+    @Query(value = "UPDATE productos SET stock = stock - :cantidad WHERE id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACIO_STOCK))
+    int descontarStock(@Param("id") Long id, @Param("cantidad") Long cantidad);
+
+    /**
+     * Leer solo el stock de un producto, sin cargar la entidad
+     */
+    @Query("SELECT p.stock FROM Producto p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    /**
+     * Producto leído de la base de datos (no de la caché) y bloqueado (SELECT ... FOR UPDATE)
+     * Para fijar su stock a mano: el stock leído es el que se reemplaza, sin que un volcado
+     * del inventario en memoria lo cambie en el medio
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id = :id")
+    Optional<Producto> bloquearPorId(@Param("id") Long id);
 }
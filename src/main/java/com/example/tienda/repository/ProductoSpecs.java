@@ -0,0 +1,56 @@
+package com.example.tienda.repository;
+
+import com.example.tienda.entity.Categoria;
+import com.example.tienda.entity.Producto;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * FILTROS DEL CATÁLOGO (Criteria API / Specifications)
+ * Cada filtro es una condición independiente; se combinan con AND en una sola consulta
+ * (ver ProductoService.catalogo) en lugar de pedir cada dimensión por separado.
+ */
+public final class ProductoSpecs {
+
+    private ProductoSpecs() {}
+
+    /**
+     * Productos que tienen AL MENOS UNA de las categorías
+     * Subconsulta (id IN ...) en lugar de JOIN: un producto con dos de las categorías
+     * no aparece dos veces, y la paginación y el COUNT no necesitan DISTINCT
+     */
+    public static Specification<Producto> enCategorias(Collection<String> nombres) {
+        return (root, query, cb) -> {
+            Subquery<Long> conCategoria = query.subquery(Long.class);
+            Root<Producto> producto = conCategoria.from(Producto.class);
+            Join<Producto, Categoria> categoria = producto.join("categorias");
+            conCategoria.select(producto.get("id")).where(categoria.get("nombre").in(nombres));
+            return root.get("id").in(conCategoria);
+        };
+    }
+
+    /**
+     * precio >= minimo (incluido)
+     */
+    public static Specification<Producto> precioDesde(BigDecimal minimo) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("precio"), minimo);
+    }
+
+    /**
+     * precio < maximo (excluido, igual que los rangos de las facetas)
+     */
+    public static Specification<Producto> precioHasta(BigDecimal maximo) {
+        return (root, query, cb) -> cb.lessThan(root.get("precio"), maximo);
+    }
+
+    /**
+     * stock > 0
+     */
+    public static Specification<Producto> conStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("stock"), 0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.tienda.repository;
+
+import com.example.tienda.dto.TotalClienteDTO;
+import com.example.tienda.entity.TotalCliente;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * REPOSITORIO TOTAL CLIENTE
+ * Lecturas y actualizaciones incrementales de la tabla materializada totales_cliente
+ */
+@Repository
+public interface TotalClienteRepository extends JpaRepository<TotalCliente, Long> {
+
+    /**
+     * Sumar (o restar, con importe negativo) al total de un cliente
+     * Incremento atómico en la base de datos: dos pedidos concurrentes no se pisan
+     * Devuelve las filas afectadas (0 si el cliente aún no tiene fila)
+     */
+    @Modifying
+    @Query("UPDATE TotalCliente t SET t.total = t.total + :importe WHERE t.clienteId = :clienteId")
+    int sumar(@Param("clienteId") Long clienteId, @Param("importe") BigDecimal importe);
+
+    /**
+     * Ranking de clientes por total gastado, paginado (usa el índice sobre total)
+     */
+    @Query(value = "SELECT new com.example.tienda.dto.TotalClienteDTO(c.id, c.nombre, t.total) " +
+                   "FROM TotalCliente t JOIN Cliente c ON c.id = t.clienteId " +
+                   "ORDER BY t.total DESC, t.clienteId",
+           countQuery = "SELECT COUNT(t) FROM TotalCliente t")
+    Page<TotalClienteDTO> findRanking(Pageable pageable);
+
+    /**
+     * Bloquear todas las filas (paso 1 de la reconstrucción)
+     * Espera a las transacciones que ya sumaron a algún total y hace esperar a las que
+     * sumen después hasta que la reconstrucción se confirme
+     */
+    @Query(value = "SELECT cliente_id FROM totales_cliente FOR UPDATE", nativeQuery = true)
+    List<Long> bloquearTodo();
+
+    /**
+     * Recalcular todos los totales desde pedidos en una sola sentencia (paso 2 de la reconstrucción)
+     * Incluye clientes sin pedidos (total 0), igual que el reporte original
+     * MERGE: las filas existentes se actualizan en el lugar, sin soltar el bloqueo del paso 1
+     */
+    @Modifying
+    @Query(value = "MERGE INTO totales_cliente (cliente_id, total) KEY (cliente_id) " +
+                   "SELECT c.id, COALESCE(SUM(CASE WHEN p.estado <> 'CANCELADO' THEN p.total END), 0) " +
+                   "FROM clientes c LEFT JOIN pedidos p ON p.cliente_id = c.id " +
+                   "GROUP BY c.id",
+           nativeQuery = true)
+    int recalcularTodo();
+
+    /**
+     * Quitar las filas de clientes que ya no existen (paso 3 de la reconstrucción)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM totales_cliente WHERE cliente_id NOT IN (SELECT id FROM clientes)", nativeQuery = true)
+    int borrarHuerfanos();
+}
@@ -0,0 +1,62 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.EventoPedidoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * CONSUMIDOR QUE ESCRIBE LOS EVENTOS DE PEDIDOS EN UN ARCHIVO (NDJSON, un evento por línea)
+ * Para que un proceso local (envíos, analítica) siga los cambios de pedidos leyendo el archivo
+ * en lugar de consultar la tabla pedidos. Activo solo con tienda.eventos.archivo configurado.
+ * Al menos una vez: tras una caída puede repetir líneas; quien lee descarta las posiciones ya vistas.
+ */
+@Component
+@ConditionalOnExpression("!'${tienda.eventos.archivo:}'.isBlank()")
+public class ArchivoEventosPedido implements ConsumidorEventosPedido {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${tienda.eventos.archivo}")
+    private Path archivo;
+
+    @Override
+    public String getNombre() {
+        return "archivo";
+    }
+
+    /**
+     * Todo el lote en una sola escritura al final del archivo
+     */
+    @Override
+    public void procesar(List<EventoPedidoDTO> eventos) {
+        ObjectWriter json = objectMapper.writerFor(EventoPedidoDTO.class);
+        StringBuilder lineas = new StringBuilder();
+        try {
+            for (EventoPedidoDTO evento : eventos) {
+                lineas.append(json.writeValueAsString(evento)).append('\n');
+            }
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            Files.writeString(archivo, lineas, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.EventoPedidoDTO;
+import com.example.tienda.entity.Pedido;
+import com.example.tienda.repository.ClienteRepository;
+import com.example.tienda.repository.PedidoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * AVISOS DE CAMBIO DE ESTADO DE PEDIDOS (Server-Sent Events)
+ * En lugar de consultar GET /api/pedidos/{id} cada pocos segundos, la app se suscribe a un
+ * pedido o a todos los pedidos de un cliente y recibe cada cambio de estado al publicarse.
+ *
+ * - Es un consumidor más de BusEventosPedido: solo avisa cambios ya confirmados, en orden,
+ *   también los de pedidos que cambiaron en otro nodo
+ * - Sin hilo por conexión: SseEmitter usa el modo asíncrono del servlet, y una suscripción
+ *   inactiva no ocupa hilos, solo su conexión y su lugar en los mapas
+ * - Memoria acotada: como máximo tienda.pedidos.sse.maximo-suscripciones (luego 503), y cada
+ *   una con a lo sumo tienda.pedidos.sse.pendientes-por-suscripcion avisos sin enviar
+ * - El publicador del outbox solo deja los avisos en el buffer de cada suscripción; los
+ *   escribe un grupo pequeño de hilos (tienda.pedidos.sse.hilos-envio), una suscripción a la
+ *   vez por hilo
+ * - Cliente lento: si su buffer se llena, o su envío lleva más de tienda.pedidos.sse.espera-envio-ms
+ *   trabado, se cierra solo esa suscripción; el cliente reconecta y recibe el estado actual
+ * - Envío trabado: no se puede cortar desde fuera (send y completeWithError comparten el
+ *   monitor del emitter, y Tomcat ignora la interrupción mientras espera el socket). Lo corta
+ *   el tiempo de escritura de Tomcat (server.tomcat.connection-timeout); mientras tanto el
+ *   grupo suma un hilo por cada envío trabado, hasta el doble de hilos-envio, para que los
+ *   demás clientes sigan recibiendo
+ * - Los latidos detectan las conexiones caídas y las liberan
+ *
+ * Los avisos no se guardan para quien no está conectado: al suscribirse a un pedido se envía
+ * primero su estado actual (evento "actual"), y después cada cambio (evento "estado", con la
+ * posición del outbox como id).
+ */
+@Component
+public class AvisosEstadoPedido implements ConsumidorEventosPedido {
+
+    private static final Logger log = LoggerFactory.getLogger(AvisosEstadoPedido.class);
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tienda.pedidos.sse.maximo-suscripciones:20000}")
+    private int maximoSuscripciones;
+
+    /**
+     * Duración de una suscripción; al vencer, el navegador (EventSource) reconecta solo
+     */
+    @Value("${tienda.pedidos.sse.duracion-minutos:30}")
+    private long duracionMinutos;
+
+    @Value("${tienda.pedidos.sse.hilos-envio:4}")
+    private int hilosEnvio;
+
+    /**
+     * Avisos sin enviar que se guardan por suscripción; uno más y se la cierra por lenta
+     * Debe superar tienda.eventos.tamano-lote: el bus entrega un lote entero de una vez
+     */
+    @Value("${tienda.pedidos.sse.pendientes-por-suscripcion:1000}")
+    private int pendientesPorSuscripcion;
+
+    /**
+     * Tiempo que puede tardar una escritura en una conexión antes de cerrarla por lenta
+     */
+    @Value("${tienda.pedidos.sse.espera-envio-ms:10000}")
+    private long esperaEnvioMs;
+
+    private Semaphore plazas;
+    private ThreadPoolExecutor envio;
+
+    /**
+     * Envíos trabados que tienen un hilo de reemplazo en el grupo
+     */
+    private int reemplazados;
+
+    /**
+     * El estado inicial de una suscripción se lee y se encola con el bloqueo compartido, y los
+     * avisos se reparten con el exclusivo: un aviso llega antes de registrar la suscripción
+     * (y el estado leído ya lo incluye) o después de encolar el estado inicial
+     */
+    private final ReadWriteLock reparto = new ReentrantReadWriteLock();
+
+    private final Map<Long, Set<Suscripcion>> porPedido = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Suscripcion>> porCliente = new ConcurrentHashMap<>();
+
+    /**
+     * Suscripciones con una escritura en curso, aunque ya estén cerradas: el latido revisa
+     * si alguna se trabó
+     */
+    private final Set<Suscripcion> enviando = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void iniciar() {
+        plazas = new Semaphore(maximoSuscripciones);
+        // Cola sin límite, pero cada suscripción tiene a lo sumo una tarea encolada
+        AtomicInteger hilos = new AtomicInteger();
+        envio = new ThreadPoolExecutor(hilosEnvio, hilosEnvio, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                tarea -> new Thread(tarea, "avisos-pedidos-" + hilos.incrementAndGet()));
+        Gauge.builder("tienda.pedidos.sse.suscripciones", this, AvisosEstadoPedido::getSuscripciones)
+                .description("Suscripciones SSE abiertas a cambios de estado de pedidos")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        envio.shutdownNow();
+        todas().forEach(Suscripcion::completar);
+    }
+
+    @Override
+    public String getNombre() {
+        return "avisos-sse";
+    }
+
+    public int getSuscripciones() {
+        return maximoSuscripciones - plazas.availablePermits();
+    }
+
+    /**
+     * SUSCRIBIRSE A UN PEDIDO: primero su estado actual, después cada cambio
+     * El estado se lee aquí, en el hilo de la petición. Vacío si el pedido no existe;
+     * SinPlaza si se alcanzó el máximo de suscripciones
+     */
+    public Optional<SseEmitter> suscribirPedido(Long pedidoId) {
+        Suscripcion suscripcion = reservar(porPedido, pedidoId);
+        reparto.readLock().lock();
+        try {
+            suscripcion.registrar();
+            Optional<Pedido.EstadoPedido> estado = pedidoRepository.findEstadoById(pedidoId);
+            if (estado.isEmpty()) {
+                suscripcion.liberar();
+                return Optional.empty();
+            }
+            suscripcion.encolar(SseEmitter.event().name("actual")
+                    .data(Map.of("pedidoId", pedidoId, "estado", estado.get()), MediaType.APPLICATION_JSON));
+        } catch (RuntimeException e) {
+            suscripcion.liberar();
+            throw e;
+        } finally {
+            reparto.readLock().unlock();
+        }
+        return Optional.of(suscripcion.emitter);
+    }
+
+    /**
+     * SUSCRIBIRSE A TODOS LOS PEDIDOS DE UN CLIENTE (incluidos los que cree después)
+     * Vacío si el cliente no existe
+     */
+    public Optional<SseEmitter> suscribirCliente(Long clienteId) {
+        if (!clienteRepository.existsById(clienteId)) {
+            return Optional.empty();
+        }
+        Suscripcion suscripcion = reservar(porCliente, clienteId);
+        suscripcion.registrar();
+        suscripcion.encolar(SseEmitter.event().comment("suscrito"));
+        return Optional.of(suscripcion.emitter);
+    }
+
+    /**
+     * Lo llama el bus en su hilo: solo deja cada aviso en el buffer de sus suscripciones
+     */
+    @Override
+    public void procesar(List<EventoPedidoDTO> eventos) {
+        if (porPedido.isEmpty() && porCliente.isEmpty()) {
+            return;
+        }
+        reparto.writeLock().lock();
+        try {
+            for (EventoPedidoDTO evento : eventos) {
+                for (Suscripcion suscripcion : porPedido.getOrDefault(evento.getPedidoId(), Set.of())) {
+                    suscripcion.encolar(aviso(evento));
+                }
+                for (Suscripcion suscripcion : porCliente.getOrDefault(evento.getClienteId(), Set.of())) {
+                    suscripcion.encolar(aviso(evento));
+                }
+            }
+        } finally {
+            reparto.writeLock().unlock();
+        }
+    }
+
+    /**
+     * LATIDO PERIÓDICO: un comentario a cada suscripción; las que fallan se cierran
+     * También encuentra las que tienen un envío trabado desde hace rato (ver encolar),
+     * incluidas las ya cerradas por otro motivo cuyo hilo sigue escribiendo
+     */
+    @Scheduled(fixedDelayString = "${tienda.pedidos.sse.latido-ms:30000}")
+    public void latido() {
+        todas().forEach(suscripcion -> suscripcion.encolar(SseEmitter.event().comment("latido")));
+        enviando.forEach(suscripcion -> {
+            if (suscripcion.trabada()) {
+                suscripcion.cerrar();
+            }
+        });
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    /**
+     * Sumar un hilo al grupo en lugar del que quedó trabado (hasta el doble de hilos-envio);
+     * false si ya no quedan reemplazos
+     */
+    private synchronized boolean reemplazarHiloTrabado() {
+        if (reemplazados >= hilosEnvio || envio.isShutdown()) {
+            return false;
+        }
+        reemplazados++;
+        envio.setMaximumPoolSize(hilosEnvio + reemplazados);
+        envio.setCorePoolSize(hilosEnvio + reemplazados);
+        return true;
+    }
+
+    /**
+     * El envío trabado terminó (el cliente leyó o Tomcat cortó la conexión): sobra un hilo
+     */
+    private synchronized void devolverHiloReemplazado() {
+        reemplazados--;
+        if (envio.isShutdown()) {
+            return;
+        }
+        envio.setCorePoolSize(hilosEnvio + reemplazados);
+        envio.setMaximumPoolSize(hilosEnvio + reemplazados);
+    }
+
+    /**
+     * Reservar una plaza; la suscripción aún no recibe avisos (ver Suscripcion.registrar)
+     */
+    private Suscripcion reservar(Map<Long, Set<Suscripcion>> suscripciones, Long id) {
+        if (!plazas.tryAcquire()) {
+            throw new SinPlaza("Hay " + maximoSuscripciones + " suscripciones abiertas, reintentar más tarde");
+        }
+        return new Suscripcion(suscripciones, id);
+    }
+
+    /**
+     * Un builder por envío: SseEventBuilder.build() lo modifica y no se puede reutilizar
+     */
+    private SseEmitter.SseEventBuilder aviso(EventoPedidoDTO evento) {
+        return SseEmitter.event()
+                .id(String.valueOf(evento.getPosicion()))
+                .name("estado")
+                .data(evento, MediaType.APPLICATION_JSON);
+    }
+
+    private List<Suscripcion> todas() {
+        List<Suscripcion> todas = new ArrayList<>();
+        porPedido.values().forEach(todas::addAll);
+        porCliente.values().forEach(todas::addAll);
+        return todas;
+    }
+
+    /**
+     * UNA CONEXIÓN SSE ABIERTA, con su buffer de avisos sin enviar
+     * Un solo hilo de envío la atiende a la vez (programada), y la vacía entera antes de soltarla.
+     * Se libera una sola vez (quitar del mapa y devolver la plaza), la cierre el cliente
+     * (onCompletion, onError), el vencimiento (onTimeout) o este componente
+     */
+    private class Suscripcion {
+
+        private final SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(duracionMinutos));
+        // Enlazada: la memoria crece con los avisos pendientes, no con la capacidad
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pendientes =
+                new LinkedBlockingQueue<>(pendientesPorSuscripcion);
+        private final AtomicBoolean programada = new AtomicBoolean();
+        private final Map<Long, Set<Suscripcion>> suscripciones;
+        private final Long id;
+        private volatile long enviandoDesde;
+        private volatile boolean liberada;
+        private volatile boolean cerrar;
+        // El envío en curso tiene un hilo de reemplazo en el grupo (ver reemplazarHiloTrabado)
+        private final AtomicBoolean reemplazada = new AtomicBoolean();
+
+        Suscripcion(Map<Long, Set<Suscripcion>> suscripciones, Long id) {
+            this.suscripciones = suscripciones;
+            this.id = id;
+            emitter.onCompletion(this::liberar);
+            emitter.onTimeout(this::liberar);
+            emitter.onError(error -> liberar());
+        }
+
+        void registrar() {
+            suscripciones.computeIfAbsent(id, clave -> ConcurrentHashMap.newKeySet()).add(this);
+        }
+
+        /**
+         * Dejar un aviso para el hilo de envío. No escribe ni espera: si el cliente no da
+         * abasto (buffer lleno o envío trabado) se cierra esta suscripción y nada más
+         */
+        void encolar(SseEmitter.SseEventBuilder evento) {
+            if (liberada) {
+                return;
+            }
+            if (trabada()) {
+                log.debug("Suscripción SSE {} con un envío trabado; se cierra", id);
+                cerrar();
+            } else if (!pendientes.offer(evento)) {
+                log.debug("Suscripción SSE {} con {} avisos sin enviar; se cierra", id, pendientesPorSuscripcion);
+                cerrar();
+            } else {
+                programar();
+            }
+        }
+
+        /**
+         * Lleva más de espera-envio-ms en una escritura. La primera vez pide un hilo de
+         * reemplazo, que se devuelve cuando la escritura termina
+         */
+        boolean trabada() {
+            long desde = enviandoDesde;
+            if (desde == 0 || System.nanoTime() - desde <= TimeUnit.MILLISECONDS.toNanos(esperaEnvioMs)) {
+                return false;
+            }
+            if (reemplazada.compareAndSet(false, true)) {
+                if (!reemplazarHiloTrabado()) {
+                    reemplazada.set(false);
+                } else if (enviandoDesde != desde && reemplazada.getAndSet(false)) {
+                    // La escritura terminó mientras tanto y no vio el reemplazo
+                    devolverHiloReemplazado();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Dejar de avisarle ya; la conexión la cierra el hilo de envío al terminar lo que
+         * esté escribiendo (cerrarla aquí esperaría a esa escritura, ver la clase)
+         */
+        void cerrar() {
+            cerrar = true;
+            liberar();
+            programar();
+        }
+
+        private void programar() {
+            if (programada.compareAndSet(false, true)) {
+                try {
+                    envio.execute(this::vaciar);
+                } catch (RejectedExecutionException e) {
+                    // Apagando la aplicación: detener() completa las conexiones
+                    programada.set(false);
+                }
+            }
+        }
+
+        private void vaciar() {
+            SseEmitter.SseEventBuilder evento;
+            while (!cerrar && (evento = pendientes.poll()) != null) {
+                enviar(evento);
+            }
+            if (cerrar) {
+                pendientes.clear();
+                completar();
+                return;
+            }
+            programada.set(false);
+            // Un aviso (o un cierre) que llegó entre el último poll y soltar la suscripción
+            if (cerrar || !pendientes.isEmpty()) {
+                programar();
+            }
+        }
+
+        /**
+         * Una conexión que falla al escribir se cierra
+         */
+        private void enviar(SseEmitter.SseEventBuilder evento) {
+            enviando.add(this);
+            enviandoDesde = System.nanoTime();
+            try {
+                emitter.send(evento);
+            } catch (IOException | IllegalStateException e) {
+                cerrar = true;
+                emitter.completeWithError(e);
+                liberar();
+            } finally {
+                enviandoDesde = 0;
+                enviando.remove(this);
+                if (reemplazada.getAndSet(false)) {
+                    devolverHiloReemplazado();
+                }
+            }
+        }
+
+        void completar() {
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Ya completada
+            }
+            liberar();
+        }
+
+        synchronized void liberar() {
+            if (liberada) {
+                return;
+            }
+            liberada = true;
+            suscripciones.computeIfPresent(id, (clave, abiertas) -> {
+                abiertas.remove(this);
+                return abiertas.isEmpty() ? null : abiertas;
+            });
+            plazas.release();
+        }
+    }
+
+    /**
+     * No queda plaza para otra suscripción
+     */
+    public static class SinPlaza extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public SinPlaza(String mensaje) {
+            super(mensaje);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.EventoPedidoDTO;
+import com.example.tienda.entity.OffsetConsumidor;
+import com.example.tienda.repository.EventoPedidoRepository;
+import com.example.tienda.repository.OffsetConsumidorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * BUS DE EVENTOS DE PEDIDOS (en el proceso)
+ * Entrega a cada ConsumidorEventosPedido los eventos de eventos_pedido, los publique este
+ * nodo o cualquier otro:
+ *
+ * - Offsets: la última posición procesada de cada consumidor se guarda en offsets_consumidor
+ *   por (tienda.eventos.nodo, consumidor) después de procesar (al menos una vez). Cada nodo
+ *   necesita su propio tienda.eventos.nodo: dos nodos con el mismo compartirían los offsets y
+ *   cada uno se saltaría los eventos que procesó el otro. Un consumidor nuevo empieza desde
+ *   el principio.
+ * - Camino rápido: si el lote que publicó este nodo empieza justo después del offset, se
+ *   entrega tal cual
+ * - Puesta al día: si no (arranque, eventos de otro nodo, una excepción anterior), el
+ *   consumidor lee desde su offset en eventos_pedido hasta alcanzar el final. Las posiciones
+ *   confirmadas en la tabla no tienen huecos (ver PublicadorEventosPedido), así que leer
+ *   "posicion > offset" no se salta nada. Un consumidor que falla queda atrasado y se
+ *   reintenta en la siguiente vuelta, sin frenar a los demás.
+ *
+ * Los métodos públicos los llama solo el hilo de PublicadorEventosPedido (synchronized por si acaso).
+ */
+@Component
+public class BusEventosPedido {
+
+    private static final Logger log = LoggerFactory.getLogger(BusEventosPedido.class);
+
+    @Autowired(required = false)
+    private List<ConsumidorEventosPedido> consumidores = List.of();
+
+    @Autowired
+    private EventoPedidoRepository eventoPedidoRepository;
+
+    @Autowired
+    private OffsetConsumidorRepository offsetConsumidorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Eventos leídos por consulta al poner al día a un consumidor
+     */
+    @Value("${tienda.eventos.tamano-lote:500}")
+    private int tamanoLote;
+
+    /**
+     * Identificador estable de este nodo en offsets_consumidor
+     */
+    @Value("${tienda.eventos.nodo:principal}")
+    private String nodo;
+
+    /**
+     * Offset confirmado de cada consumidor de este nodo (copia del de la BD); null hasta iniciar()
+     */
+    private Map<String, Long> offsets;
+
+    /**
+     * Cargar los offsets (crear los de consumidores nuevos) y poner a todos al día
+     */
+    public synchronized void iniciar() {
+        offsets = new LinkedHashMap<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (ConsumidorEventosPedido consumidor : consumidores) {
+                OffsetConsumidor offset = offsetConsumidorRepository
+                        .findById(new OffsetConsumidor.Clave(nodo, consumidor.getNombre()))
+                        .orElseGet(() -> offsetConsumidorRepository.save(
+                                new OffsetConsumidor(nodo, consumidor.getNombre(), 0L)));
+                offsets.put(consumidor.getNombre(), offset.getPosicion());
+            }
+        });
+        log.info("Bus de eventos de pedidos (nodo {}): consumidores {}", nodo, offsets);
+        consumidores.forEach(this::ponerAlDia);
+    }
+
+    /**
+     * Entregar un lote recién publicado por este nodo (posiciones consecutivas) a cada consumidor
+     */
+    public synchronized void publicar(List<EventoPedidoDTO> lote) {
+        if (offsets == null) {
+            return; // todavía no arrancó: iniciar() los leerá de la BD
+        }
+        long primera = lote.get(0).getPosicion();
+        for (ConsumidorEventosPedido consumidor : consumidores) {
+            long offset = offsets.get(consumidor.getNombre());
+            if (offset == primera - 1) {
+                entregar(consumidor, lote);
+            } else if (offset < primera - 1) {
+                ponerAlDia(consumidor);
+            } else {
+                List<EventoPedidoDTO> resto = lote.stream()
+                        .filter(evento -> evento.getPosicion() > offset)
+                        .collect(Collectors.toList());
+                if (!resto.isEmpty()) {
+                    entregar(consumidor, resto);
+                }
+            }
+        }
+    }
+
+    /**
+     * Poner al día a los consumidores que no llegaron a la última posición de la tabla:
+     * eventos que publicó otro nodo o consumidores que fallaron antes
+     */
+    public synchronized void ponerAlDiaHasta(long ultimaPosicion) {
+        if (offsets == null) {
+            return;
+        }
+        for (ConsumidorEventosPedido consumidor : consumidores) {
+            if (offsets.get(consumidor.getNombre()) < ultimaPosicion) {
+                ponerAlDia(consumidor);
+            }
+        }
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    /**
+     * Offset confirmado de cada consumidor de este nodo
+     */
+    public synchronized Map<String, Long> getOffsets() {
+        return offsets == null ? Map.of() : new LinkedHashMap<>(offsets);
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    /**
+     * Leer desde el offset del consumidor hasta el final, de a tamanoLote
+     */
+    private void ponerAlDia(ConsumidorEventosPedido consumidor) {
+        while (true) {
+            long offset = offsets.get(consumidor.getNombre());
+            List<EventoPedidoDTO> eventos = eventoPedidoRepository.findPublicadosDesde(offset, PageRequest.of(0, tamanoLote));
+            if (eventos.isEmpty() || !entregar(consumidor, eventos) || eventos.size() < tamanoLote) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Procesar y confirmar el offset; false si el consumidor falló (queda atrasado)
+     */
+    private boolean entregar(ConsumidorEventosPedido consumidor, List<EventoPedidoDTO> eventos) {
+        try {
+            consumidor.procesar(eventos);
+        } catch (RuntimeException e) {
+            log.warn("El consumidor {} falló en las posiciones {}..{}; se reintentará", consumidor.getNombre(),
+                    eventos.get(0).getPosicion(), eventos.get(eventos.size() - 1).getPosicion(), e);
+            return false;
+        }
+        long ultima = eventos.get(eventos.size() - 1).getPosicion();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                offsetConsumidorRepository.confirmar(nodo, consumidor.getNombre(), ultima));
+        offsets.put(consumidor.getNombre(), ultima);
+        return true;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.tienda.service;
+
+import com.example.tienda.repository.CategoriaRepository;
+import com.example.tienda.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BÚSQUEDA EN EL CATÁLOGO POR NOMBRE
+ * Un IndiceTrigramas para nombres de productos y otro para nombres de categorías.
+ * - Se llenan al arrancar con una consulta de (id, nombre) por tabla
+ * - ProductoService avisa cada alta (y cambio de nombre) y se indexa al confirmar la transacción
+ * Mientras no terminó la carga inicial, listo() es false y ProductoService busca en la BD.
+ */
+@Component
+public class BusquedaCatalogo {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaCatalogo.class);
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private final IndiceTrigramas productos = new IndiceTrigramas();
+    private final IndiceTrigramas categorias = new IndiceTrigramas();
+    private volatile boolean listo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        productos.reconstruir(() -> nombres(productoRepository.findIdYNombre()));
+        categorias.reconstruir(() -> nombres(categoriaRepository.findIdYNombre()));
+        listo = true;
+        log.info("Índice de búsqueda cargado: {} productos, {} categorías", productos.tamano(), categorias.tamano());
+    }
+
+    public boolean listo() {
+        return listo;
+    }
+
+    /**
+     * IDs de productos por relevancia
+     */
+    public List<Long> buscarProductos(String texto, int limite) {
+        return productos.buscar(texto, limite);
+    }
+
+    /**
+     * IDs de categorías por relevancia
+     */
+    public List<Long> buscarCategorias(String texto, int limite) {
+        return categorias.buscar(texto, limite);
+    }
+
+    /**
+     * IDs de productos cuyo nombre completa el prefijo
+     */
+    public List<Long> sugerirProductos(String prefijo, int limite) {
+        return productos.sugerir(prefijo, limite);
+    }
+
+    /**
+     * IDs de categorías cuyo nombre completa el prefijo
+     */
+    public List<Long> sugerirCategorias(String prefijo, int limite) {
+        return categorias.sugerir(prefijo, limite);
+    }
+
+    public String nombreProducto(Long id) {
+        return productos.nombre(id);
+    }
+
+    public String nombreCategoria(Long id) {
+        return categorias.nombre(id);
+    }
+
+    /**
+     * Indexar un producto nuevo o renombrado (al confirmar la transacción actual)
+     */
+    public void productoGuardado(Long id, String nombre) {
+        TrasConfirmar.ejecutar(() -> productos.indexar(id, nombre));
+    }
+
+    /**
+     * Indexar una categoría nueva (al confirmar la transacción actual)
+     */
+    public void categoriaGuardada(Long id, String nombre) {
+        TrasConfirmar.ejecutar(() -> categorias.indexar(id, nombre));
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    private Map<Long, String> nombres(List<Object[]> filas) {
+        Map<Long, String> nombres = new HashMap<>(filas.size() * 2);
+        for (Object[] fila : filas) {
+            nombres.put((Long) fila[0], (String) fila[1]);
+        }
+        return nombres;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.tienda.service;
+
+import com.example.tienda.entity.Categoria;
+import com.example.tienda.entity.Producto;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Cache;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * CACHÉ DE SEGUNDO NIVEL: STOCK E INVALIDACIÓN ENTRE NODOS
+ * Hibernate mantiene la caché local al día con lo que cambia por entidades. Este componente
+ * cubre lo que Hibernate no ve y lo que pasa en otros nodos:
+ *
+ * - Stock: los UPDATE de stock son SQL nativo (ver ProductoRepository.ESPACIO_STOCK), así
+ *   que stockModificado() bloquea en la caché la entrada de cada producto tocado hasta que
+ *   termina la transacción (el mismo bloqueo que usa Hibernate en sus UPDATE: mientras dura
+ *   nadie lee ni guarda esa entrada, y al liberarlo solo se aceptan lecturas posteriores)
+ *
+ * - Otros nodos: al confirmar una transacción que cambió productos, categorías o categorías
+ *   de productos, se publica un InvalidacionCache como evento de Spring (el bus local). Quien
+ *   conecte ese bus con un broker reenvía los mensajes de este nodo (getNodo()) y publica aquí
+ *   los que lleguen; recibir() saca esas entradas y los resultados de consultas de la caché.
+ */
+@Component
+public class CacheSegundoNivel {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSegundoNivel.class);
+
+    private static final String CATEGORIAS_DE_PRODUCTO = Producto.class.getName() + ".categorias";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    /**
+     * Identifica los mensajes de este nodo (se ignoran al volver por el bus)
+     */
+    private final String nodo = UUID.randomUUID().toString();
+
+    private SessionFactoryImplementor sessionFactory;
+    private EntityPersister productoPersister;
+
+    @PostConstruct
+    public void registrarEventos() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        productoPersister = sessionFactory.getMappingMetamodel().getEntityDescriptor(Producto.class);
+
+        RegistroCambios cambios = new RegistroCambios();
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_INSERT, cambios);
+        registro.appendListeners(EventType.POST_UPDATE, cambios);
+        registro.appendListeners(EventType.POST_DELETE, cambios);
+        registro.appendListeners(EventType.POST_COLLECTION_RECREATE, cambios);
+        registro.appendListeners(EventType.POST_COLLECTION_UPDATE, cambios);
+        registro.appendListeners(EventType.POST_COLLECTION_REMOVE, cambios);
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    /**
+     * El stock de estos productos cambia con SQL nativo en la transacción actual
+     * Llamar ANTES del UPDATE: sus entradas quedan bloqueadas hasta que la transacción termine
+     */
+    public void stockModificado(Collection<Long> productoIds) {
+        EntityDataAccess acceso = productoPersister.getCacheAccessStrategy();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productoIds.forEach(id -> sessionFactory.getCache().evictEntityData(Producto.class, id));
+            return;
+        }
+        Transaccion transaccion = transaccionActual();
+        for (Long id : productoIds) {
+            Object clave = acceso.generateCacheKey(id, productoPersister, sessionFactory, null);
+            transaccion.bloqueos.computeIfAbsent(clave, c -> acceso.lockItem(transaccion.sesion, c, null));
+        }
+        transaccion.mensaje.getProductos().addAll(productoIds);
+    }
+
+    /**
+     * Cambios confirmados en otro nodo: sacar de la caché local lo que cambió
+     * Los resultados de consultas se descartan todos (solo hay consultas por nombre)
+     */
+    @EventListener
+    public void recibir(InvalidacionCache mensaje) {
+        if (nodo.equals(mensaje.getNodoOrigen())) {
+            return; // cambios de este nodo: Hibernate ya los aplicó a la caché local
+        }
+        Cache cache = sessionFactory.getCache();
+        mensaje.getProductos().forEach(id -> cache.evictEntityData(Producto.class, id));
+        mensaje.getCategorias().forEach(id -> cache.evictEntityData(Categoria.class, id));
+        mensaje.getCategoriasDeProductos().forEach(id -> cache.evictCollectionData(CATEGORIAS_DE_PRODUCTO, id));
+        cache.evictQueryRegions();
+        log.debug("Caché invalidada por el nodo {}: productos {}, categorías {}, categorías de productos {}",
+                mensaje.getNodoOrigen(), mensaje.getProductos(), mensaje.getCategorias(), mensaje.getCategoriasDeProductos());
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    /**
+     * Estado de la transacción actual: se crea con el primer cambio y al terminar se liberan
+     * los bloqueos y, si se confirmó, se publica el mensaje
+     */
+    private Transaccion transaccionActual() {
+        Transaccion transaccion = (Transaccion) TransactionSynchronizationManager.getResource(this);
+        if (transaccion != null) {
+            return transaccion;
+        }
+        Transaccion nueva = new Transaccion(entityManager.unwrap(SharedSessionContractImplementor.class),
+                new InvalidacionCache(nodo));
+        TransactionSynchronizationManager.bindResource(this, nueva);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CacheSegundoNivel.this);
+                EntityDataAccess acceso = productoPersister.getCacheAccessStrategy();
+                nueva.bloqueos.forEach((clave, bloqueo) -> acceso.unlockItem(nueva.sesion, clave, bloqueo));
+                if (status == STATUS_COMMITTED && !nueva.mensaje.vacio()) {
+                    eventos.publishEvent(nueva.mensaje);
+                }
+            }
+        });
+        return nueva;
+    }
+
+    /**
+     * Cambios de una transacción: bloqueos de stock y mensaje para los demás nodos
+     */
+    private static class Transaccion {
+        private final SharedSessionContractImplementor sesion;
+        private final InvalidacionCache mensaje;
+        private final Map<Object, SoftLock> bloqueos = new HashMap<>();
+
+        private Transaccion(SharedSessionContractImplementor sesion, InvalidacionCache mensaje) {
+            this.sesion = sesion;
+            this.mensaje = mensaje;
+        }
+    }
+
+    /**
+     * Anota en el mensaje de la transacción cada cambio de Hibernate sobre entidades cacheadas
+     */
+    private class RegistroCambios implements PostInsertEventListener, PostUpdateEventListener,
+            PostDeleteEventListener, PostCollectionRecreateEventListener,
+            PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            entidadCambiada(event.getEntity(), event.getId());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            entidadCambiada(event.getEntity(), event.getId());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            entidadCambiada(event.getEntity(), event.getId());
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            coleccionCambiada(event);
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            coleccionCambiada(event);
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            coleccionCambiada(event);
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        private void entidadCambiada(Object entidad, Object id) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return;
+            }
+            if (entidad instanceof Producto) {
+                transaccionActual().mensaje.getProductos().add((Long) id);
+            } else if (entidad instanceof Categoria) {
+                transaccionActual().mensaje.getCategorias().add((Long) id);
+            }
+        }
+
+        private void coleccionCambiada(AbstractCollectionEvent event) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()
+                    && CATEGORIAS_DE_PRODUCTO.equals(event.getCollection().getRole())
+                    && event.getAffectedOwnerIdOrNull() != null) {
+                transaccionActual().mensaje.getCategoriasDeProductos().add((Long) event.getAffectedOwnerIdOrNull());
+            }
+        }
+    }
+}
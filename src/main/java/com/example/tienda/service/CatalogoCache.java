@@ -0,0 +1,162 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.ProductoDTO;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * CACHÉ DEL CATÁLOGO (Caffeine, acotada por tamaño y TTL - ver application.properties)
+ * Tres cachés de lectura (read-through):
+ * - productos: producto por ID (DTO con sus categorías)
+ * - categorias: ID de categoría por nombre (lo usa asignarCategorias)
+ * - paginasCategoria: IDs de una página de productos por categoría
+ *   (guarda solo IDs: un cambio de stock invalida el producto, no las páginas; por eso
+ *   las páginas ordenadas por stock no se cachean, su orden cambia con cada pedido)
+ *
+ * Las invalidaciones se aplican al confirmar la transacción, así una lectura
+ * concurrente no vuelve a meter en caché el valor viejo.
+ */
+@Component
+public class CatalogoCache {
+
+    public static final String PRODUCTOS = "productos";
+    public static final String CATEGORIAS = "categorias";
+    public static final String PAGINAS_CATEGORIA = "paginasCategoria";
+
+    private static final String ORDEN_STOCK = "stock";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // ===== LECTURAS =====
+
+    /**
+     * Varios productos por ID: los que faltan se cargan todos juntos en una consulta
+     * Devuelve un mapa ID -> producto (los inexistentes no aparecen)
+     */
+    public Map<Long, ProductoDTO> productos(List<Long> ids, Function<List<Long>, List<ProductoDTO>> cargador) {
+        Cache cache = cache(PRODUCTOS);
+        Map<Long, ProductoDTO> encontrados = new LinkedHashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : ids) {
+            ProductoDTO producto = cache.get(id, ProductoDTO.class);
+            if (producto != null) {
+                encontrados.put(id, producto);
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            for (ProductoDTO producto : cargador.apply(faltantes)) {
+                cache.put(producto.getId(), producto);
+                encontrados.put(producto.getId(), producto);
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * ID de una categoría por nombre (null si no existe)
+     */
+    public Long categoriaId(String nombre, Supplier<Long> cargador) {
+        return cache(CATEGORIAS).get(nombre, cargador::get);
+    }
+
+    /**
+     * Registrar el ID de una categoría recién creada
+     */
+    public void guardarCategoriaId(String nombre, Long id) {
+        TrasConfirmar.ejecutar(() -> cache(CATEGORIAS).put(nombre, id));
+    }
+
+    /**
+     * IDs de una página de productos de una categoría
+     * Ordenada por stock se lee siempre de la base de datos: pedidos, cancelaciones y
+     * ajustes de stock cambian el orden y qué productos caen en cada página
+     */
+    public Page<Long> paginaCategoria(String nombreCategoria, Pageable pageable, Supplier<Page<Long>> cargador) {
+        if (pageable.getSort().getOrderFor(ORDEN_STOCK) != null) {
+            return cargador.get();
+        }
+        return cache(PAGINAS_CATEGORIA).get(clavePagina(nombreCategoria, pageable), cargador::get);
+    }
+
+    // ===== INVALIDACIONES =====
+
+    /**
+     * Invalidar productos (cambio de stock, de categorías, alta...)
+     */
+    public void invalidarProductos(Collection<Long> ids) {
+        alConfirmar(() -> {
+            Cache cache = cache(PRODUCTOS);
+            ids.forEach(cache::evict);
+        });
+    }
+
+    /**
+     * Invalidar todas las páginas cacheadas de las categorías indicadas
+     */
+    public void invalidarPaginasDeCategorias(Collection<String> nombresCategorias) {
+        alConfirmar(() -> nombresCategorias.forEach(nombre -> {
+            String prefijo = nombre + "|";
+            nativa(PAGINAS_CATEGORIA).asMap().keySet()
+                    .removeIf(clave -> ((String) clave).startsWith(prefijo));
+        }));
+    }
+
+    // ===== ESTADÍSTICAS =====
+
+    /**
+     * Aciertos, fallos y expulsiones de cada caché, para dimensionarlas
+     */
+    public Map<String, Map<String, Object>> estadisticas() {
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+        for (String nombre : List.of(PRODUCTOS, CATEGORIAS, PAGINAS_CATEGORIA)) {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativa = nativa(nombre);
+            CacheStats stats = nativa.stats();
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("entradas", nativa.estimatedSize());
+            datos.put("aciertos", stats.hitCount());
+            datos.put("fallos", stats.missCount());
+            datos.put("tasaAciertos", stats.hitRate());
+            datos.put("expulsiones", stats.evictionCount());
+            resultado.put(nombre, datos);
+        }
+        return resultado;
+    }
+
+    // ===== AUXILIARES =====
+
+    private Cache cache(String nombre) {
+        return cacheManager.getCache(nombre);
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativa(String nombre) {
+        return ((CaffeineCache) cache(nombre)).getNativeCache();
+    }
+
+    private String clavePagina(String nombreCategoria, Pageable pageable) {
+        return nombreCategoria + "|" + pageable.getPageNumber() + "|" + pageable.getPageSize() + "|" + pageable.getSort();
+    }
+
+    /**
+     * Ejecutar ahora y otra vez al confirmar la transacción (si hay una activa)
+     */
+    private void alConfirmar(Runnable invalidacion) {
+        invalidacion.run();
+        TrasConfirmar.ejecutar(invalidacion);
+    }
+}
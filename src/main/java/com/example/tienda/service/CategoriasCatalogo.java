@@ -0,0 +1,87 @@
+package com.example.tienda.service;
+
+import com.example.tienda.repository.ProductoRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * PRODUCTOS POR CATEGORÍA Y POR PRECIO EN MEMORIA
+ * Un IndiceCategorias y un IndicePrecios con todo el catálogo (las facetas del catálogo):
+ * - Se llenan al arrancar con una consulta de pares (categoría, producto) y otra de (producto, precio)
+ * - ProductoService avisa cada asignación de categorías y cada precio nuevo; se aplican al
+ *   confirmar la transacción
+ * Mientras no terminó la carga inicial, listo() es false y ProductoService consulta la BD.
+ */
+@Component
+public class CategoriasCatalogo {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoriasCatalogo.class);
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    /**
+     * Límites de los rangos de precio de las facetas, en orden ascendente:
+     * 50,100 -> [0, 50), [50, 100), [100, sin tope)
+     */
+    @Value("${tienda.catalogo.rangos-precio:50,100,500,1000}")
+    private List<BigDecimal> limitesPrecio;
+
+    private final IndiceCategorias indice = new IndiceCategorias();
+    private IndicePrecios precios;
+    private volatile boolean listo;
+
+    @PostConstruct
+    public void crearIndicePrecios() {
+        precios = new IndicePrecios(limitesPrecio);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        List<Object[]> filas = productoRepository.findCategoriaYProducto();
+        for (Object[] fila : filas) {
+            indice.agregar((String) fila[0], (Long) fila[1]);
+        }
+        for (Object[] fila : productoRepository.findIdYPrecio()) {
+            precios.fijar((Long) fila[0], (BigDecimal) fila[1]);
+        }
+        listo = true;
+        log.info("Índice de categorías cargado: {} categorías, {} asignaciones, {} productos con precio",
+                indice.tamano(), filas.size(), precios.tamano());
+    }
+
+    public boolean listo() {
+        return listo;
+    }
+
+    public IndiceCategorias indice() {
+        return indice;
+    }
+
+    public IndicePrecios precios() {
+        return precios;
+    }
+
+    /**
+     * Registrar el precio de un producto nuevo (al confirmar la transacción actual)
+     */
+    public void precioGuardado(Long productoId, BigDecimal precio) {
+        TrasConfirmar.ejecutar(() -> precios.fijar(productoId, precio));
+    }
+
+    /**
+     * Agregar el producto a las categorías (al confirmar la transacción actual)
+     */
+    public void categoriasAsignadas(Long productoId, Collection<String> categorias) {
+        TrasConfirmar.ejecutar(() -> categorias.forEach(categoria -> indice.agregar(categoria, productoId)));
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.tienda.service;
 
+import com.example.tienda.dto.ClienteDTO;
 import com.example.tienda.entity.Cliente;
 import com.example.tienda.entity.Direccion;
 import com.example.tienda.repository.ClienteRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,17 +19,21 @@ import java.util.Optional;
  */
 @Service
 @Transactional
+@Timed(value = "tienda.servicio", histogram = true) // un timer por método público (ver MetricasConfig)
 public class ClienteService {
 
     // Inyección de dependencias - Spring nos da automáticamente el repositorio
     @Autowired
     private ClienteRepository clienteRepository;
 
+    @Autowired
+    private TotalesClienteService totalesClienteService;
+
     /**
      * CREAR CLIENTE CON DIRECCIÓN
      * Esta es una operación importante: crear cliente y dirección en una sola transacción
      */
-    public Cliente crearClienteConDireccion(String nombre, String email,
+    public ClienteDTO crearClienteConDireccion(String nombre, String email,
                                           String calle, String ciudad, String pais, String zip) {
         // 1. Validar que no existe cliente con ese email
         if (clienteRepository.existsByEmail(email)) {
@@ -44,37 +50,41 @@ public class ClienteService {
         cliente.setDireccion(direccion);
 
         // 5. Guardar (cascade=ALL guardará también la dirección)
-        return clienteRepository.save(cliente);
+        Cliente guardado = clienteRepository.save(cliente);
+
+        // 6. Fila del cliente en la tabla de totales (empieza en 0)
+        totalesClienteService.registrarCliente(guardado.getId());
+        return ClienteDTO.desde(guardado);
     }
 
     /**
-     * Buscar cliente por ID con su dirección cargada
+     * Buscar cliente por ID con su dirección cargada (una consulta, como DTO)
      */
     @Transactional(readOnly = true) // Optimización para consultas de solo lectura
-    public Optional<Cliente> buscarClienteConDireccion(Long id) {
-        return clienteRepository.findById(id);
+    public Optional<ClienteDTO> buscarClienteConDireccion(Long id) {
+        return clienteRepository.findDTOById(id);
     }
 
     /**
      * Buscar cliente por email
      */
     @Transactional(readOnly = true)
-    public Optional<Cliente> buscarPorEmail(String email) {
-        return clienteRepository.findByEmail(email);
+    public Optional<ClienteDTO> buscarPorEmail(String email) {
+        return clienteRepository.findDTOByEmail(email);
     }
 
     /**
      * Listar todos los clientes con sus direcciones
      */
     @Transactional(readOnly = true)
-    public List<Cliente> listarTodosConDirecciones() {
-        return clienteRepository.findAllWithDirecciones();
+    public List<ClienteDTO> listarTodosConDirecciones() {
+        return clienteRepository.findAllDTO();
     }
 
     /**
      * Actualizar dirección de un cliente
      */
-    public Cliente actualizarDireccion(Long clienteId, String calle, String ciudad, String pais, String zip) {
+    public ClienteDTO actualizarDireccion(Long clienteId, String calle, String ciudad, String pais, String zip) {
         Cliente cliente = clienteRepository.findById(clienteId)
                 .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado con ID: " + clienteId));
 
@@ -91,7 +101,7 @@ public class ClienteService {
             cliente.setDireccion(nuevaDireccion);
         }
 
-        return clienteRepository.save(cliente);
+        return ClienteDTO.desde(clienteRepository.save(cliente));
     }
 
     /**
@@ -101,6 +111,7 @@ public class ClienteService {
         if (!clienteRepository.existsById(clienteId)) {
             throw new IllegalArgumentException("Cliente no encontrado con ID: " + clienteId);
         }
+        totalesClienteService.eliminarCliente(clienteId);
         clienteRepository.deleteById(clienteId);
     }
 
@@ -108,15 +119,15 @@ public class ClienteService {
      * Buscar clientes por ciudad
      */
     @Transactional(readOnly = true)
-    public List<Cliente> buscarPorCiudad(String ciudad) {
-        return clienteRepository.findByCiudad(ciudad);
+    public List<ClienteDTO> buscarPorCiudad(String ciudad) {
+        return clienteRepository.findDTOByCiudad(ciudad);
     }
 
     /**
      * Listar clientes que tienen pedidos
      */
     @Transactional(readOnly = true)
-    public List<Cliente> listarClientesConPedidos() {
-        return clienteRepository.findClientesConPedidos();
+    public List<ClienteDTO> listarClientesConPedidos() {
+        return clienteRepository.findDTOClientesConPedidos();
     }
 }
@@ -0,0 +1,216 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.PedidoDTO;
+import com.example.tienda.dto.ProcesamientoPedidoDTO;
+import com.example.tienda.repository.PedidoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PEDIDOS ASÍNCRONOS: COLA EN MEMORIA CON HILOS ACOTADOS
+ * El hilo HTTP solo acepta el pedido (PedidoService.aceptarPedido: valida, reserva stock y
+ * guarda el pedido en NUEVO con su carrito) y responde 202; precios, items y total los
+ * completa un pool fijo de hilos (PedidoService.completarPedido).
+ *
+ * - Contrapresión: hay tienda.pedidos.asincrono.capacidad plazas entre cola y hilos. Sin plaza
+ *   libre, encolar() rechaza el pedido (ColaLlena) ANTES de tocar la base de datos
+ * - Si el paso 2 falla, se devuelve el stock y el pedido se cancela (PedidoService.descartarPedido)
+ * - La cola no sobrevive al proceso, pero el carrito sí (Pedido.carritoPendiente): al arrancar
+ *   se retoman los pedidos que quedaron a medias
+ *
+ * El cliente consulta el resultado con consultar() (GET /api/pedidos/{id}/procesamiento).
+ */
+@Component
+public class ColaPedidos {
+
+    private static final Logger log = LoggerFactory.getLogger(ColaPedidos.class);
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Hilos que completan pedidos (cada uno usa una conexión mientras trabaja)
+     */
+    @Value("${tienda.pedidos.asincrono.hilos:4}")
+    private int hilos;
+
+    /**
+     * Pedidos aceptados que todavía no se completaron, como máximo
+     */
+    @Value("${tienda.pedidos.asincrono.capacidad:1000}")
+    private int capacidad;
+
+    private ThreadPoolExecutor trabajadores;
+    private Semaphore plazas;
+
+    /**
+     * Pedidos aceptados que esperan (o están en) el paso 2
+     */
+    private final Set<Long> enCola = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Motivo de los pedidos rechazados en el paso 2 (para consultar(); en la BD quedan CANCELADO)
+     */
+    private final Cache<Long, String> rechazados = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    @PostConstruct
+    public void iniciar() {
+        plazas = new Semaphore(capacidad);
+        AtomicInteger numero = new AtomicInteger();
+        trabajadores = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                tarea -> new Thread(tarea, "pedidos-" + numero.incrementAndGet()));
+        Gauge.builder("tienda.pedidos.asincrono.en-cola", enCola, Set::size)
+                .description("Pedidos aceptados que esperan sus items")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Al apagar: se terminan los pedidos en curso; los que siguen en cola se retoman al arrancar
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        // Sin interrumpir a los hilos: un pedido interrumpido a mitad de transacción se cancelaría
+        trabajadores.getQueue().clear();
+        trabajadores.shutdown();
+        trabajadores.awaitTermination(30, TimeUnit.SECONDS);
+        if (!enCola.isEmpty()) {
+            log.info("{} pedidos asíncronos quedan pendientes para el próximo arranque", enCola.size());
+        }
+    }
+
+    /**
+     * ACEPTAR UN PEDIDO ASÍNCRONO: reservar stock y encolar el resto
+     * Devuelve el ID del pedido (en NUEVO); ColaLlena si no hay plaza
+     */
+    public Long encolar(Long clienteId, List<PedidoService.ItemPedidoRequest> items) {
+        if (!plazas.tryAcquire()) {
+            throw new ColaLlena("Hay " + capacidad + " pedidos en proceso, reintentar más tarde");
+        }
+        Long pedidoId;
+        try {
+            pedidoId = pedidoService.aceptarPedido(clienteId, items);
+        } catch (RuntimeException e) {
+            plazas.release();
+            throw e;
+        }
+        enviar(pedidoId);
+        return pedidoId;
+    }
+
+    /**
+     * Estado de un pedido asíncrono; vacío si el pedido no existe
+     */
+    public Optional<ProcesamientoPedidoDTO> consultar(Long pedidoId) {
+        if (enCola.contains(pedidoId)) {
+            return Optional.of(ProcesamientoPedidoDTO.enCola(pedidoId));
+        }
+        String motivo = rechazados.getIfPresent(pedidoId);
+        if (motivo != null) {
+            return Optional.of(ProcesamientoPedidoDTO.rechazado(pedidoId, motivo));
+        }
+        Optional<PedidoDTO> pedido = pedidoService.buscarPedidoConItems(pedidoId);
+        if (pedido.isPresent()) {
+            return pedido.map(ProcesamientoPedidoDTO::procesado);
+        }
+        // Sin items: todavía pendiente (por ejemplo, antes de retomarlo tras un reinicio)
+        // o descartado cuando el motivo ya no está en memoria
+        return pedidoRepository.findEstados(List.of(pedidoId)).stream().findFirst()
+                .map(estado -> estado.isEnProceso()
+                        ? ProcesamientoPedidoDTO.enCola(pedidoId)
+                        : ProcesamientoPedidoDTO.rechazado(pedidoId, "Pedido descartado"));
+    }
+
+    /**
+     * RETOMAR AL ARRANCAR los pedidos que quedaron con carrito pendiente
+     * Después de InventarioEnMemoria.reconciliar: las reservas en memoria se rehacen sobre
+     * los contadores ya cargados
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void retomarPendientes() {
+        List<Long> pendientes = pedidoRepository.findIdsConCarritoPendiente();
+        for (Long pedidoId : pendientes) {
+            if (pedidoService.retomarPedido(pedidoId)) {
+                plazas.acquireUninterruptibly();
+                enviar(pedidoId);
+            } else {
+                rechazados.put(pedidoId, "El stock reservado se perdió al reiniciar y ya no alcanza");
+            }
+        }
+        if (!pendientes.isEmpty()) {
+            log.info("Pedidos asíncronos retomados al arrancar: {}", pendientes.size());
+        }
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    private void enviar(Long pedidoId) {
+        enCola.add(pedidoId);
+        trabajadores.execute(() -> completar(pedidoId));
+    }
+
+    /**
+     * Paso 2 en un hilo del pool; si falla, devolver el stock y cancelar el pedido
+     */
+    private void completar(Long pedidoId) {
+        try {
+            pedidoService.completarPedido(pedidoId);
+        } catch (RuntimeException e) {
+            log.warn("Pedido asíncrono {} rechazado", pedidoId, e);
+            try {
+                pedidoService.descartarPedido(pedidoId);
+                rechazados.put(pedidoId, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            } catch (RuntimeException error) {
+                // Queda con su carrito pendiente: se vuelve a intentar en el próximo arranque
+                log.error("No se pudo descartar el pedido asíncrono {}", pedidoId, error);
+            }
+        } finally {
+            enCola.remove(pedidoId);
+            plazas.release();
+        }
+    }
+
+    /**
+     * No queda plaza en la cola de pedidos asíncronos
+     */
+    public static class ColaLlena extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public ColaLlena(String mensaje) {
+            super(mensaje);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.EventoPedidoDTO;
+import java.util.List;
+
+/**
+ * CONSUMIDOR DEL BUS DE EVENTOS DE PEDIDOS
+ * Todo bean que implemente esta interfaz se suscribe a BusEventosPedido. Recibe los eventos en
+ * lotes, en orden de posición, y su offset se confirma cuando procesar() termina sin excepción.
+ * La entrega es al menos una vez: un lote puede repetirse (tras una excepción o una caída),
+ * así que procesar() debe tolerar eventos ya vistos (por ejemplo, comparando la posición).
+ */
+public interface ConsumidorEventosPedido {
+
+    /**
+     * Nombre único y estable: es la clave de su offset en offsets_consumidor
+     */
+    String getNombre();
+
+    void procesar(List<EventoPedidoDTO> eventos);
+}
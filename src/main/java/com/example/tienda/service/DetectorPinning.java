@@ -0,0 +1,98 @@
+package com.example.tienda.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * DETECTOR DE PINNING (solo con hilos virtuales activos)
+ * Un hilo virtual que se bloquea dentro de un synchronized (o en código nativo) no libera
+ * su hilo portador: con pocos portadores, unas cuantas esperas así frenan toda la aplicación.
+ * Se escucha el evento de JFR jdk.VirtualThreadPinned dentro del mismo proceso y se registra
+ * la primera vez que aparece cada punto de pinning (con su pila), más un contador por punto.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DetectorPinning {
+
+    private static final Logger log = LoggerFactory.getLogger(DetectorPinning.class);
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+    private static final int FRAMES_EN_LOG = 12;
+
+    @Value("${tienda.hilos-virtuales.umbral-pinning-ms:20}")
+    private long umbralMs;
+
+    /**
+     * Cantidad de pinnings por punto de código (primer frame de la aplicación o de la pila)
+     */
+    private final Map<String, LongAdder> pinningsPorPunto = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void iniciar() {
+        stream = new RecordingStream();
+        stream.enable(EVENTO).withThreshold(Duration.ofMillis(umbralMs)).withStackTrace();
+        stream.onEvent(EVENTO, this::registrar);
+        stream.startAsync();
+        log.info("Detección de pinning activa (umbral {} ms)", umbralMs);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void registrar(RecordedEvent evento) {
+        List<RecordedFrame> frames = evento.getStackTrace() != null
+                ? evento.getStackTrace().getFrames()
+                : List.of();
+        String punto = puntoDePinning(frames);
+
+        LongAdder contador = pinningsPorPunto.computeIfAbsent(punto, p -> new LongAdder());
+        contador.increment();
+        long total = contador.sum();
+        if (total == 1) {
+            log.warn("Hilo virtual fijado {} ms en {}\n{}", evento.getDuration().toMillis(), punto,
+                    frames.stream().limit(FRAMES_EN_LOG).map(this::describir).collect(Collectors.joining("\n")));
+        } else if (Long.bitCount(total) == 1) {
+            // Sin repetir la pila: solo el acumulado cada vez que se duplica
+            log.warn("Hilo virtual fijado en {}: {} veces", punto, total);
+        }
+    }
+
+    /**
+     * El primer frame de com.example.tienda identifica mejor el origen que el frame
+     * de la librería donde ocurrió la espera
+     */
+    private String puntoDePinning(List<RecordedFrame> frames) {
+        return frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith("com.example.tienda"))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(this::describir)
+                .orElse("desconocido");
+    }
+
+    private String describir(RecordedFrame frame) {
+        return "  at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.PedidoLineaDTO;
+import com.example.tienda.entity.Pedido;
+import com.example.tienda.repository.PedidoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * SERVICIO DE EXPORTACIÓN
+ * Exporta pedidos con sus items (una fila por item) para el data warehouse.
+ * Las filas se leen del cursor de la base de datos y se escriben directo a la salida:
+ * la memoria usada no depende de cuántos pedidos haya.
+ */
+@Service
+public class ExportacionService {
+
+    /**
+     * Formatos de exportación soportados
+     */
+    public enum Formato {
+        NDJSON, // un objeto JSON por línea
+        CSV
+    }
+
+    private static final String CABECERA_CSV =
+            "pedidoId,fecha,estado,total,clienteId,itemId,productoId,productoNombre,cantidad,precioUnitario";
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * EXPORTAR PEDIDOS filtrando por rango de fechas [desde, hasta) y estado
+     * Cualquier filtro en null no se aplica.
+     * Devuelve la cantidad de filas escritas.
+     */
+    @Transactional(readOnly = true)
+    public long exportarPedidos(LocalDateTime desde, LocalDateTime hasta, Pedido.EstadoPedido estado,
+                                Formato formato, OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        ObjectWriter json = objectMapper.writerFor(PedidoLineaDTO.class);
+        long filas = 0;
+
+        if (formato == Formato.CSV) {
+            writer.write(CABECERA_CSV);
+            writer.write('\n');
+        }
+
+        try (Stream<PedidoLineaDTO> lineas = pedidoRepository.streamLineas(desde, hasta, estado)) {
+            Iterator<PedidoLineaDTO> iterador = lineas.iterator();
+            while (iterador.hasNext()) {
+                PedidoLineaDTO linea = iterador.next();
+                if (formato == Formato.CSV) {
+                    escribirCsv(writer, linea);
+                } else {
+                    writer.write(json.writeValueAsString(linea));
+                }
+                writer.write('\n');
+                filas++;
+            }
+        }
+
+        writer.flush();
+        return filas;
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    private void escribirCsv(Writer writer, PedidoLineaDTO linea) throws IOException {
+        writer.write(String.join(",",
+                valor(linea.getPedidoId()),
+                valor(linea.getFecha()),
+                valor(linea.getEstado()),
+                valor(linea.getTotal() != null ? linea.getTotal().toPlainString() : null),
+                valor(linea.getClienteId()),
+                valor(linea.getItemId()),
+                valor(linea.getProductoId()),
+                textoCsv(linea.getProductoNombre()),
+                valor(linea.getCantidad()),
+                valor(linea.getPrecioUnitario() != null ? linea.getPrecioUnitario().toPlainString() : null)));
+    }
+
+    /**
+     * Valor simple (números, fechas, enums): vacío si es null
+     */
+    private String valor(Object valor) {
+        return valor != null ? valor.toString() : "";
+    }
+
+    /**
+     * Texto libre: entre comillas si contiene separadores, comillas o saltos de línea (RFC 4180)
+     */
+    private String textoCsv(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        if (texto.contains(",") || texto.contains("\"") || texto.contains("\n") || texto.contains("\r")) {
+            return "\"" + texto.replace("\"", "\"\"") + "\"";
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.PedidoDTO;
+import com.example.tienda.repository.ClaveIdempotenciaRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * CREACIÓN DE PEDIDOS IDEMPOTENTE (cabecera Idempotency-Key)
+ * Las apps reintentan POST /api/clientes/{clienteId}/pedidos cuando vence el timeout; con la
+ * misma clave, el reintento devuelve el pedido del primer intento en lugar de crear otro.
+ *
+ * - Memoria: mapa acotado (Caffeine) clave -> pedido creado; un reintento que lo encuentra
+ *   responde sin tocar la base de datos ni abrir transacción
+ * - En curso: si llega un duplicado mientras el primer intento sigue creando el pedido, espera
+ *   su resultado en lugar de competir con él; si el primero falla, el duplicado lo intenta de nuevo
+ * - Base de datos (claves_idempotencia): la clave se registra en la transacción del pedido.
+ *   Cubre lo que la memoria no ve (otro nodo, un reinicio, una clave ya desalojada): el
+ *   registro falla por clave duplicada y se devuelve el pedido anotado en la fila. Si el otro
+ *   intento todavía no confirmó, el registro falla por tiempo de espera del bloqueo y se
+ *   vuelve a buscar la fila y a intentar, hasta el mismo tiempo de espera que en memoria
+ *
+ * Una clave repetida con otro carrito es un error del cliente (ClaveReutilizada); un primer
+ * intento que sigue en proceso pasado el tiempo de espera, un conflicto (ClaveEnProceso).
+ * Las claves duran tienda.pedidos.idempotencia.horas, en memoria y en la tabla.
+ */
+@Component
+public class IdempotenciaPedidos {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaPedidos.class);
+
+    /**
+     * Longitud máxima de la clave enviada por el cliente
+     */
+    public static final int LONGITUD_MAXIMA = 100;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Horas que se recuerda cada clave
+     */
+    @Value("${tienda.pedidos.idempotencia.horas:24}")
+    private long horas;
+
+    /**
+     * Claves recordadas en memoria (las más viejas se desalojan; siguen en la tabla)
+     */
+    @Value("${tienda.pedidos.idempotencia.maximo-en-memoria:10000}")
+    private long maximoEnMemoria;
+
+    /**
+     * Segundos que un duplicado espera al primer intento antes de rendirse
+     */
+    @Value("${tienda.pedidos.idempotencia.espera-segundos:30}")
+    private long esperaSegundos;
+
+    private Cache<String, Registro> recientes;
+
+    /**
+     * Primer intento de cada clave que todavía se está procesando
+     */
+    private final Map<String, CompletableFuture<Registro>> enCurso = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void crearCache() {
+        recientes = Caffeine.newBuilder()
+                .maximumSize(maximoEnMemoria)
+                .expireAfterWrite(Duration.ofHours(horas))
+                .build();
+    }
+
+    /**
+     * CREAR PEDIDO CON CLAVE DE IDEMPOTENCIA
+     * Devuelve el pedido creado, o el del primer intento si la clave ya se usó
+     */
+    public Resultado crearPedido(Long clienteId, String clave, List<PedidoService.ItemPedidoRequest> items) {
+        if (clave == null || clave.isBlank() || clave.length() > LONGITUD_MAXIMA) {
+            throw new IllegalArgumentException("La clave de idempotencia debe tener entre 1 y " + LONGITUD_MAXIMA + " caracteres");
+        }
+        String id = clienteId + ":" + clave;
+        String huella = huella(items);
+
+        while (true) {
+            Registro registro = recientes.getIfPresent(id);
+            if (registro != null) {
+                return repetido(registro, huella);
+            }
+            CompletableFuture<Registro> propio = new CompletableFuture<>();
+            CompletableFuture<Registro> primero = enCurso.putIfAbsent(id, propio);
+            if (primero == null) {
+                return procesar(id, huella, clienteId, items, propio);
+            }
+            registro = esperar(primero);
+            if (registro != null) {
+                return repetido(registro, huella);
+            }
+            // El primer intento falló sin crear el pedido: la clave sigue libre
+        }
+    }
+
+    /**
+     * BORRADO PERIÓDICO de las claves vencidas en la tabla
+     */
+    @Scheduled(fixedDelayString = "${tienda.pedidos.idempotencia.intervalo-limpieza-ms:3600000}")
+    public void borrarVencidas() {
+        Integer borradas = new TransactionTemplate(transactionManager).execute(status ->
+                claveIdempotenciaRepository.borrarAnteriores(LocalDateTime.now().minusHours(horas)));
+        if (borradas != null && borradas > 0) {
+            log.info("Claves de idempotencia vencidas borradas: {}", borradas);
+        }
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    /**
+     * Primer intento de la clave en este nodo: crear el pedido (o encontrar el que ya creó
+     * otro nodo) y avisar a los duplicados que lo esperan
+     */
+    private Resultado procesar(String id, String huella, Long clienteId,
+                               List<PedidoService.ItemPedidoRequest> items, CompletableFuture<Registro> propio) {
+        try {
+            // Pudo terminar otro intento entre la consulta a la memoria y putIfAbsent
+            Registro registro = recientes.getIfPresent(id);
+            boolean creado = false;
+            if (registro == null) {
+                long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(esperaSegundos);
+                while (registro == null) {
+                    try {
+                        registro = new Registro(huella, pedidoService.crearPedido(clienteId, items, id, huella));
+                        creado = true;
+                    } catch (DataIntegrityViolationException e) {
+                        registro = desdeBaseDeDatos(id).orElseThrow(() -> e);
+                    } catch (PessimisticLockingFailureException e) {
+                        // Otro nodo registró la clave y no confirmó ni deshizo dentro del tiempo de
+                        // espera de bloqueos de la base de datos: buscar su pedido o volver a intentar
+                        registro = desdeBaseDeDatos(id).orElse(null);
+                        if (registro == null && System.nanoTime() - limite >= 0) {
+                            throw new ClaveEnProceso("El pedido con esta clave de idempotencia sigue en proceso");
+                        }
+                    }
+                }
+                recientes.put(id, registro);
+            }
+            propio.complete(registro);
+            return creado ? new Resultado(registro.pedido, false) : repetido(registro, huella);
+        } catch (RuntimeException e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(id, propio);
+        }
+    }
+
+    /**
+     * Clave registrada por una transacción ya confirmada (otro nodo, o antes de un reinicio)
+     */
+    private Optional<Registro> desdeBaseDeDatos(String id) {
+        return claveIdempotenciaRepository.findById(id)
+                .filter(clave -> clave.getPedidoId() != null)
+                .map(clave -> new Registro(clave.getHuella(), pedidoService.buscarPedidoConItems(clave.getPedidoId())
+                        .orElseThrow(() -> new IllegalStateException("Pedido " + clave.getPedidoId()
+                                + " de la clave de idempotencia no encontrado"))));
+    }
+
+    /**
+     * Esperar el primer intento; null si falló
+     */
+    private Registro esperar(CompletableFuture<Registro> primero) {
+        try {
+            return primero.get(esperaSegundos, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return null;
+        } catch (TimeoutException e) {
+            throw new ClaveEnProceso("El pedido con esta clave de idempotencia sigue en proceso");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando el pedido con esta clave de idempotencia");
+        }
+    }
+
+    private Resultado repetido(Registro registro, String huella) {
+        if (!registro.huella.equals(huella)) {
+            throw new ClaveReutilizada("La clave de idempotencia ya se usó con otro carrito");
+        }
+        return new Resultado(registro.pedido, true);
+    }
+
+    /**
+     * SHA-256 del carrito, independiente del orden de los items
+     */
+    static String huella(List<PedidoService.ItemPedidoRequest> items) {
+        String carrito = items == null ? "" : items.stream()
+                .map(item -> item == null ? "null" : item.getProductoId() + "x" + item.getCantidad())
+                .sorted()
+                .collect(Collectors.joining(","));
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(carrito.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // toda JVM trae SHA-256
+        }
+    }
+
+    /**
+     * Pedido creado con una clave y la huella de su carrito
+     */
+    private static class Registro {
+        private final String huella;
+        private final PedidoDTO pedido;
+
+        private Registro(String huella, PedidoDTO pedido) {
+            this.huella = huella;
+            this.pedido = pedido;
+        }
+    }
+
+    /**
+     * Pedido devuelto y si es el de un intento anterior
+     */
+    public static class Resultado {
+        private final PedidoDTO pedido;
+        private final boolean repetido;
+
+        public Resultado(PedidoDTO pedido, boolean repetido) {
+            this.pedido = pedido;
+            this.repetido = repetido;
+        }
+
+        public PedidoDTO getPedido() { return pedido; }
+        public boolean isRepetido() { return repetido; }
+    }
+
+    /**
+     * La clave ya se usó con otro carrito
+     */
+    public static class ClaveReutilizada extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        public ClaveReutilizada(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    /**
+     * El primer intento con la clave sigue en proceso pasado el tiempo de espera
+     */
+    public static class ClaveEnProceso extends IllegalStateException {
+
+        private static final long serialVersionUID = 1L;
+
+        public ClaveEnProceso(String mensaje) {
+            super(mensaje);
+        }
+    }
+}
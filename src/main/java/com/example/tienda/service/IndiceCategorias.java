@@ -0,0 +1,104 @@
+package com.example.tienda.service;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ÍNDICE DE CATEGORÍAS CON BITMAPS COMPRIMIDOS (en memoria)
+ * nombre de categoría -> RoaringBitmap con los IDs de sus productos.
+ * Combinar categorías (AND / OR) y contar productos son operaciones entre bitmaps,
+ * sin pasar por la tabla intermedia producto_categoria ni hacer subconsultas SIZE().
+ *
+ * Los IDs de producto se guardan como int (RoaringBitmap es de 32 bits): los genera
+ * una columna IDENTITY y no llegan a 2^31.
+ *
+ * Lecturas concurrentes, escrituras exclusivas; lo que se devuelve es siempre una copia.
+ */
+public class IndiceCategorias {
+
+    private final Map<String, RoaringBitmap> porCategoria = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Agregar un producto a una categoría
+     */
+    public void agregar(String categoria, Long productoId) {
+        lock.writeLock().lock();
+        try {
+            porCategoria.computeIfAbsent(categoria, nombre -> new RoaringBitmap()).add(clave(productoId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de categorías con al menos un producto
+     */
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return porCategoria.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Productos de las categorías indicadas
+     * todas = true: los que tienen TODAS (AND); false: los que tienen ALGUNA (OR)
+     */
+    public RoaringBitmap productos(Collection<String> categorias, boolean todas) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap[] bitmaps = new RoaringBitmap[categorias.size()];
+            int i = 0;
+            for (String categoria : categorias) {
+                RoaringBitmap bitmap = porCategoria.get(categoria);
+                if (bitmap == null && todas) {
+                    return new RoaringBitmap(); // una categoría vacía anula el AND
+                }
+                bitmaps[i++] = bitmap != null ? bitmap : new RoaringBitmap();
+            }
+            if (bitmaps.length == 0) {
+                return new RoaringBitmap();
+            }
+            return todas ? FastAggregation.and(bitmaps) : FastAggregation.or(bitmaps);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Productos por categoría (solo las que tienen alguno)
+     * universo != null: contar solo los productos que están en él (intersección sin crear bitmaps)
+     */
+    public Map<String, Long> contar(RoaringBitmap universo) {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> cantidades = new HashMap<>();
+            porCategoria.forEach((categoria, productos) -> {
+                long cantidad = universo == null
+                        ? productos.getLongCardinality()
+                        : RoaringBitmap.andCardinality(productos, universo);
+                if (cantidad > 0) {
+                    cantidades.put(categoria, cantidad);
+                }
+            });
+            return cantidades;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ID de producto como clave del bitmap
+     */
+    public static int clave(Long productoId) {
+        return Math.toIntExact(productoId);
+    }
+}
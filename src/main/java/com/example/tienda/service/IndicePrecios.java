@@ -0,0 +1,142 @@
+package com.example.tienda.service;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ÍNDICE DE PRECIOS CON BITMAPS COMPRIMIDOS (en memoria)
+ * El complemento de IndiceCategorias para las facetas del catálogo:
+ * - precio -> RoaringBitmap con los IDs de sus productos, ordenado por precio: el filtro
+ *   [precioMin, precioMax) es la unión de los bitmaps de ese tramo
+ * - un RoaringBitmap por rango de precio de las facetas: contar un rango es una intersección
+ * Así las facetas de precio no leen los precios de todo el catálogo en cada petición.
+ *
+ * Un producto que cambia de precio (fijar) sale de su precio y de su rango anteriores.
+ * Lecturas concurrentes, escrituras exclusivas; lo que se devuelve es siempre una copia.
+ */
+public class IndicePrecios {
+
+    private final List<BigDecimal> limites;
+    private final NavigableMap<BigDecimal, RoaringBitmap> porPrecio = new TreeMap<>();
+    private final RoaringBitmap[] porRango;
+    private final Map<Long, BigDecimal> precios = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Límites de los rangos en orden ascendente: 50,100 -> [0, 50), [50, 100), [100, sin tope)
+     */
+    public IndicePrecios(List<BigDecimal> limites) {
+        this.limites = List.copyOf(limites);
+        this.porRango = new RoaringBitmap[limites.size() + 1];
+        for (int i = 0; i < porRango.length; i++) {
+            porRango[i] = new RoaringBitmap();
+        }
+    }
+
+    public List<BigDecimal> limites() {
+        return limites;
+    }
+
+    /**
+     * Registrar el precio de un producto (nuevo o con precio cambiado)
+     */
+    public void fijar(Long productoId, BigDecimal precio) {
+        int clave = IndiceCategorias.clave(productoId);
+        lock.writeLock().lock();
+        try {
+            BigDecimal anterior = precios.put(productoId, precio);
+            if (anterior != null) {
+                RoaringBitmap conAnterior = porPrecio.get(anterior);
+                conAnterior.remove(clave);
+                if (conAnterior.isEmpty()) {
+                    porPrecio.remove(anterior);
+                }
+                porRango[rango(anterior)].remove(clave);
+            }
+            porPrecio.computeIfAbsent(precio, p -> new RoaringBitmap()).add(clave);
+            porRango[rango(precio)].add(clave);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de productos con precio
+     */
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return precios.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Todos los productos del índice
+     */
+    public RoaringBitmap todos() {
+        lock.readLock().lock();
+        try {
+            return FastAggregation.or(porRango);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Productos con precio en [desde, hasta) (null = sin límite de ese lado)
+     */
+    public RoaringBitmap entre(BigDecimal desde, BigDecimal hasta) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<BigDecimal, RoaringBitmap> tramo = porPrecio;
+            if (desde != null) {
+                tramo = tramo.tailMap(desde, true);
+            }
+            if (hasta != null) {
+                tramo = tramo.headMap(hasta, false);
+            }
+            return FastAggregation.or(tramo.values().iterator());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Productos por rango de precio, en el orden de los rangos
+     * universo != null: contar solo los productos que están en él
+     */
+    public long[] contar(RoaringBitmap universo) {
+        lock.readLock().lock();
+        try {
+            long[] cantidades = new long[porRango.length];
+            for (int i = 0; i < porRango.length; i++) {
+                cantidades[i] = universo == null
+                        ? porRango[i].getLongCardinality()
+                        : RoaringBitmap.andCardinality(porRango[i], universo);
+            }
+            return cantidades;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Índice del rango de precio: cuántos límites son menores o iguales al precio
+     */
+    private int rango(BigDecimal precio) {
+        int posicion = Collections.binarySearch(limites, precio, Comparator.naturalOrder());
+        return posicion >= 0 ? posicion + 1 : -posicion - 1;
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.tienda.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * ÍNDICE INVERTIDO DE TRIGRAMAS (en memoria)
+ * Índice de textos cortos (nombres) por ID, para buscar por parte del nombre sin
+ * recorrer la tabla: LOWER(nombre) LIKE '%x%' no puede usar ningún índice de la BD.
+ *
+ * - Cada nombre se normaliza (minúsculas, sin tildes, solo letras y números) y se parte
+ *   en trigramas de cada palabra, con relleno: "mouse" -> "  m", " mo", "mou", "ous", "use", "se "
+ * - trigrama -> IDs que lo contienen (listas invertidas)
+ * - palabra -> IDs (ordenado), para autocompletar por prefijo
+ *
+ * Búsqueda con ranking, a partir de los trigramas en común:
+ * - cobertura: qué parte de los trigramas buscados tiene el nombre (filtra: mínimo 0.5;
+ *   una o dos letras sueltas en medio de una palabra no alcanzan, para eso está sugerir)
+ * - similitud: en común / trigramas entre los dos, como pg_trgm (prefiere nombres cortos)
+ * - extra si el nombre contiene el texto buscado o alguna palabra empieza por él
+ * Tolera errores de tipeo ("laptpo" encuentra "laptop").
+ *
+ * Lecturas concurrentes, escrituras exclusivas (los nombres cambian muy poco). La carga
+ * completa se arma aparte y se reemplaza de una vez: las búsquedas nunca ven un índice a medias.
+ */
+public class IndiceTrigramas {
+
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Parte mínima de los trigramas buscados que debe tener un nombre para aparecer
+     */
+    private static final double COBERTURA_MINIMA = 0.5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Contenido contenido = new Contenido();
+
+    /**
+     * Altas y bajas hechas mientras se arma una reconstrucción (documento null = baja);
+     * null si no hay ninguna en curso
+     */
+    private Map<Long, Documento> cambiosDuranteReconstruccion;
+
+    /**
+     * Agregar o reemplazar el nombre de un ID
+     */
+    public void indexar(Long id, String nombre) {
+        Documento documento = new Documento(nombre);
+        lock.writeLock().lock();
+        try {
+            contenido.agregar(id, documento);
+            if (cambiosDuranteReconstruccion != null) {
+                cambiosDuranteReconstruccion.put(id, documento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quitar un ID del índice
+     */
+    public void quitar(Long id) {
+        lock.writeLock().lock();
+        try {
+            contenido.quitar(id);
+            if (cambiosDuranteReconstruccion != null) {
+                cambiosDuranteReconstruccion.put(id, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplazar todo el contenido (carga inicial), una reconstrucción a la vez
+     * Los nombres se leen y se indexan sin bloquear las búsquedas, que siguen usando el
+     * contenido anterior; el nuevo se pone en su lugar con el bloqueo exclusivo. Las altas y
+     * bajas que llegan desde que empieza la lectura se aplican también al nuevo contenido.
+     */
+    public void reconstruir(Supplier<Map<Long, String>> leerNombres) {
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteReconstruccion = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Contenido nuevo = new Contenido();
+        try {
+            leerNombres.get().forEach((id, nombre) -> nuevo.agregar(id, new Documento(nombre)));
+        } finally {
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteReconstruccion.forEach((id, documento) -> {
+                    if (documento != null) {
+                        nuevo.agregar(id, documento);
+                    } else {
+                        nuevo.quitar(id);
+                    }
+                });
+                cambiosDuranteReconstruccion = null;
+                contenido = nuevo;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Nombre original de un ID indexado (null si no está)
+     */
+    public String nombre(Long id) {
+        lock.readLock().lock();
+        try {
+            Documento documento = contenido.documentos.get(id);
+            return documento != null ? documento.nombre : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return contenido.documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * BÚSQUEDA CON RANKING
+     * IDs de los nombres más parecidos al texto, del más al menos relevante
+     */
+    public List<Long> buscar(String texto, int limite) {
+        String consulta = normalizar(texto);
+        Set<String> trigramasConsulta = trigramas(consulta);
+        if (trigramasConsulta.isEmpty()) {
+            return List.of();
+        }
+        String ultimaPalabra = consulta.substring(consulta.lastIndexOf(' ') + 1);
+
+        lock.readLock().lock();
+        try {
+            // Un nombre con la cobertura mínima está en al menos "minimo" de las listas, así que
+            // aparece en alguna de las (total - minimo + 1) más cortas: solo esas generan
+            // candidatos, y las listas largas (trigramas comunes a casi todo) solo se consultan
+            List<Set<Long>> listas = trigramasConsulta.stream()
+                    .map(trigrama -> contenido.porTrigrama.getOrDefault(trigrama, Set.of()))
+                    .sorted(Comparator.comparingInt(Set::size))
+                    .collect(Collectors.toList());
+            int minimo = (int) Math.ceil(COBERTURA_MINIMA * listas.size());
+            Set<Long> candidatos = new HashSet<>();
+            for (Set<Long> lista : listas.subList(0, listas.size() - minimo + 1)) {
+                candidatos.addAll(lista);
+            }
+
+            List<Resultado> resultados = new ArrayList<>();
+            for (Long id : candidatos) {
+                int enComun = 0;
+                for (Set<Long> lista : listas) {
+                    if (lista.contains(id)) {
+                        enComun++;
+                    }
+                }
+                if (enComun < minimo) {
+                    continue;
+                }
+                Documento documento = contenido.documentos.get(id);
+                double cobertura = (double) enComun / trigramasConsulta.size();
+                boolean contiene = documento.normalizado.contains(consulta);
+                double puntaje = cobertura
+                        + (double) enComun / (trigramasConsulta.size() + documento.trigramas.size() - enComun);
+                if (contiene) {
+                    puntaje += 1.0;
+                }
+                if (documento.palabras.stream().anyMatch(palabra -> palabra.startsWith(ultimaPalabra))) {
+                    puntaje += 0.5;
+                }
+                resultados.add(new Resultado(id, puntaje, documento.normalizado.length()));
+            }
+
+            return resultados.stream()
+                    .sorted(Comparator.comparingDouble(Resultado::puntaje).reversed()
+                            .thenComparingInt(Resultado::largo)
+                            .thenComparing(Resultado::id))
+                    .limit(limite)
+                    .map(Resultado::id)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * AUTOCOMPLETAR
+     * IDs cuyo nombre tiene una palabra que empieza por la última palabra escrita
+     * y contiene las anteriores (completas): primero los que empiezan por el texto,
+     * después los más cortos
+     */
+    public List<Long> sugerir(String prefijo, int limite) {
+        String consulta = normalizar(prefijo);
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+        int espacio = consulta.lastIndexOf(' ');
+        String ultimaPalabra = consulta.substring(espacio + 1);
+        List<String> anteriores = espacio < 0 ? List.of() : Arrays.asList(consulta.substring(0, espacio).split(" "));
+
+        lock.readLock().lock();
+        try {
+            // Rango de palabras [prefijo, prefijo + MAX_VALUE) del mapa ordenado
+            Set<Long> candidatos = new LinkedHashSet<>();
+            contenido.porPalabra.subMap(ultimaPalabra, true, ultimaPalabra + Character.MAX_VALUE, false)
+                    .values()
+                    .forEach(candidatos::addAll);
+
+            return candidatos.stream()
+                    .map(id -> Map.entry(id, contenido.documentos.get(id)))
+                    .filter(entrada -> entrada.getValue().palabras.containsAll(anteriores))
+                    .sorted(Comparator.<Map.Entry<Long, Documento>, Boolean>comparing(entrada -> !entrada.getValue().normalizado.startsWith(consulta))
+                            .thenComparingInt(entrada -> entrada.getValue().normalizado.length())
+                            .thenComparing(entrada -> entrada.getValue().normalizado)
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(limite)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    /**
+     * "Ratón Inalámbrico-USB" -> "raton inalambrico usb"
+     */
+    static String normalizar(String texto) {
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return NO_ALFANUMERICO.matcher(sinTildes.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    /**
+     * Trigramas de cada palabra con dos espacios delante y uno detrás
+     */
+    static Set<String> trigramas(String normalizado) {
+        Set<String> trigramas = new HashSet<>();
+        if (normalizado.isEmpty()) {
+            return trigramas;
+        }
+        for (String palabra : normalizado.split(" ")) {
+            String relleno = "  " + palabra + " ";
+            for (int i = 0; i + 3 <= relleno.length(); i++) {
+                trigramas.add(relleno.substring(i, i + 3));
+            }
+        }
+        return trigramas;
+    }
+
+    /**
+     * Documentos y listas invertidas; se modifica con el bloqueo exclusivo, salvo el que
+     * arma una reconstrucción, que nadie más ve hasta reemplazar al actual
+     */
+    private static class Contenido {
+        private final Map<Long, Documento> documentos = new HashMap<>();
+        private final Map<String, Set<Long>> porTrigrama = new HashMap<>();
+        private final NavigableMap<String, Set<Long>> porPalabra = new TreeMap<>();
+
+        private void agregar(Long id, Documento documento) {
+            quitar(id);
+            documentos.put(id, documento);
+            documento.trigramas.forEach(trigrama -> porTrigrama.computeIfAbsent(trigrama, t -> new HashSet<>()).add(id));
+            documento.palabras.forEach(palabra -> porPalabra.computeIfAbsent(palabra, p -> new HashSet<>()).add(id));
+        }
+
+        private void quitar(Long id) {
+            Documento anterior = documentos.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            anterior.trigramas.forEach(trigrama -> quitarDeLista(porTrigrama, trigrama, id));
+            anterior.palabras.forEach(palabra -> quitarDeLista(porPalabra, palabra, id));
+        }
+
+        private static void quitarDeLista(Map<String, Set<Long>> indice, String clave, Long id) {
+            Set<Long> ids = indice.get(clave);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                indice.remove(clave);
+            }
+        }
+    }
+
+    private static class Documento {
+        private final String nombre;
+        private final String normalizado;
+        private final Set<String> trigramas;
+        private final Set<String> palabras;
+
+        private Documento(String nombre) {
+            this.nombre = nombre;
+            this.normalizado = normalizar(nombre);
+            this.trigramas = trigramas(normalizado);
+            this.palabras = normalizado.isEmpty() ? Set.of() : new HashSet<>(Arrays.asList(normalizado.split(" ")));
+        }
+    }
+
+    private static class Resultado {
+        private final Long id;
+        private final double puntaje;
+        private final int largo;
+
+        private Resultado(Long id, double puntaje, int largo) {
+            this.id = id;
+            this.puntaje = puntaje;
+            this.largo = largo;
+        }
+
+        private Long id() {
+            return id;
+        }
+
+        private double puntaje() {
+            return puntaje;
+        }
+
+        private int largo() {
+            return largo;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.tienda.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * MENSAJE DE INVALIDACIÓN DE LA CACHÉ DE SEGUNDO NIVEL
+ * Lo que cambió en una transacción confirmada: se publica como evento de Spring (bus local)
+ * para que lo reenvíe a los demás nodos quien conecte el bus con un broker. Cada nodo que
+ * lo recibe con otro nodoOrigen saca esas entradas de su caché (ver CacheSegundoNivel).
+ */
+public class InvalidacionCache {
+
+    private String nodoOrigen;
+    private Set<Long> productos = new HashSet<>();
+    private Set<Long> categorias = new HashSet<>();
+
+    /**
+     * Productos cuya colección de categorías cambió
+     */
+    private Set<Long> categoriasDeProductos = new HashSet<>();
+
+    // ===== CONSTRUCTORES =====
+
+    public InvalidacionCache() {}
+
+    public InvalidacionCache(String nodoOrigen) {
+        this.nodoOrigen = nodoOrigen;
+    }
+
+    public boolean vacio() {
+        return productos.isEmpty() && categorias.isEmpty() && categoriasDeProductos.isEmpty();
+    }
+
+    // ===== GETTERS Y SETTERS =====
+
+    public String getNodoOrigen() {
+        return nodoOrigen;
+    }
+
+    public void setNodoOrigen(String nodoOrigen) {
+        this.nodoOrigen = nodoOrigen;
+    }
+
+    public Set<Long> getProductos() {
+        return productos;
+    }
+
+    public void setProductos(Set<Long> productos) {
+        this.productos = productos;
+    }
+
+    public Set<Long> getCategorias() {
+        return categorias;
+    }
+
+    public void setCategorias(Set<Long> categorias) {
+        this.categorias = categorias;
+    }
+
+    public Set<Long> getCategoriasDeProductos() {
+        return categoriasDeProductos;
+    }
+
+    public void setCategoriasDeProductos(Set<Long> categoriasDeProductos) {
+        this.categoriasDeProductos = categoriasDeProductos;
+    }
+}
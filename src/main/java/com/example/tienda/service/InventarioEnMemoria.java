@@ -0,0 +1,230 @@
+package com.example.tienda.service;
+
+import com.example.tienda.entity.ItemPedido;
+import com.example.tienda.repository.ItemPedidoRepository;
+import com.example.tienda.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * INVENTARIO EN MEMORIA PARA VENTAS FLASH
+ * Para los productos configurados en tienda.inventario.memoria.productos, el stock
+ * disponible se lleva en un contador en memoria (AtomicInteger + CAS) en lugar de
+ * bloquear la fila del producto en cada pedido.
+ *
+ * - Los pedidos reservan contra el contador y marcan sus items con stockPendiente = true
+ * - Un proceso periódico suma los items pendientes y descuenta el total en productos
+ *   (un UPDATE por producto y lote, no uno por pedido)
+ * - Al arrancar, antes de que el servidor web acepte peticiones, se aplican los pendientes
+ *   que quedaron de una caída y se cargan los contadores
+ *
+ * Si la lista de productos está vacía, este componente no hace nada.
+ */
+@Component
+public class InventarioEnMemoria implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(InventarioEnMemoria.class);
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ItemPedidoRepository itemPedidoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private CacheSegundoNivel cacheSegundoNivel;
+
+    /**
+     * Productos que usan el inventario en memoria (configurable por producto)
+     */
+    @Value("${tienda.inventario.memoria.productos:}")
+    private Set<Long> productosConfigurados;
+
+    /**
+     * Cantidad máxima de items que se vuelcan en cada transacción
+     */
+    @Value("${tienda.inventario.memoria.tamano-lote:500}")
+    private int tamanoLote;
+
+    /**
+     * Stock disponible por producto. Solo contiene productos ya cargados:
+     * mientras un producto no esté aquí se usa la reserva normal en base de datos
+     */
+    private final Map<Long, AtomicInteger> disponibles = new ConcurrentHashMap<>();
+
+    /**
+     * Indica si el producto reserva stock en memoria
+     */
+    public boolean gestiona(Long productoId) {
+        return disponibles.containsKey(productoId);
+    }
+
+    /**
+     * Stock disponible según el contador en memoria
+     */
+    public int disponible(Long productoId) {
+        AtomicInteger contador = disponibles.get(productoId);
+        return contador != null ? contador.get() : 0;
+    }
+
+    /**
+     * Reservar unidades con un bucle CAS: nunca deja el contador en negativo
+     */
+    public boolean reservar(Long productoId, int cantidad) {
+        AtomicInteger contador = disponibles.get(productoId);
+        if (contador == null) {
+            return false;
+        }
+        while (true) {
+            int actual = contador.get();
+            if (actual < cantidad) {
+                return false;
+            }
+            if (contador.compareAndSet(actual, actual - cantidad)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Devolver unidades al contador (rollback o cancelación); negativo para quitarlas
+     */
+    public void liberar(Long productoId, int cantidad) {
+        AtomicInteger contador = disponibles.get(productoId);
+        if (contador != null) {
+            contador.addAndGet(cantidad);
+        }
+    }
+
+    /**
+     * Devolver al contador las reservas hechas en la transacción actual si esta NO se confirma
+     * (una excepción posterior deshace el pedido pero no los contadores en memoria)
+     */
+    public void liberarSiNoSeConfirma(Map<Long, Integer> reservas) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reservas.forEach(InventarioEnMemoria.this::liberar);
+                }
+            }
+        });
+    }
+
+    /**
+     * Devolver unidades al contador solo cuando la transacción actual se confirme
+     */
+    public void liberarAlConfirmar(Long productoId, int cantidad) {
+        TrasConfirmar.ejecutar(() -> liberar(productoId, cantidad));
+    }
+
+    /**
+     * El stock del producto se fijó a mano (actualizarStock): sumar la diferencia al contador
+     * cuando la transacción se confirme
+     * Una diferencia y no un valor nuevo: las reservas CAS en curso y los items pendientes de
+     * transacciones sin confirmar ya descontaron del contador y se conservan. Si la transacción
+     * se deshace, el contador no cambia
+     */
+    public void ajustarAlConfirmar(Long productoId, int diferencia) {
+        if (diferencia == 0 || !productosConfigurados.contains(productoId)) {
+            return;
+        }
+        TrasConfirmar.ejecutar(() -> liberar(productoId, diferencia));
+    }
+
+    /**
+     * RECONCILIACIÓN AL ARRANCAR
+     * 1. Aplica a productos todos los items que quedaron pendientes (por ejemplo tras una caída)
+     * 2. Carga los contadores con el stock real de la base de datos
+     * El paso 1 se hace siempre, aunque ya no haya productos configurados,
+     * para no dejar stock sin descontar si se desactivó el modo tras una caída
+     * Con todos los beans creados pero antes de arrancar el servidor web (ApplicationReadyEvent
+     * llega con Tomcat ya aceptando peticiones): en ese intervalo un pedido de un producto
+     * configurado reservaría en la base de datos contra un stock que aún incluye los pendientes,
+     * y el volcado posterior lo dejaría en negativo. También antes de ColaPedidos.retomarPendientes,
+     * que reserva sobre los contadores
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconciliar();
+    }
+
+    private void reconciliar() {
+        int aplicados;
+        do {
+            aplicados = volcarLote();
+        } while (aplicados > 0);
+
+        if (productosConfigurados.isEmpty()) {
+            return;
+        }
+
+        for (Long productoId : productosConfigurados) {
+            productoRepository.findStockById(productoId).ifPresentOrElse(
+                    stock -> disponibles.put(productoId, new AtomicInteger(stock)),
+                    () -> log.warn("Producto {} configurado en inventario en memoria no existe", productoId));
+        }
+        log.info("Inventario en memoria activo para productos {}", disponibles.keySet());
+    }
+
+    /**
+     * VOLCADO PERIÓDICO de las reservas en memoria a la tabla productos
+     */
+    @Scheduled(fixedDelayString = "${tienda.inventario.memoria.intervalo-volcado-ms:500}")
+    public void volcarPendientes() {
+        if (disponibles.isEmpty()) {
+            return;
+        }
+        volcarLote();
+    }
+
+    /**
+     * Volcar un lote de items pendientes en una sola transacción
+     * Devuelve cuántos items se aplicaron
+     */
+    private int volcarLote() {
+        Integer aplicados = new TransactionTemplate(transactionManager).execute(status -> {
+            List<ItemPedido> pendientes = itemPedidoRepository.findConStockPendiente(PageRequest.of(0, tamanoLote));
+            if (pendientes.isEmpty()) {
+                return 0;
+            }
+
+            // Sumar las unidades por producto: un UPDATE por producto, no por item
+            Map<Long, Long> deltas = new HashMap<>();
+            for (ItemPedido item : pendientes) {
+                deltas.merge(item.getProducto().getId(), item.getCantidad().longValue(), Long::sum);
+            }
+            cacheSegundoNivel.stockModificado(deltas.keySet());
+            deltas.forEach(productoRepository::descontarStock);
+            catalogoCache.invalidarProductos(deltas.keySet());
+
+            itemPedidoRepository.marcarStockAplicado(
+                    pendientes.stream().map(ItemPedido::getId).collect(Collectors.toList()));
+            return pendientes.size();
+        });
+        return aplicados != null ? aplicados : 0;
+    }
+}
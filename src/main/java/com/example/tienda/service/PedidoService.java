@@ -1,14 +1,45 @@
 package com.example.tienda.service;
 
+import com.example.tienda.config.ContadorSentencias;
+import com.example.tienda.config.PresupuestoSentenciasExcedido;
 import com.example.tienda.entity.*;
 import com.example.tienda.repository.*;
+import com.example.tienda.dto.CambioEstadoLoteDTO;
+import com.example.tienda.dto.EstadoPedidoDTO;
+import com.example.tienda.dto.PedidoDTO;
+import com.example.tienda.dto.ResultadoPedidoLoteDTO;
 import com.example.tienda.dto.TotalClienteDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * SERVICIO PEDIDO
@@ -16,11 +47,16 @@ import java.util.Optional;
  * - Creación de pedidos con validación de stock
  * - Cálculo de totales
  * - Manejo de estados de pedidos
+ * Cada pedido creado y cada cambio de estado deja un EventoPedido en la misma transacción
+ * (outbox, ver PublicadorEventosPedido)
  */
 @Service
 @Transactional
+@Timed(value = "tienda.servicio", histogram = true) // un timer por método público (ver MetricasConfig)
 public class PedidoService {
 
+    private static final Logger log = LoggerFactory.getLogger(PedidoService.class);
+
     @Autowired
     private PedidoRepository pedidoRepository;
 
@@ -33,67 +69,263 @@ public class PedidoService {
     @Autowired
     private ItemPedidoRepository itemPedidoRepository;
 
+    @Autowired
+    private InventarioEnMemoria inventarioEnMemoria;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private CacheSegundoNivel cacheSegundoNivel;
+
+    @Autowired
+    private TotalesClienteService totalesClienteService;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @Autowired
+    private EventoPedidoRepository eventoPedidoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ContadorSentencias contadorSentencias;
+
+    /**
+     * Largo máximo del carrito guardado en un pedido asíncrono (columna carrito_pendiente)
+     */
+    private static final int LARGO_MAXIMO_CARRITO = 4000;
+
+    /**
+     * Medición de cada bloque de la carga en lote (su presupuesto: tienda.sentencias.presupuestos)
+     */
+    private static final String BLOQUE_LOTE = "PedidoService.crearPedidosEnLote.bloque";
+
+    /**
+     * Pedidos por transacción en la carga en lote
+     */
+    @Value("${tienda.pedidos.lote.pedidos-por-transaccion:200}")
+    private int pedidosPorTransaccion;
+
+    /**
+     * Máximo de pedidos aceptados en una petición de carga en lote
+     */
+    @Value("${tienda.pedidos.lote.maximo:10000}")
+    private int maximoPedidosPorLote;
+
+    /**
+     * Máximo de pedidos por cambio de estado en lote (IDs recibidos o pedidos tomados por filtro)
+     */
+    @Value("${tienda.pedidos.estado-lote.maximo:5000}")
+    private int maximoCambioEstadoLote;
+
     /**
      * CREAR PEDIDO - MÉTODO MÁS IMPORTANTE
      * Valida stock, crea items, calcula total y actualiza inventario
+     * El stock se reserva con UPDATE condicionales (ver reservarStock) y los productos
+     * del carrito se cargan en UNA sola consulta (findAllById)
      */
-    public Pedido crearPedido(Long clienteId, List<ItemPedidoRequest> itemsRequest) {
+    public PedidoDTO crearPedido(Long clienteId, List<ItemPedidoRequest> itemsRequest) {
         // 1. Validar que el cliente existe
         Cliente cliente = clienteRepository.findById(clienteId)
                 .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado con ID: " + clienteId));
 
-        // 2. Crear el pedido
-        Pedido pedido = new Pedido(cliente);
+        // 2. Validar el carrito: cantidades y que no se repite ningún producto (constraint único)
+        //    Se hace en memoria: el pedido aún no existe en BD, no hace falta consultarla
+        Set<Long> productoIds = validarCarrito(itemsRequest);
 
-        // 3. Procesar cada item del pedido
-        for (ItemPedidoRequest itemRequest : itemsRequest) {
-            // 3.1 Validar que el producto existe
-            Producto producto = productoRepository.findById(itemRequest.getProductoId())
-                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + itemRequest.getProductoId()));
+        // 3. RESERVAR STOCK de todo el carrito con UPDATE condicionales
+        //    (o en memoria para los productos de venta flash)
+        Set<Long> reservadosEnMemoria = reservarStock(itemsRequest);
 
-            // 3.2 Validar que no existe ya este producto en el pedido (constraint único)
-            if (itemPedidoRepository.existsByPedidoIdAndProductoId(pedido.getId(), producto.getId())) {
-                throw new IllegalArgumentException("El producto " + producto.getNombre() + " ya está en el pedido");
-            }
+        // 4. Cargar TODOS los productos del carrito en una sola consulta
+        //    Se cargan después de reservar, así traen el stock ya descontado
+        Map<Long, Producto> productos = productoRepository.findAllById(productoIds).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
 
-            // 3.3 VALIDAR STOCK DISPONIBLE
-            if (!producto.tieneStockSuficiente(itemRequest.getCantidad())) {
-                throw new IllegalArgumentException("Stock insuficiente para " + producto.getNombre() +
-                    ". Disponible: " + producto.getStock() + ", solicitado: " + itemRequest.getCantidad());
-            }
+        // 5. Crear el pedido con sus items y su total (stock ya reservado)
+        Pedido pedido = armarPedido(cliente, itemsRequest, productos, reservadosEnMemoria);
 
-            // 3.4 REDUCIR STOCK DEL PRODUCTO
-            producto.reducirStock(itemRequest.getCantidad());
+        // 6. Guardar todo (cascade salvará los items)
+        Pedido guardado = pedidoRepository.save(pedido);
 
-            // 3.5 Crear el item del pedido con el precio actual del producto
-            ItemPedido item = new ItemPedido(pedido, producto, itemRequest.getCantidad(), producto.getPrecio());
+        // 7. El stock de estos productos cambió: invalidar solo sus entradas en caché
+        catalogoCache.invalidarProductos(productoIds);
+
+        // 8. Sumar el pedido al total materializado del cliente
+        totalesClienteService.pedidoCreado(clienteId, guardado.getTotal());
+
+        // 9. Evento de pedido creado (outbox)
+        eventoPedidoRepository.save(new EventoPedido(guardado, null));
+        return PedidoDTO.desde(guardado);
+    }
 
-            // 3.6 Agregar el item al pedido
-            pedido.addItem(item);
+    /**
+     * CREAR PEDIDO CON CLAVE DE IDEMPOTENCIA (la usa IdempotenciaPedidos)
+     * La clave se registra antes de reservar stock: si ya está registrada falla ahí
+     * (DataIntegrityViolationException, o PessimisticLockingFailureException si quien la
+     * registró todavía no confirmó) y la transacción se deshace sin haber hecho nada
+     */
+    public PedidoDTO crearPedido(Long clienteId, List<ItemPedidoRequest> itemsRequest, String clave, String huella) {
+        claveIdempotenciaRepository.registrar(clave, huella, LocalDateTime.now());
+        PedidoDTO pedido = crearPedido(clienteId, itemsRequest);
+        claveIdempotenciaRepository.asignarPedido(clave, pedido.getId());
+        return pedido;
+    }
+
+    /**
+     * PEDIDO ASÍNCRONO, PASO 1: aceptar y reservar stock (lo llama ColaPedidos en el hilo HTTP)
+     * Transacción corta: valida el cliente y el carrito, reserva el stock y guarda el pedido
+     * en NUEVO, sin items y con total 0. El carrito queda en carritoPendiente hasta el paso 2.
+     */
+    public Long aceptarPedido(Long clienteId, List<ItemPedidoRequest> itemsRequest) {
+        if (!clienteRepository.existsById(clienteId)) {
+            throw new IllegalArgumentException("Cliente no encontrado con ID: " + clienteId);
+        }
+        Set<Long> productoIds = validarCarrito(itemsRequest);
+        if (CarritoPendiente.escribir(itemsRequest, productoIds).length() > LARGO_MAXIMO_CARRITO) {
+            throw new IllegalArgumentException("El carrito es demasiado grande para un pedido asíncrono");
         }
 
-        // 4. CALCULAR TOTAL DEL PEDIDO
-        pedido.calcularTotal();
+        Set<Long> reservadosEnMemoria = reservarStock(itemsRequest);
+
+        Pedido pedido = new Pedido(clienteRepository.getReferenceById(clienteId));
+        pedido.setCarritoPendiente(CarritoPendiente.escribir(itemsRequest, reservadosEnMemoria));
+        Long pedidoId = pedidoRepository.save(pedido).getId();
 
-        // 5. Guardar todo (cascade salvará los items)
-        return pedidoRepository.save(pedido);
+        catalogoCache.invalidarProductos(productoIds);
+        return pedidoId;
     }
 
     /**
-     * Buscar pedido por ID con todos sus items cargados
+     * PEDIDO ASÍNCRONO, PASO 2: precios, items y total (en un hilo de ColaPedidos)
+     * El stock ya se reservó en el paso 1; si el pedido ya se completó no hace nada
+     */
+    public void completarPedido(Long pedidoId) {
+        Pedido pedido = pedidoRepository.findById(pedidoId)
+                .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado con ID: " + pedidoId));
+        if (pedido.getCarritoPendiente() == null) {
+            return;
+        }
+        CarritoPendiente carrito = CarritoPendiente.leer(pedido.getCarritoPendiente());
+
+        Map<Long, Producto> productos = productoRepository.findAllById(carrito.productoIds()).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        agregarItems(pedido, carrito.items, productos, carrito.enMemoria);
+        pedido.setCarritoPendiente(null);
+
+        totalesClienteService.pedidoCreado(pedido.getCliente().getId(), pedido.getTotal());
+        eventoPedidoRepository.save(new EventoPedido(pedido, null));
+    }
+
+    /**
+     * PEDIDO ASÍNCRONO FALLIDO: devolver el stock reservado en el paso 1 y cancelarlo
+     * Sin evento: para los consumidores este pedido nunca se creó
+     */
+    public void descartarPedido(Long pedidoId) {
+        Pedido pedido = pedidoRepository.findById(pedidoId)
+                .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado con ID: " + pedidoId));
+        if (pedido.getCarritoPendiente() == null) {
+            return;
+        }
+        CarritoPendiente carrito = CarritoPendiente.leer(pedido.getCarritoPendiente());
+        devolverReservas(carrito.items, carrito.enMemoria);
+
+        pedido.setCarritoPendiente(null);
+        pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
+    }
+
+    /**
+     * PEDIDO ASÍNCRONO QUE QUEDÓ PENDIENTE AL REINICIAR (lo llama ColaPedidos al arrancar)
+     * Lo reservado en BD sigue en productos, pero las reservas en memoria se perdieron con el
+     * proceso: se vuelven a hacer (o en BD, si el producto ya no usa inventario en memoria).
+     * Si alguna ya no alcanza, se devuelve todo y el pedido se cancela. Devuelve si sigue en curso.
+     */
+    public boolean retomarPedido(Long pedidoId) {
+        Pedido pedido = pedidoRepository.findById(pedidoId)
+                .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado con ID: " + pedidoId));
+        if (pedido.getCarritoPendiente() == null) {
+            return false;
+        }
+        CarritoPendiente carrito = CarritoPendiente.leer(pedido.getCarritoPendiente());
+        List<ItemPedidoRequest> perdidos = carrito.items.stream()
+                .filter(item -> carrito.enMemoria.contains(item.getProductoId()))
+                .collect(Collectors.toList());
+        List<ItemPedidoRequest> conservados = carrito.items.stream()
+                .filter(item -> !carrito.enMemoria.contains(item.getProductoId()))
+                .collect(Collectors.toList());
+        try {
+            Set<Long> reservadosEnMemoria = perdidos.isEmpty() ? Set.of() : reservarStock(perdidos);
+            pedido.setCarritoPendiente(CarritoPendiente.escribir(carrito.items, reservadosEnMemoria));
+            return true;
+        } catch (IllegalArgumentException e) {
+            log.warn("Pedido asíncrono {} cancelado al retomarlo: {}", pedidoId, e.getMessage());
+            devolverReservas(conservados, Set.of());
+            pedido.setCarritoPendiente(null);
+            pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
+            return false;
+        }
+    }
+
+    /**
+     * CREAR PEDIDOS EN LOTE (integraciones que envían miles de pedidos de una vez)
+     * - Cada pedido se acepta o rechaza por separado: un rechazo no deshace a los demás
+     * - Se procesan en bloques de pedidosPorTransaccion, cada bloque en su propia transacción,
+     *   para no retener los bloqueos de stock durante toda la carga
+     * - En cada bloque los clientes y productos se cargan en una consulta, y los INSERT de
+     *   pedidos e items se envían en lotes JDBC (IDs por secuencia + hibernate.jdbc.batch_size)
+     * Si un bloque falla al guardarse (error de base de datos), sus pedidos se informan como rechazados.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ResultadoPedidoLoteDTO> crearPedidosEnLote(List<PedidoLoteRequest> pedidosRequest) {
+        if (pedidosRequest.size() > maximoPedidosPorLote) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maximoPedidosPorLote + " pedidos");
+        }
+
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        List<ResultadoPedidoLoteDTO> resultados = new ArrayList<>(pedidosRequest.size());
+        for (int inicio = 0; inicio < pedidosRequest.size(); inicio += pedidosPorTransaccion) {
+            int desde = inicio;
+            List<PedidoLoteRequest> bloque = pedidosRequest.subList(desde,
+                    Math.min(desde + pedidosPorTransaccion, pedidosRequest.size()));
+            try {
+                // Cada bloque se mide con su propio presupuesto de sentencias (el commit incluido)
+                resultados.addAll(contadorSentencias.porBloque(BLOQUE_LOTE,
+                        () -> transaccion.execute(status -> procesarBloque(bloque, desde))));
+            } catch (PresupuestoSentenciasExcedido e) {
+                throw e; // un N+1 en el bloque no es un rechazo de sus pedidos
+            } catch (RuntimeException e) {
+                log.warn("Bloque de pedidos {}..{} rechazado", desde, desde + bloque.size() - 1, e);
+                for (int i = 0; i < bloque.size(); i++) {
+                    resultados.add(ResultadoPedidoLoteDTO.rechazado(desde + i, "Error al guardar el bloque: " + e.getMessage()));
+                }
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Buscar pedido por ID con todos sus items (una consulta, proyectada a DTO)
      */
     @Transactional(readOnly = true)
-    public Optional<Pedido> buscarPedidoConItems(Long pedidoId) {
-        return pedidoRepository.findWithItemsById(pedidoId);
+    public Optional<PedidoDTO> buscarPedidoConItems(Long pedidoId) {
+        return PedidoDTO.agrupar(pedidoRepository.findLineasById(pedidoId)).stream().findFirst();
     }
 
     /**
      * CAMBIAR ESTADO DE PEDIDO con validaciones de negocio
      */
-    public Pedido cambiarEstado(Long pedidoId, Pedido.EstadoPedido nuevoEstado) {
-        Pedido pedido = pedidoRepository.findById(pedidoId)
+    public PedidoDTO cambiarEstado(Long pedidoId, Pedido.EstadoPedido nuevoEstado) {
+        // Bloqueado antes de validar: dos cambios concurrentes (o un cambio y una cancelación)
+        // no pueden partir del mismo estado ni restar dos veces el total del cliente.
+        // Se carga con items y productos: la respuesta los incluye
+        Pedido pedido = pedidoRepository.bloquearPorId(pedidoId)
+                .flatMap(bloqueado -> pedidoRepository.findWithItemsById(pedidoId))
                 .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado con ID: " + pedidoId));
 
+        validarCompleto(pedido);
         Pedido.EstadoPedido estadoActual = pedido.getEstado();
 
         // Validar transiciones de estado permitidas
@@ -101,47 +333,441 @@ public class PedidoService {
             throw new IllegalArgumentException("No se puede cambiar de " + estadoActual + " a " + nuevoEstado);
         }
 
+        if (nuevoEstado == Pedido.EstadoPedido.CANCELADO) {
+            totalesClienteService.pedidoCancelado(pedido.getCliente().getId(), pedido.getTotal());
+        }
+
         pedido.setEstado(nuevoEstado);
-        return pedidoRepository.save(pedido);
+        eventoPedidoRepository.save(new EventoPedido(pedido, estadoActual));
+        return PedidoDTO.desde(pedidoRepository.save(pedido));
     }
 
     /**
      * CANCELAR PEDIDO y revertir stock
      */
-    public Pedido cancelarPedido(Long pedidoId) {
-        Pedido pedido = pedidoRepository.findWithItemsById(pedidoId)
+    public PedidoDTO cancelarPedido(Long pedidoId) {
+        // Primero el bloqueo: dos cancelaciones del mismo pedido no pueden devolver el stock
+        // (ni restar el total) dos veces. Después, los items para la respuesta
+        Pedido pedido = pedidoRepository.bloquearPorId(pedidoId)
+                .flatMap(bloqueado -> pedidoRepository.findWithItemsById(pedidoId))
                 .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado con ID: " + pedidoId));
 
+        validarCompleto(pedido);
         if (!pedido.puedeSerCancelado()) {
             throw new IllegalArgumentException("El pedido en estado " + pedido.getEstado() + " no puede ser cancelado");
         }
 
-        // REVERTIR STOCK de todos los productos
-        for (ItemPedido item : pedido.getItems()) {
-            Producto producto = item.getProducto();
-            producto.aumentarStock(item.getCantidad());
-            productoRepository.save(producto);
-        }
+        // REVERTIR STOCK de todos los productos: un UPDATE para todo el pedido (incremento atómico)
+        devolverStockDePedidos(List.of(pedidoId));
+
+        totalesClienteService.pedidoCancelado(pedido.getCliente().getId(), pedido.getTotal());
 
         // Cambiar estado a cancelado
+        Pedido.EstadoPedido estadoAnterior = pedido.getEstado();
         pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
-        return pedidoRepository.save(pedido);
+        eventoPedidoRepository.save(new EventoPedido(pedido, estadoAnterior));
+        return PedidoDTO.desde(pedidoRepository.save(pedido));
+    }
+
+    /**
+     * CAMBIAR ESTADO EN LOTE (lista de IDs)
+     * En lugar de cargar y guardar cada pedido: un SELECT ... FOR UPDATE con los que pueden
+     * cambiar, un UPDATE por conjunto (WHERE estado IN orígenes válidos) y sus EventoPedido en
+     * lotes JDBC. Los demás se devuelven como rechazados, con el motivo.
+     */
+    public CambioEstadoLoteDTO cambiarEstadoEnLote(Collection<Long> ids, Pedido.EstadoPedido nuevoEstado) {
+        Set<Long> pedidoIds = idsDeLote(ids);
+        Set<Pedido.EstadoPedido> origenes = origenesEnLote(nuevoEstado);
+        CambioEstadoLoteDTO resultado = aplicarCambioDeEstado(
+                pedidoRepository.bloquearParaCambioDeEstado(pedidoIds, origenes), origenes, nuevoEstado);
+        informarRechazados(resultado, pedidoIds);
+        return resultado;
     }
 
     /**
-     * Listar pedidos de un cliente
+     * CAMBIAR ESTADO EN LOTE por filtro: los pedidos en estadoActual anteriores a antesDe
+     * Como máximo tienda.pedidos.estado-lote.maximo por llamada (los más antiguos por ID);
+     * si se cambiaron tantos, puede quedar más: repetir la llamada
+     */
+    public CambioEstadoLoteDTO cambiarEstadoPorFiltro(Pedido.EstadoPedido estadoActual, LocalDateTime antesDe,
+                                                      Pedido.EstadoPedido nuevoEstado) {
+        Set<Pedido.EstadoPedido> origenes = origenesEnLote(nuevoEstado);
+        if (!origenes.contains(estadoActual)) {
+            throw new IllegalArgumentException("No se puede cambiar de " + estadoActual + " a " + nuevoEstado);
+        }
+        return aplicarCambioDeEstado(pedidoRepository.bloquearParaCambioDeEstado(
+                estadoActual, antesDe, PageRequest.of(0, maximoCambioEstadoLote)), origenes, nuevoEstado);
+    }
+
+    /**
+     * CANCELAR PEDIDOS EN LOTE y devolver su stock, todo en una transacción
+     * Lo mismo que cancelarPedido, por conjunto: bloquear los cancelables, devolver el stock
+     * de todos sus items (devolverStockDePedidos), restar los totales de cada cliente una vez,
+     * y un UPDATE de estado con sus EventoPedido. Los demás se devuelven como rechazados
+     */
+    public CambioEstadoLoteDTO cancelarPedidosEnLote(Collection<Long> ids) {
+        Set<Long> pedidoIds = idsDeLote(ids);
+        Set<Pedido.EstadoPedido> origenes = origenesValidos(Pedido.EstadoPedido.CANCELADO);
+        List<EstadoPedidoDTO> cancelables = pedidoRepository.bloquearParaCambioDeEstado(pedidoIds, origenes);
+        if (!cancelables.isEmpty()) {
+            devolverStockDePedidos(cancelables.stream().map(EstadoPedidoDTO::getPedidoId).collect(Collectors.toList()));
+            cancelables.stream()
+                    .collect(Collectors.groupingBy(EstadoPedidoDTO::getClienteId,
+                            Collectors.reducing(BigDecimal.ZERO, EstadoPedidoDTO::getTotal, BigDecimal::add)))
+                    .forEach(totalesClienteService::pedidoCancelado);
+        }
+        CambioEstadoLoteDTO resultado = aplicarCambioDeEstado(cancelables, origenes, Pedido.EstadoPedido.CANCELADO);
+        informarRechazados(resultado, pedidoIds);
+        return resultado;
+    }
+
+    /**
+     * Listar pedidos de un cliente con sus items (una consulta para todos los pedidos)
      */
     @Transactional(readOnly = true)
-    public List<Pedido> listarPedidosDeCliente(Long clienteId) {
-        return pedidoRepository.findByClienteIdOrderByFechaDesc(clienteId);
+    public List<PedidoDTO> listarPedidosDeCliente(Long clienteId) {
+        return PedidoDTO.agrupar(pedidoRepository.findLineasByClienteId(clienteId));
     }
 
     /**
      * Obtener resumen de totales por cliente
+     * Se lee de la tabla materializada (ver TotalesClienteService), no se agrupan los pedidos
      */
     @Transactional(readOnly = true)
-    public List<TotalClienteDTO> obtenerTotalesPorCliente() {
-        return pedidoRepository.findTotalPorCliente();
+    public Page<TotalClienteDTO> obtenerTotalesPorCliente(Pageable pageable) {
+        return totalesClienteService.ranking(pageable);
+    }
+
+    /**
+     * Procesar un bloque de la carga en lote (dentro de su transacción)
+     */
+    private List<ResultadoPedidoLoteDTO> procesarBloque(List<PedidoLoteRequest> bloque, int desde) {
+        // 1. Los clientes del bloque que existen, en una consulta (los pedidos solo necesitan
+        //    una referencia al cliente, no sus datos)
+        Set<Long> clientes = new HashSet<>(clienteRepository.findIdsExistentes(bloque.stream()
+                .map(PedidoLoteRequest::getClienteId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())));
+
+        // 2. Validar y reservar stock pedido por pedido; un fallo solo rechaza ese pedido
+        //    (reservarStock devuelve lo que alcanzó a reservar antes de lanzar la excepción)
+        ResultadoPedidoLoteDTO[] resultados = new ResultadoPedidoLoteDTO[bloque.size()];
+        Map<Integer, Set<Long>> aceptados = new LinkedHashMap<>();
+        Set<Long> productoIds = new HashSet<>();
+        for (int i = 0; i < bloque.size(); i++) {
+            PedidoLoteRequest pedidoRequest = bloque.get(i);
+            try {
+                if (!clientes.contains(pedidoRequest.getClienteId())) {
+                    throw new IllegalArgumentException("Cliente no encontrado con ID: " + pedidoRequest.getClienteId());
+                }
+                productoIds.addAll(validarCarrito(pedidoRequest.getItems()));
+                aceptados.put(i, reservarStock(pedidoRequest.getItems()));
+            } catch (IllegalArgumentException e) {
+                resultados[i] = ResultadoPedidoLoteDTO.rechazado(desde + i, e.getMessage());
+            }
+        }
+
+        // 3. Todos los productos de los pedidos aceptados en una consulta
+        Map<Long, Producto> productos = productoRepository.findAllById(productoIds).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        // 4. Armar y guardar los pedidos: los INSERT se agrupan en lotes al confirmar
+        Map<Integer, Pedido> pedidos = new LinkedHashMap<>();
+        aceptados.forEach((i, reservadosEnMemoria) -> {
+            PedidoLoteRequest pedidoRequest = bloque.get(i);
+            pedidos.put(i, armarPedido(clienteRepository.getReferenceById(pedidoRequest.getClienteId()),
+                    pedidoRequest.getItems(), productos, reservadosEnMemoria));
+        });
+        pedidoRepository.saveAll(pedidos.values());
+        eventoPedidoRepository.saveAll(pedidos.values().stream()
+                .map(pedido -> new EventoPedido(pedido, null))
+                .collect(Collectors.toList()));
+
+        // 5. Totales por cliente: un UPDATE por cliente del bloque, no por pedido
+        //    (son de a uno por cliente a propósito: no cuentan para el detector de N+1)
+        Map<Long, BigDecimal> totalesPorCliente = new HashMap<>();
+        pedidos.values().forEach(pedido ->
+                totalesPorCliente.merge(pedido.getCliente().getId(), pedido.getTotal(), BigDecimal::add));
+        contadorSentencias.porElemento(() -> totalesPorCliente.forEach(totalesClienteService::pedidoCreado));
+
+        catalogoCache.invalidarProductos(productoIds);
+
+        pedidos.forEach((i, pedido) ->
+                resultados[i] = ResultadoPedidoLoteDTO.aceptado(desde + i, pedido.getId(), pedido.getTotal()));
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Validar el carrito antes de reservar nada: al menos un item, cantidades positivas
+     * y sin productos repetidos (constraint único)
+     * Devuelve los IDs de producto en el orden del carrito
+     */
+    private Set<Long> validarCarrito(List<ItemPedidoRequest> itemsRequest) {
+        if (itemsRequest == null || itemsRequest.isEmpty()) {
+            throw new IllegalArgumentException("El pedido debe tener al menos un item");
+        }
+        Set<Long> productoIds = new LinkedHashSet<>();
+        for (ItemPedidoRequest itemRequest : itemsRequest) {
+            if (itemRequest.getProductoId() == null) {
+                throw new IllegalArgumentException("Falta el ID de producto en un item del pedido");
+            }
+            if (itemRequest.getCantidad() == null || itemRequest.getCantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad debe ser mayor a cero para el producto " + itemRequest.getProductoId());
+            }
+            if (!productoIds.add(itemRequest.getProductoId())) {
+                throw new IllegalArgumentException("El producto con ID " + itemRequest.getProductoId() + " ya está en el pedido");
+            }
+        }
+        return productoIds;
+    }
+
+    /**
+     * Crear el pedido con sus items (stock ya reservado) y calcular su total
+     */
+    private Pedido armarPedido(Cliente cliente, List<ItemPedidoRequest> itemsRequest,
+                               Map<Long, Producto> productos, Set<Long> reservadosEnMemoria) {
+        Pedido pedido = new Pedido(cliente);
+        agregarItems(pedido, itemsRequest, productos, reservadosEnMemoria);
+        return pedido;
+    }
+
+    /**
+     * Agregar los items al pedido (stock ya reservado) y calcular su total
+     */
+    private void agregarItems(Pedido pedido, List<ItemPedidoRequest> itemsRequest,
+                              Map<Long, Producto> productos, Set<Long> reservadosEnMemoria) {
+        for (ItemPedidoRequest itemRequest : itemsRequest) {
+            Producto producto = productos.get(itemRequest.getProductoId());
+
+            // Crear el item del pedido con el precio actual del producto
+            ItemPedido item = new ItemPedido(pedido, producto, itemRequest.getCantidad(), producto.getPrecio());
+            if (reservadosEnMemoria.contains(producto.getId())) {
+                item.setStockPendiente(true); // el volcado periódico lo descontará de productos
+            }
+
+            // Agregar el item al pedido (el constructor ya enlazó item -> pedido)
+            // No usamos addItem para no recalcular el total en cada línea del carrito
+            pedido.getItems().add(item);
+        }
+
+        // CALCULAR TOTAL DEL PEDIDO (una sola vez para todo el carrito)
+        pedido.calcularTotal();
+    }
+
+    /**
+     * Devolver el stock de un carrito reservado que no llegó a tener items
+     */
+    private void devolverReservas(List<ItemPedidoRequest> itemsRequest, Set<Long> reservadosEnMemoria) {
+        List<Long> productoIds = itemsRequest.stream()
+                .map(ItemPedidoRequest::getProductoId)
+                .collect(Collectors.toList());
+        cacheSegundoNivel.stockModificado(productoIds.stream()
+                .filter(productoId -> !reservadosEnMemoria.contains(productoId))
+                .collect(Collectors.toList()));
+        contadorSentencias.porElemento(() -> {
+            for (ItemPedidoRequest itemRequest : itemsRequest) {
+                if (reservadosEnMemoria.contains(itemRequest.getProductoId())) {
+                    inventarioEnMemoria.liberarAlConfirmar(itemRequest.getProductoId(), itemRequest.getCantidad());
+                } else {
+                    productoRepository.devolverStock(itemRequest.getProductoId(), itemRequest.getCantidad());
+                }
+            }
+        });
+        catalogoCache.invalidarProductos(productoIds);
+    }
+
+    /**
+     * Un pedido asíncrono no cambia de estado hasta tener sus items
+     */
+    private void validarCompleto(Pedido pedido) {
+        if (pedido.getCarritoPendiente() != null) {
+            throw new IllegalArgumentException("El pedido " + pedido.getId() + " todavía se está procesando");
+        }
+    }
+
+    /**
+     * RESERVAR STOCK de todo el carrito
+     * Cada línea es un UPDATE condicional (stock >= cantidad) que devuelve las filas afectadas.
+     * Se reservan en orden de ID de producto para que dos carritos con los mismos productos
+     * no se bloqueen mutuamente. Si alguna línea falla, se devuelven las reservas que sí se
+     * hicieron y se lanza la excepción: así la transacción puede seguir con otros pedidos
+     * (carga en lote) sin arrastrar reservas de un pedido rechazado.
+     * Los productos con inventario en memoria reservan contra su contador, sin tocar la fila.
+     * Devuelve los IDs de producto reservados en memoria.
+     */
+    private Set<Long> reservarStock(List<ItemPedidoRequest> itemsRequest) {
+        List<ItemPedidoRequest> ordenados = new ArrayList<>(itemsRequest);
+        ordenados.sort(Comparator.comparing(ItemPedidoRequest::getProductoId));
+
+        Map<Long, Integer> reservasEnMemoria = new HashMap<>();
+        inventarioEnMemoria.liberarSiNoSeConfirma(reservasEnMemoria);
+
+        // Las filas de productos que se van a actualizar se bloquean en la caché de segundo nivel
+        cacheSegundoNivel.stockModificado(ordenados.stream()
+                .map(ItemPedidoRequest::getProductoId)
+                .filter(productoId -> !inventarioEnMemoria.gestiona(productoId))
+                .collect(Collectors.toList()));
+
+        // Un UPDATE por línea es parte del diseño: no cuenta para el detector de N+1
+        List<ItemPedidoRequest> reservadosEnBD = new ArrayList<>();
+        List<ItemPedidoRequest> fallidos = new ArrayList<>();
+        contadorSentencias.porElemento(() -> {
+            for (ItemPedidoRequest itemRequest : ordenados) {
+                Long productoId = itemRequest.getProductoId();
+                if (inventarioEnMemoria.gestiona(productoId)) {
+                    if (inventarioEnMemoria.reservar(productoId, itemRequest.getCantidad())) {
+                        reservasEnMemoria.put(productoId, itemRequest.getCantidad());
+                    } else {
+                        fallidos.add(itemRequest);
+                    }
+                } else if (productoRepository.reservarStock(productoId, itemRequest.getCantidad()) == 0) {
+                    fallidos.add(itemRequest);
+                } else {
+                    reservadosEnBD.add(itemRequest);
+                }
+            }
+        });
+
+        if (!fallidos.isEmpty()) {
+            contadorSentencias.porElemento(() -> reservadosEnBD.forEach(reservado ->
+                    productoRepository.devolverStock(reservado.getProductoId(), reservado.getCantidad())));
+            reservasEnMemoria.forEach(inventarioEnMemoria::liberar);
+            reservasEnMemoria.clear();
+            // Una consulta por carrito rechazado (en la carga en lote, por cada pedido sin stock)
+            throw new IllegalArgumentException(contadorSentencias.porElemento(() -> describirFallosDeReserva(fallidos)));
+        }
+        return reservasEnMemoria.keySet();
+    }
+
+    /**
+     * Construir el mensaje de error de una reserva fallida
+     * Solo se ejecuta en el camino de error: carga los productos fallidos en una consulta
+     */
+    private String describirFallosDeReserva(List<ItemPedidoRequest> fallidos) {
+        Map<Long, Producto> productos = productoRepository.findAllById(
+                        fallidos.stream().map(ItemPedidoRequest::getProductoId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        List<String> errores = new ArrayList<>();
+        for (ItemPedidoRequest itemRequest : fallidos) {
+            Producto producto = productos.get(itemRequest.getProductoId());
+            if (producto == null) {
+                errores.add("Producto no encontrado con ID: " + itemRequest.getProductoId());
+            } else {
+                int disponible = inventarioEnMemoria.gestiona(producto.getId())
+                        ? inventarioEnMemoria.disponible(producto.getId())
+                        : producto.getStock();
+                errores.add("Stock insuficiente para " + producto.getNombre() +
+                    ". Disponible: " + disponible + ", solicitado: " + itemRequest.getCantidad());
+            }
+        }
+        return String.join("; ", errores);
+    }
+
+    /**
+     * UPDATE y eventos de los pedidos ya bloqueados
+     * Al estar bloqueados, el UPDATE encuentra exactamente el estado leído: los eventos
+     * (estado anterior incluido) salen de la misma lectura
+     */
+    private CambioEstadoLoteDTO aplicarCambioDeEstado(List<EstadoPedidoDTO> bloqueados, Set<Pedido.EstadoPedido> origenes,
+                                                      Pedido.EstadoPedido nuevoEstado) {
+        CambioEstadoLoteDTO resultado = new CambioEstadoLoteDTO(nuevoEstado);
+        if (bloqueados.isEmpty()) {
+            return resultado;
+        }
+        List<Long> ids = bloqueados.stream().map(EstadoPedidoDTO::getPedidoId).collect(Collectors.toList());
+        pedidoRepository.cambiarEstado(ids, origenes, nuevoEstado);
+        eventoPedidoRepository.saveAll(bloqueados.stream()
+                .map(pedido -> new EventoPedido(pedido.getPedidoId(), pedido.getClienteId(), pedido.getEstado(),
+                        nuevoEstado, pedido.getTotal()))
+                .collect(Collectors.toList()));
+        resultado.setCambiados(ids);
+        return resultado;
+    }
+
+    /**
+     * DEVOLVER EL STOCK de todos los items de estos pedidos (cancelación), por conjunto
+     * 1. Bloquear sus items: el volcado del inventario en memoria no puede aplicar uno pendiente a mitad
+     * 2. Un UPDATE de productos con las unidades de los items ya descontados
+     * 3. Un UPDATE que descarta los pendientes (nunca se descontaron de productos)
+     * 4. Los contadores en memoria recuperan todas las unidades al confirmar
+     */
+    private void devolverStockDePedidos(Collection<Long> pedidoIds) {
+        List<ItemPedido> items = itemPedidoRepository.bloquearDePedidos(pedidoIds);
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> unidades = new HashMap<>();
+        for (ItemPedido item : items) {
+            unidades.merge(item.getProducto().getId(), item.getCantidad(), Integer::sum);
+        }
+        cacheSegundoNivel.stockModificado(unidades.keySet());
+        productoRepository.devolverStockDePedidos(pedidoIds);
+        itemPedidoRepository.descartarStockPendienteDePedidos(pedidoIds);
+        unidades.forEach((productoId, cantidad) -> {
+            if (inventarioEnMemoria.gestiona(productoId)) {
+                inventarioEnMemoria.liberarAlConfirmar(productoId, cantidad);
+            }
+        });
+        catalogoCache.invalidarProductos(unidades.keySet());
+    }
+
+    /**
+     * IDs de un lote sin repetidos ni nulos, entre 1 y tienda.pedidos.estado-lote.maximo
+     */
+    private Set<Long> idsDeLote(Collection<Long> ids) {
+        Set<Long> pedidoIds = new LinkedHashSet<>(ids);
+        pedidoIds.remove(null);
+        if (pedidoIds.isEmpty() || pedidoIds.size() > maximoCambioEstadoLote) {
+            throw new IllegalArgumentException("Se aceptan entre 1 y " + maximoCambioEstadoLote + " pedidos por lote");
+        }
+        return pedidoIds;
+    }
+
+    /**
+     * Motivo de cada pedido del lote que no cambió de estado (una consulta para todos)
+     */
+    private void informarRechazados(CambioEstadoLoteDTO resultado, Set<Long> pedidoIds) {
+        Set<Long> rechazados = new LinkedHashSet<>(pedidoIds);
+        rechazados.removeAll(resultado.getCambiados());
+        if (rechazados.isEmpty()) {
+            return;
+        }
+        Map<Long, EstadoPedidoDTO> estados = pedidoRepository.findEstados(rechazados).stream()
+                .collect(Collectors.toMap(EstadoPedidoDTO::getPedidoId, Function.identity()));
+        for (Long pedidoId : rechazados) {
+            EstadoPedidoDTO pedido = estados.get(pedidoId);
+            String motivo = pedido == null ? "Pedido no encontrado"
+                    : pedido.isEnProceso() ? "El pedido todavía se está procesando"
+                    : "No se puede cambiar de " + pedido.getEstado() + " a " + resultado.getEstado();
+            resultado.getRechazados().put(pedidoId, motivo);
+        }
+    }
+
+    /**
+     * Orígenes válidos para un cambio de estado en lote
+     * CANCELADO tiene su propio lote (cancelarPedidosEnLote): cancelar devuelve el stock
+     */
+    private Set<Pedido.EstadoPedido> origenesEnLote(Pedido.EstadoPedido nuevoEstado) {
+        if (nuevoEstado == Pedido.EstadoPedido.CANCELADO) {
+            throw new IllegalArgumentException("CANCELADO no se aplica con un cambio de estado en lote: "
+                    + "usar la cancelación en lote, que devuelve el stock");
+        }
+        return origenesValidos(nuevoEstado);
+    }
+
+    /**
+     * Estados desde los que se puede pasar a nuevoEstado (según esTransicionValida)
+     */
+    private Set<Pedido.EstadoPedido> origenesValidos(Pedido.EstadoPedido nuevoEstado) {
+        Set<Pedido.EstadoPedido> origenes = Arrays.stream(Pedido.EstadoPedido.values())
+                .filter(estado -> esTransicionValida(estado, nuevoEstado))
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(Pedido.EstadoPedido.class)));
+        if (origenes.isEmpty()) {
+            throw new IllegalArgumentException("Ningún pedido puede pasar a " + nuevoEstado);
+        }
+        return origenes;
     }
 
     /**
@@ -181,4 +807,57 @@ public class PedidoService {
         public Integer getCantidad() { return cantidad; }
         public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
     }
+
+    /**
+     * Clase auxiliar para recibir cada pedido de una carga en lote
+     */
+    public static class PedidoLoteRequest {
+        private Long clienteId;
+        private List<ItemPedidoRequest> items;
+
+        public PedidoLoteRequest() {}
+
+        public PedidoLoteRequest(Long clienteId, List<ItemPedidoRequest> items) {
+            this.clienteId = clienteId;
+            this.items = items;
+        }
+
+        public Long getClienteId() { return clienteId; }
+        public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+        public List<ItemPedidoRequest> getItems() { return items; }
+        public void setItems(List<ItemPedidoRequest> items) { this.items = items; }
+    }
+
+    /**
+     * Carrito de un pedido asíncrono guardado en Pedido.carritoPendiente
+     * "productoId:cantidad" separados por comas, con ":M" si la reserva se hizo en memoria
+     */
+    private static class CarritoPendiente {
+        private final List<ItemPedidoRequest> items = new ArrayList<>();
+        private final Set<Long> enMemoria = new HashSet<>();
+
+        static String escribir(List<ItemPedidoRequest> items, Set<Long> enMemoria) {
+            return items.stream()
+                    .map(item -> item.getProductoId() + ":" + item.getCantidad()
+                            + (enMemoria.contains(item.getProductoId()) ? ":M" : ""))
+                    .collect(Collectors.joining(","));
+        }
+
+        static CarritoPendiente leer(String texto) {
+            CarritoPendiente carrito = new CarritoPendiente();
+            for (String linea : texto.split(",")) {
+                String[] partes = linea.split(":");
+                Long productoId = Long.valueOf(partes[0]);
+                carrito.items.add(new ItemPedidoRequest(productoId, Integer.valueOf(partes[1])));
+                if (partes.length > 2) {
+                    carrito.enMemoria.add(productoId);
+                }
+            }
+            return carrito;
+        }
+
+        List<Long> productoIds() {
+            return items.stream().map(ItemPedidoRequest::getProductoId).collect(Collectors.toList());
+        }
+    }
 }
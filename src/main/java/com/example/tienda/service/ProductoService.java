@@ -1,18 +1,41 @@
 package com.example.tienda.service;
 
+import com.example.tienda.dto.CatalogoDTO;
+import com.example.tienda.dto.CategoriaDTO;
+import com.example.tienda.dto.FacetaDTO;
+import com.example.tienda.dto.ProductoDTO;
+import com.example.tienda.dto.RangoPrecioDTO;
+import com.example.tienda.dto.ResultadoBusquedaDTO;
+import com.example.tienda.dto.SugerenciaDTO;
 import com.example.tienda.entity.Producto;
 import com.example.tienda.entity.Categoria;
 import com.example.tienda.repository.ProductoRepository;
 import com.example.tienda.repository.CategoriaRepository;
+import com.example.tienda.repository.ProductoSpecs;
+import io.micrometer.core.annotation.Timed;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * SERVICIO PRODUCTO
@@ -20,6 +43,7 @@ import java.util.Set;
  */
 @Service
 @Transactional
+@Timed(value = "tienda.servicio", histogram = true) // un timer por método público (ver MetricasConfig)
 public class ProductoService {
 
     @Autowired
@@ -28,82 +52,411 @@ public class ProductoService {
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private InventarioEnMemoria inventarioEnMemoria;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private BusquedaCatalogo busquedaCatalogo;
+
+    @Autowired
+    private CategoriasCatalogo categoriasCatalogo;
+
+    /**
+     * Propiedades por las que se pueden ordenar los listados de productos (?sort=)
+     */
+    private static final Set<String> ORDENES_PRODUCTOS = Set.of("id", "nombre", "precio", "stock");
+
     /**
      * CREAR PRODUCTO
      */
-    public Producto crearProducto(String nombre, BigDecimal precio, Integer stock) {
+    public ProductoDTO crearProducto(String nombre, BigDecimal precio, Integer stock) {
         // Validar que no existe producto con ese nombre
         if (productoRepository.existsByNombre(nombre)) {
             throw new IllegalArgumentException("Ya existe un producto con el nombre: " + nombre);
         }
 
         Producto producto = new Producto(nombre, precio, stock);
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+
+        // Por si alguien consultó antes este ID y quedó cacheado como inexistente
+        catalogoCache.invalidarProductos(List.of(guardado.getId()));
+        busquedaCatalogo.productoGuardado(guardado.getId(), guardado.getNombre());
+        categoriasCatalogo.precioGuardado(guardado.getId(), guardado.getPrecio());
+        return new ProductoDTO(guardado.getId(), guardado.getNombre(), guardado.getPrecio(), guardado.getStock());
     }
 
     /**
      * ASIGNAR CATEGORÍAS A PRODUCTO
      * Puede crear categorías nuevas o usar existentes
+     * El ID de cada categoría sale de la caché por nombre; la categoría se enlaza por
+     * referencia (sin cargarla ni cargar su colección de productos, que es el lado inverso)
      */
-    public Producto asignarCategorias(Long productoId, Set<String> nombresCategorias) {
+    public ProductoDTO asignarCategorias(Long productoId, Set<String> nombresCategorias) {
         Producto producto = productoRepository.findById(productoId)
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + productoId));
 
         for (String nombreCategoria : nombresCategorias) {
             // Buscar si la categoría ya existe, si no, crearla
-            Categoria categoria = categoriaRepository.findByNombre(nombreCategoria)
-                    .orElseGet(() -> {
-                        Categoria nuevaCategoria = new Categoria(nombreCategoria);
-                        return categoriaRepository.save(nuevaCategoria);
-                    });
+            Long categoriaId = catalogoCache.categoriaId(nombreCategoria,
+                    () -> categoriaRepository.findIdByNombre(nombreCategoria).orElse(null));
+
+            Categoria categoria;
+            if (categoriaId != null) {
+                categoria = categoriaRepository.getReferenceById(categoriaId);
+            } else {
+                categoria = categoriaRepository.save(new Categoria(nombreCategoria));
+                catalogoCache.guardarCategoriaId(nombreCategoria, categoria.getId());
+                busquedaCatalogo.categoriaGuardada(categoria.getId(), categoria.getNombre());
+            }
 
-            // Agregar la categoría al producto
-            producto.addCategoria(categoria);
+            // Agregar la categoría al producto (lado dueño de la relación N:M)
+            producto.getCategorias().add(categoria);
         }
 
-        return productoRepository.save(producto);
+        productoRepository.saveAndFlush(producto);
+
+        // Invalidar solo lo afectado: el producto y las páginas de sus nuevas categorías
+        catalogoCache.invalidarProductos(List.of(productoId));
+        catalogoCache.invalidarPaginasDeCategorias(nombresCategorias);
+        categoriasCatalogo.categoriasAsignadas(productoId, nombresCategorias);
+        return cargarDTOs(List.of(productoId)).get(0);
     }
 
     /**
      * Buscar productos por categoría con paginación
+     * La página (solo IDs) y cada producto salen de la caché; los productos que falten
+     * se cargan todos juntos (ver cargarDTOs)
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductoDTO> buscarPorCategoria(String nombreCategoria, Pageable pageable) {
+        validarOrden(pageable);
+        Page<Long> ids = catalogoCache.paginaCategoria(nombreCategoria, pageable,
+                () -> productoRepository.findIdsByCategoriaNombre(nombreCategoria, pageable));
+
+        Map<Long, ProductoDTO> productos = catalogoCache.productos(ids.getContent(), this::cargarDTOs);
+
+        List<ProductoDTO> contenido = ids.getContent().stream()
+                .map(productos::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(contenido, pageable, ids.getTotalElements());
+    }
+
+    /**
+     * BUSCAR POR NOMBRE (productos y categorías)
+     * Con el índice de trigramas: IDs por relevancia en memoria, y los productos desde la caché.
+     * Si el índice aún no se cargó (arranque), LIKE en la base de datos sin ranking.
+     */
+    @Transactional(readOnly = true)
+    public ResultadoBusquedaDTO buscar(String texto, int limite) {
+        if (!busquedaCatalogo.listo()) {
+            List<Long> ids = productoRepository.findByNombreContainingIgnoreCase(texto).stream()
+                    .limit(limite)
+                    .map(Producto::getId)
+                    .collect(Collectors.toList());
+            List<CategoriaDTO> categorias = categoriaRepository.findByNombreContainingIgnoreCase(texto).stream()
+                    .limit(limite)
+                    .map(categoria -> new CategoriaDTO(categoria.getId(), categoria.getNombre()))
+                    .collect(Collectors.toList());
+            return new ResultadoBusquedaDTO(enOrden(ids), categorias);
+        }
+
+        List<CategoriaDTO> categorias = busquedaCatalogo.buscarCategorias(texto, limite).stream()
+                .map(id -> new CategoriaDTO(id, busquedaCatalogo.nombreCategoria(id)))
+                .collect(Collectors.toList());
+        return new ResultadoBusquedaDTO(enOrden(busquedaCatalogo.buscarProductos(texto, limite)), categorias);
+    }
+
+    /**
+     * AUTOCOMPLETAR: nombres de productos y categorías que completan el prefijo
+     * Sale solo del índice en memoria (sin consultas); vacío mientras se carga.
+     * Las categorías van primero, hasta la mitad del límite
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<SugerenciaDTO> sugerir(String prefijo, int limite) {
+        List<SugerenciaDTO> sugerencias = new ArrayList<>();
+        for (Long id : busquedaCatalogo.sugerirCategorias(prefijo, (limite + 1) / 2)) {
+            sugerencias.add(new SugerenciaDTO(SugerenciaDTO.Tipo.CATEGORIA, id, busquedaCatalogo.nombreCategoria(id)));
+        }
+        for (Long id : busquedaCatalogo.sugerirProductos(prefijo, limite - sugerencias.size())) {
+            sugerencias.add(new SugerenciaDTO(SugerenciaDTO.Tipo.PRODUCTO, id, busquedaCatalogo.nombreProducto(id)));
+        }
+        return sugerencias;
+    }
+
+    /**
+     * Listar el catálogo paginado y ordenado (LIMIT/OFFSET en la base de datos)
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductoDTO> listar(Pageable pageable) {
+        validarOrden(pageable);
+        Page<ProductoDTO> pagina = productoRepository.findAllDTO(pageable);
+        completarCategorias(pagina.getContent());
+        return pagina;
+    }
+
+    /**
+     * CATÁLOGO CON FILTROS COMBINADOS Y FACETAS
+     * - Página: categorías (alguna o todas las elegidas) AND rango de precio AND con stock,
+     *   en UNA consulta paginada y ordenada en la base de datos (Specifications)
+     * - Facetas: categorías y rangos de precio desde los índices de bitmaps; el filtro de
+     *   stock con una consulta por índice de los productos sin stock (ver contarFacetas)
+     */
+    @Transactional(readOnly = true)
+    public CatalogoDTO catalogo(FiltroCatalogo filtro, Pageable pageable) {
+        validarFiltro(filtro);
+        validarOrden(pageable);
+        if (pageable.getSort().isUnsorted()) {
+            // Sin orden explícito el OFFSET no es estable entre páginas
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+        }
+
+        List<Specification<Producto>> condiciones = new ArrayList<>();
+        if (filtro.isTodasLasCategorias()) {
+            filtro.getCategorias().forEach(nombre -> condiciones.add(ProductoSpecs.enCategorias(List.of(nombre))));
+        } else if (!filtro.getCategorias().isEmpty()) {
+            condiciones.add(ProductoSpecs.enCategorias(filtro.getCategorias()));
+        }
+        if (filtro.getPrecioMin() != null) {
+            condiciones.add(ProductoSpecs.precioDesde(filtro.getPrecioMin()));
+        }
+        if (filtro.getPrecioMax() != null) {
+            condiciones.add(ProductoSpecs.precioHasta(filtro.getPrecioMax()));
+        }
+        if (filtro.isEnStock()) {
+            condiciones.add(ProductoSpecs.conStock());
+        }
+
+        Page<ProductoDTO> pagina = productoRepository.findAll(Specification.allOf(condiciones), pageable)
+                .map(producto -> new ProductoDTO(producto.getId(), producto.getNombre(), producto.getPrecio(), producto.getStock()));
+        completarCategorias(pagina.getContent());
+        return contarFacetas(filtro, pagina);
+    }
+
+    /**
+     * CATEGORÍAS CON PRODUCTOS y cuántos tiene cada una, de la que más tiene a la que menos
+     * Sale del índice de bitmaps (sin consultas); mientras se carga, un GROUP BY en la BD
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<FacetaDTO> categoriasConProductos() {
+        Map<String, Long> cantidades;
+        if (categoriasCatalogo.listo()) {
+            cantidades = categoriasCatalogo.indice().contar(null);
+        } else {
+            cantidades = new HashMap<>();
+            for (Object[] fila : categoriaRepository.findCantidadProductosPorCategoria()) {
+                cantidades.put((String) fila[0], (Long) fila[1]);
+            }
+        }
+        return facetas(cantidades);
+    }
+
+    /**
+     * Listar el catálogo por clave: los siguientes productos después de ultimoId
+     * Para páginas profundas, el costo no depende de la posición
      */
     @Transactional(readOnly = true)
-    public Page<Producto> buscarPorCategoria(String nombreCategoria, Pageable pageable) {
-        return productoRepository.findByCategoriasNombre(nombreCategoria, pageable);
+    public Slice<ProductoDTO> listarDespuesDe(Long ultimoId, int tamano) {
+        Slice<ProductoDTO> pagina = productoRepository.findDTOByIdGreaterThan(ultimoId,
+                PageRequest.of(0, tamano, Sort.by("id")));
+        completarCategorias(pagina.getContent());
+        return pagina;
     }
 
     /**
      * Listar productos con stock bajo
      */
     @Transactional(readOnly = true)
-    public List<Producto> buscarProductosConStockBajo(Integer stockMinimo) {
-        return productoRepository.findProductosConStockBajo(stockMinimo);
+    public List<ProductoDTO> buscarProductosConStockBajo(Integer stockMinimo) {
+        List<ProductoDTO> productos = productoRepository.findDTOConStockBajo(stockMinimo);
+        completarCategorias(productos);
+        return productos;
     }
 
     /**
      * Actualizar stock de un producto
      */
-    public Producto actualizarStock(Long productoId, Integer nuevoStock) {
-        Producto producto = productoRepository.findById(productoId)
+    public ProductoDTO actualizarStock(Long productoId, Integer nuevoStock) {
+        // Bloqueado: la diferencia con el stock anterior es exacta aunque haya un volcado en curso
+        Producto producto = productoRepository.bloquearPorId(productoId)
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + productoId));
 
+        int diferencia = nuevoStock - producto.getStock();
         producto.setStock(nuevoStock);
-        return productoRepository.save(producto);
+        productoRepository.saveAndFlush(producto);
+
+        // Si el producto usa inventario en memoria, el contador recibe la diferencia al confirmar
+        inventarioEnMemoria.ajustarAlConfirmar(productoId, diferencia);
+        catalogoCache.invalidarProductos(List.of(productoId));
+        return cargarDTOs(List.of(productoId)).get(0);
     }
 
     /**
-     * Buscar producto por ID
+     * Buscar producto por ID (desde la caché si está)
      */
     @Transactional(readOnly = true)
-    public Optional<Producto> buscarPorId(Long id) {
-        return productoRepository.findById(id);
+    public Optional<ProductoDTO> buscarPorId(Long id) {
+        return Optional.ofNullable(catalogoCache.productos(List.of(id), this::cargarDTOs).get(id));
     }
 
+    // ===== MÉTODOS AUXILIARES =====
+
     /**
-     * Listar todos los productos
+     * Ordenar por una propiedad desconocida haría fallar la consulta (500): se rechaza antes
      */
-    @Transactional(readOnly = true)
-    public List<Producto> listarTodos() {
-        return productoRepository.findAll();
+    private void validarOrden(Pageable pageable) {
+        for (Sort.Order orden : pageable.getSort()) {
+            if (!ORDENES_PRODUCTOS.contains(orden.getProperty())) {
+                throw new IllegalArgumentException("No se puede ordenar por: " + orden.getProperty());
+            }
+        }
+    }
+
+    private void validarFiltro(FiltroCatalogo filtro) {
+        if (filtro.getPrecioMin() != null && filtro.getPrecioMin().signum() < 0) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser negativo");
+        }
+        if (filtro.getPrecioMin() != null && filtro.getPrecioMax() != null
+                && filtro.getPrecioMin().compareTo(filtro.getPrecioMax()) >= 0) {
+            throw new IllegalArgumentException("El precio mínimo debe ser menor que el máximo");
+        }
+    }
+
+    /**
+     * FACETAS CON BITMAPS
+     * Cada producto cuenta en las categorías que tiene si cumple el filtro de precio,
+     * y en su rango de precio si cumple el filtro de categoría (con stock si se pide).
+     * Los productos que cumplen cada filtro son bitmaps (IndicePrecios, IndiceCategorias) y
+     * cada faceta se cuenta intersecándolos: no se leen los precios del catálogo
+     */
+    private CatalogoDTO contarFacetas(FiltroCatalogo filtro, Page<ProductoDTO> pagina) {
+        IndiceCategorias indiceCategorias;
+        IndicePrecios indicePrecios;
+        RoaringBitmap considerados;
+        if (categoriasCatalogo.listo()) {
+            indiceCategorias = categoriasCatalogo.indice();
+            indicePrecios = categoriasCatalogo.precios();
+            considerados = indicePrecios.todos();
+            if (filtro.isEnStock()) {
+                for (Long productoId : productoRepository.findIdsSinStock()) {
+                    considerados.remove(IndiceCategorias.clave(productoId));
+                }
+            }
+        } else {
+            // Durante el arranque: índices de un solo uso armados con el JOIN a las categorías
+            indiceCategorias = new IndiceCategorias();
+            indicePrecios = new IndicePrecios(categoriasCatalogo.precios().limites());
+            for (Object[] fila : productoRepository.findFilasFacetas(filtro.isEnStock() ? 1 : 0)) {
+                indicePrecios.fijar((Long) fila[0], (BigDecimal) fila[1]);
+                if (fila[2] != null) {
+                    indiceCategorias.agregar((String) fila[2], (Long) fila[0]);
+                }
+            }
+            considerados = indicePrecios.todos();
+        }
+
+        RoaringBitmap cumplenPrecio = RoaringBitmap.and(considerados,
+                indicePrecios.entre(filtro.getPrecioMin(), filtro.getPrecioMax()));
+        RoaringBitmap cumplenCategoria = filtro.getCategorias().isEmpty()
+                ? considerados
+                : RoaringBitmap.and(considerados,
+                        indiceCategorias.productos(filtro.getCategorias(), filtro.isTodasLasCategorias()));
+
+        // Las categorías elegidas aparecen aunque queden en 0
+        Map<String, Long> porCategoria = indiceCategorias.contar(cumplenPrecio);
+        filtro.getCategorias().forEach(nombre -> porCategoria.putIfAbsent(nombre, 0L));
+
+        List<BigDecimal> limites = indicePrecios.limites();
+        long[] porRango = indicePrecios.contar(cumplenCategoria);
+        List<RangoPrecioDTO> facetasPrecio = new ArrayList<>();
+        for (int i = 0; i < porRango.length; i++) {
+            BigDecimal desde = i == 0 ? BigDecimal.ZERO : limites.get(i - 1);
+            BigDecimal hasta = i < limites.size() ? limites.get(i) : null;
+            facetasPrecio.add(new RangoPrecioDTO(desde, hasta, porRango[i]));
+        }
+        return new CatalogoDTO(pagina, facetas(porCategoria), facetasPrecio);
+    }
+
+    /**
+     * Cantidades por categoría como facetas, de mayor a menor (y por nombre)
+     */
+    private List<FacetaDTO> facetas(Map<String, Long> cantidades) {
+        return cantidades.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(entrada -> new FacetaDTO(entrada.getKey(), entrada.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Productos (desde la caché) en el mismo orden que los IDs
+     */
+    private List<ProductoDTO> enOrden(List<Long> ids) {
+        Map<Long, ProductoDTO> productos = catalogoCache.productos(ids, this::cargarDTOs);
+        return ids.stream()
+                .map(productos::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Cargar productos como DTO con sus categorías: dos consultas en total,
+     * sin importar cuántos productos sean
+     */
+    private List<ProductoDTO> cargarDTOs(List<Long> ids) {
+        List<ProductoDTO> productos = productoRepository.findDTOByIdIn(ids);
+        completarCategorias(productos);
+        return productos;
+    }
+
+    /**
+     * Completar las categorías de una lista de DTO con UNA consulta
+     */
+    private void completarCategorias(List<ProductoDTO> productos) {
+        if (productos.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductoDTO> porId = productos.stream()
+                .collect(Collectors.toMap(ProductoDTO::getId, Function.identity()));
+        for (Object[] fila : productoRepository.findCategoriasDeProductos(porId.keySet())) {
+            porId.get((Long) fila[0]).getCategorias().add(new CategoriaDTO((Long) fila[1], (String) fila[2]));
+        }
+    }
+
+    /**
+     * Filtros del catálogo (todos opcionales)
+     * todasLasCategorias: el producto debe tener todas las categorías (si no, alguna)
+     * precioMin incluido, precioMax excluido, igual que los rangos de las facetas
+     */
+    public static class FiltroCatalogo {
+        private Set<String> categorias = new HashSet<>();
+        private boolean todasLasCategorias;
+        private BigDecimal precioMin;
+        private BigDecimal precioMax;
+        private boolean enStock;
+
+        public FiltroCatalogo() {}
+
+        public FiltroCatalogo(Set<String> categorias, boolean todasLasCategorias,
+                              BigDecimal precioMin, BigDecimal precioMax, boolean enStock) {
+            this.categorias = categorias != null ? categorias : new HashSet<>();
+            this.todasLasCategorias = todasLasCategorias;
+            this.precioMin = precioMin;
+            this.precioMax = precioMax;
+            this.enStock = enStock;
+        }
+
+        public Set<String> getCategorias() { return categorias; }
+        public void setCategorias(Set<String> categorias) { this.categorias = categorias; }
+        public boolean isTodasLasCategorias() { return todasLasCategorias; }
+        public void setTodasLasCategorias(boolean todasLasCategorias) { this.todasLasCategorias = todasLasCategorias; }
+        public BigDecimal getPrecioMin() { return precioMin; }
+        public void setPrecioMin(BigDecimal precioMin) { this.precioMin = precioMin; }
+        public BigDecimal getPrecioMax() { return precioMax; }
+        public void setPrecioMax(BigDecimal precioMax) { this.precioMax = precioMax; }
+        public boolean isEnStock() { return enStock; }
+        public void setEnStock(boolean enStock) { this.enStock = enStock; }
     }
 }
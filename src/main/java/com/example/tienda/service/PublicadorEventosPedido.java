@@ -0,0 +1,138 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.EventoPedidoDTO;
+import com.example.tienda.entity.EventoPedido;
+import com.example.tienda.repository.EventoPedidoRepository;
+import com.example.tienda.repository.OffsetConsumidorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * PUBLICADOR DEL OUTBOX DE PEDIDOS (relay)
+ * Cada tienda.eventos.intervalo-ms toma de eventos_pedido los eventos sin publicar, de a
+ * tienda.eventos.tamano-lote, les asigna posiciones consecutivas (en su transacción) y, ya
+ * confirmadas, entrega el lote a BusEventosPedido.
+ *
+ * Si el proceso cae entre confirmar las posiciones y entregar el lote, los consumidores lo
+ * leen de la tabla al arrancar (BusEventosPedido.iniciar).
+ *
+ * VARIOS NODOS: todos publican sobre la misma tabla. Cada nodo parte de su última posición
+ * o de la de la BD, nunca de una mayor, así que si otro nodo ya usó esas posiciones el índice
+ * único de posicion hace fallar la transacción y se reintenta en la siguiente vuelta: las
+ * posiciones confirmadas quedan siempre sin huecos. En las vueltas sin nada que publicar
+ * el bus lee de la tabla lo que publicaron los demás nodos (BusEventosPedido.ponerAlDiaHasta).
+ * Cada nodo necesita su propio tienda.eventos.nodo; los offsets de un nodo retirado frenan
+ * el borrado de eventos hasta que se borren sus filas de offsets_consumidor.
+ */
+@Component
+public class PublicadorEventosPedido {
+
+    private static final Logger log = LoggerFactory.getLogger(PublicadorEventosPedido.class);
+
+    @Autowired
+    private EventoPedidoRepository eventoPedidoRepository;
+
+    @Autowired
+    private BusEventosPedido busEventosPedido;
+
+    @Autowired
+    private OffsetConsumidorRepository offsetConsumidorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${tienda.eventos.tamano-lote:500}")
+    private int tamanoLote;
+
+    /**
+     * Horas que se conservan los eventos ya procesados por todos los consumidores
+     */
+    @Value("${tienda.eventos.retencion-horas:168}")
+    private long retencionHoras;
+
+    /**
+     * Última posición asignada por este nodo (0 = leerla de la BD)
+     */
+    private volatile long ultimaPosicion;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        ultimaPosicion = eventoPedidoRepository.findUltimaPosicion();
+        busEventosPedido.iniciar();
+    }
+
+    /**
+     * Última posición publicada por cualquier nodo
+     */
+    public long getUltimaPosicion() {
+        return eventoPedidoRepository.findUltimaPosicion();
+    }
+
+    /**
+     * PUBLICACIÓN PERIÓDICA: lotes hasta vaciar el outbox
+     */
+    @Scheduled(fixedDelayString = "${tienda.eventos.intervalo-ms:200}")
+    public void publicarPendientes() {
+        List<EventoPedidoDTO> lote;
+        do {
+            try {
+                lote = new TransactionTemplate(transactionManager).execute(status -> asignarPosiciones());
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Otro nodo publicó eventos a la vez; se reintenta en la siguiente vuelta");
+                ultimaPosicion = 0;
+                return;
+            }
+            if (lote.isEmpty()) {
+                busEventosPedido.ponerAlDiaHasta(eventoPedidoRepository.findUltimaPosicion());
+                return;
+            }
+            busEventosPedido.publicar(lote);
+        } while (lote.size() == tamanoLote);
+    }
+
+    /**
+     * BORRADO PERIÓDICO de los eventos que ya procesaron todos los consumidores de todos los nodos
+     */
+    @Scheduled(fixedDelayString = "${tienda.eventos.intervalo-limpieza-ms:3600000}")
+    public void borrarConsumidos() {
+        Integer borrados = new TransactionTemplate(transactionManager).execute(status -> {
+            long ultima = eventoPedidoRepository.findUltimaPosicion();
+            Long minimo = offsetConsumidorRepository.findPosicionMinima();
+            // El último evento publicado nunca se borra: de él sale la siguiente posición al arrancar
+            long hasta = Math.min(minimo != null ? minimo : ultima, ultima - 1);
+            return eventoPedidoRepository.borrarConsumidos(hasta, LocalDateTime.now().minusHours(retencionHoras));
+        });
+        if (borrados != null && borrados > 0) {
+            log.info("Eventos de pedidos borrados: {}", borrados);
+        }
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    private List<EventoPedidoDTO> asignarPosiciones() {
+        List<EventoPedido> pendientes = eventoPedidoRepository.findNoPublicados(PageRequest.of(0, tamanoLote));
+        if (pendientes.isEmpty()) {
+            return List.of();
+        }
+        long posicion = ultimaPosicion > 0 ? ultimaPosicion : eventoPedidoRepository.findUltimaPosicion();
+        for (EventoPedido evento : pendientes) {
+            evento.setPosicion(++posicion);
+        }
+        eventoPedidoRepository.flush();
+        ultimaPosicion = posicion;
+        return pendientes.stream().map(EventoPedidoDTO::desde).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.TotalClienteDTO;
+import com.example.tienda.entity.TotalCliente;
+import com.example.tienda.repository.ClienteRepository;
+import com.example.tienda.repository.TotalClienteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * SERVICIO DE TOTALES POR CLIENTE
+ * Mantiene la tabla materializada totales_cliente:
+ * - Un cliente nuevo empieza con total 0
+ * - Crear un pedido suma su total; cancelarlo lo resta (ver PedidoService)
+ * - reconstruir() recalcula todo desde pedidos si algo se desincroniza
+ * Las actualizaciones corren en la transacción del pedido: si el pedido se deshace, el total también.
+ */
+@Service
+@Transactional
+public class TotalesClienteService {
+
+    private static final Logger log = LoggerFactory.getLogger(TotalesClienteService.class);
+
+    @Autowired
+    private TotalClienteRepository totalClienteRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    /**
+     * Registrar un cliente nuevo con total 0
+     */
+    public void registrarCliente(Long clienteId) {
+        totalClienteRepository.save(new TotalCliente(clienteId, BigDecimal.ZERO));
+    }
+
+    /**
+     * Quitar la fila de un cliente eliminado
+     */
+    public void eliminarCliente(Long clienteId) {
+        totalClienteRepository.deleteById(clienteId);
+    }
+
+    /**
+     * Sumar el total de un pedido nuevo
+     */
+    public void pedidoCreado(Long clienteId, BigDecimal totalPedido) {
+        sumar(clienteId, totalPedido);
+    }
+
+    /**
+     * Restar el total de un pedido que pasa a CANCELADO
+     */
+    public void pedidoCancelado(Long clienteId, BigDecimal totalPedido) {
+        sumar(clienteId, totalPedido.negate());
+    }
+
+    /**
+     * Ranking paginado de clientes por total gastado
+     * El orden es siempre por total descendente (el del índice); se ignora el sort recibido
+     */
+    @Transactional(readOnly = true)
+    public Page<TotalClienteDTO> ranking(Pageable pageable) {
+        return totalClienteRepository.findRanking(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+    }
+
+    /**
+     * Los N clientes que más gastaron
+     */
+    @Transactional(readOnly = true)
+    public List<TotalClienteDTO> top(int n) {
+        return totalClienteRepository.findRanking(PageRequest.of(0, n)).getContent();
+    }
+
+    /**
+     * RECONSTRUIR la tabla completa desde pedidos (en una transacción)
+     * 1. Bloquea todas las filas: espera a los pedidos en curso que ya sumaron a algún total,
+     *    que así quedan confirmados y entran en el recálculo
+     * 2. Recalcula cada total desde pedidos. Un pedido que llega a sumar ahora espera el
+     *    bloqueo: todavía no está confirmado (no entra en el recálculo) y suma después
+     * 3. Quita las filas de clientes eliminados
+     * Ningún pedido queda fuera ni se cuenta dos veces; los que se crean o cancelan mientras
+     * tanto esperan a que la reconstrucción termine.
+     * Devuelve la cantidad de clientes recalculados.
+     */
+    public int reconstruir() {
+        totalClienteRepository.bloquearTodo();
+        int clientes = totalClienteRepository.recalcularTodo();
+        totalClienteRepository.borrarHuerfanos();
+        log.info("Totales por cliente reconstruidos: {} clientes", clientes);
+        return clientes;
+    }
+
+    /**
+     * Al arrancar, si la tabla está vacía pero hay clientes (base de datos anterior
+     * a esta tabla), se llena una vez desde pedidos
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarSiVacia() {
+        if (totalClienteRepository.count() == 0 && clienteRepository.count() > 0) {
+            reconstruir();
+        }
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    /**
+     * Incremento atómico; si el cliente aún no tiene fila se crea con el importe
+     */
+    private void sumar(Long clienteId, BigDecimal importe) {
+        if (totalClienteRepository.sumar(clienteId, importe) == 0) {
+            totalClienteRepository.save(new TotalCliente(clienteId, importe));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.tienda.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * CAMBIOS EN MEMORIA QUE ACOMPAÑAN A UNA ESCRITURA EN LA BD
+ * Índices y cachés del catálogo y contadores del inventario en memoria se actualizan
+ * recién cuando la transacción se confirma:
+ * un rollback no debe dejar en memoria algo que no está en la BD
+ */
+final class TrasConfirmar {
+
+    private TrasConfirmar() {}
+
+    /**
+     * Ejecutar al confirmar la transacción actual, o ya mismo si no hay transacción
+     */
+    static void ejecutar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,84 @@
+-- ===== ESQUEMA INICIAL (perfil prod) =====
+-- Mismo esquema que genera Hibernate con ddl-auto a partir de las entidades.
+-- Todo es IF NOT EXISTS: una base creada antes con ddl-auto=update se toma como
+-- version 0 (spring.flyway.baseline-version en application-prod.properties) y este
+-- script solo le agrega lo que le falte (columnas, secuencias, tablas e indices nuevos).
+
+-- Pedido e ItemPedido: secuencias con incremento 50 (optimizador pooled de Hibernate)
+CREATE SEQUENCE IF NOT EXISTS pedidos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_pedido_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS clientes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nombre VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS direcciones (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    calle VARCHAR(255) NOT NULL,
+    ciudad VARCHAR(255) NOT NULL,
+    pais VARCHAR(255) NOT NULL,
+    zip VARCHAR(255) NOT NULL,
+    cliente_id BIGINT UNIQUE,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_direcciones_cliente FOREIGN KEY (cliente_id) REFERENCES clientes (id)
+);
+
+CREATE TABLE IF NOT EXISTS categorias (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nombre VARCHAR(255) NOT NULL UNIQUE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS productos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nombre VARCHAR(255) NOT NULL UNIQUE,
+    precio NUMERIC(10,2) NOT NULL,
+    stock INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS producto_categoria (
+    producto_id BIGINT NOT NULL,
+    categoria_id BIGINT NOT NULL,
+    PRIMARY KEY (categoria_id, producto_id),
+    CONSTRAINT fk_producto_categoria_producto FOREIGN KEY (producto_id) REFERENCES productos (id),
+    CONSTRAINT fk_producto_categoria_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id)
+);
+
+CREATE TABLE IF NOT EXISTS pedidos (
+    id BIGINT NOT NULL,
+    fecha TIMESTAMP(6) NOT NULL,
+    estado VARCHAR(255) NOT NULL CHECK (estado IN ('NUEVO','PAGADO','ENVIADO','CANCELADO')),
+    total NUMERIC(10,2) NOT NULL,
+    cliente_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_pedidos_cliente FOREIGN KEY (cliente_id) REFERENCES clientes (id)
+);
+
+CREATE TABLE IF NOT EXISTS items_pedido (
+    id BIGINT NOT NULL,
+    cantidad INTEGER NOT NULL,
+    precio_unitario NUMERIC(10,2) NOT NULL,
+    stock_pendiente BOOLEAN,
+    pedido_id BIGINT NOT NULL,
+    producto_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_pedido_producto UNIQUE (pedido_id, producto_id),
+    CONSTRAINT fk_items_pedido_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos (id),
+    CONSTRAINT fk_items_pedido_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+);
+
+-- Bases anteriores al inventario en memoria
+ALTER TABLE items_pedido ADD COLUMN IF NOT EXISTS stock_pendiente BOOLEAN;
+
+-- Totales por cliente mantenidos en cada alta/cancelación de pedido (ranking)
+CREATE TABLE IF NOT EXISTS totales_cliente (
+    cliente_id BIGINT NOT NULL,
+    total NUMERIC(14,2) NOT NULL,
+    PRIMARY KEY (cliente_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_totales_cliente_total ON totales_cliente (total DESC, cliente_id);
@@ -0,0 +1,32 @@
+-- ===== ÍNDICES SEGÚN LAS CONSULTAS DE LOS REPOSITORIOS =====
+-- Los mismos que declaran las entidades con @Table(indexes) / @JoinTable(indexes),
+-- que es de donde los crea ddl-auto=update en el perfil por defecto.
+
+-- PedidoRepository: pedidos de un cliente por fecha descendente. Incluye estado y total
+-- para que sea un índice cubriente: H2 solo lo prefiere al índice de la clave foránea
+-- (cliente_id) si puede responder sin leer la tabla.
+CREATE INDEX IF NOT EXISTS idx_pedidos_cliente_fecha ON pedidos (cliente_id, fecha DESC, estado, total);
+-- Pedidos por estado y por rango de fechas
+CREATE INDEX IF NOT EXISTS idx_pedidos_estado_fecha ON pedidos (estado, fecha);
+CREATE INDEX IF NOT EXISTS idx_pedidos_fecha ON pedidos (fecha);
+
+-- ProductoRepository: stock bajo y rangos de precio
+CREATE INDEX IF NOT EXISTS idx_productos_stock ON productos (stock);
+CREATE INDEX IF NOT EXISTS idx_productos_precio ON productos (precio);
+
+-- ClienteRepository: clientes por ciudad
+CREATE INDEX IF NOT EXISTS idx_direcciones_ciudad ON direcciones (ciudad);
+
+-- Categorías de unos productos (la clave primaria empieza por categoria_id)
+CREATE INDEX IF NOT EXISTS idx_producto_categoria_producto ON producto_categoria (producto_id, categoria_id);
+
+-- Items de un producto (la restricción uk_pedido_producto ya cubre pedido_id).
+-- H2 crea un índice propio para cada clave foránea sin un índice de exactamente sus
+-- columnas: la de items_pedido.producto_id se vuelve a crear después de este índice
+-- para que lo use en lugar de mantener dos iguales. Se borra por sus dos nombres
+-- posibles: el de V1 y el que generó Hibernate en bases con ddl-auto=update.
+CREATE INDEX IF NOT EXISTS idx_items_pedido_producto ON items_pedido (producto_id);
+ALTER TABLE items_pedido DROP CONSTRAINT IF EXISTS fk_items_pedido_producto;
+ALTER TABLE items_pedido DROP CONSTRAINT IF EXISTS FK7jlim4dtym775y1be8l1l7w3h;
+ALTER TABLE items_pedido ADD CONSTRAINT fk_items_pedido_producto
+    FOREIGN KEY (producto_id) REFERENCES productos (id);
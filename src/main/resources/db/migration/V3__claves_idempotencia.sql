@@ -0,0 +1,13 @@
+-- ===== CLAVES DE IDEMPOTENCIA DE PEDIDOS =====
+-- POST /api/clientes/{clienteId}/pedidos con cabecera Idempotency-Key (ver ClaveIdempotencia).
+-- Sin clave foránea a pedidos: la fila se inserta antes que el pedido y se borra por fecha.
+
+CREATE TABLE IF NOT EXISTS claves_idempotencia (
+    clave VARCHAR(120) NOT NULL,
+    huella VARCHAR(64) NOT NULL,
+    pedido_id BIGINT,
+    fecha TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (clave)
+);
+
+CREATE INDEX IF NOT EXISTS idx_claves_idempotencia_fecha ON claves_idempotencia (fecha);
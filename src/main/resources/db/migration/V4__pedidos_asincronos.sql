@@ -0,0 +1,4 @@
+-- ===== PEDIDOS ASÍNCRONOS =====
+-- Carrito de un pedido aceptado cuyos items todavía no se crearon (ver Pedido.carritoPendiente)
+
+ALTER TABLE pedidos ADD COLUMN IF NOT EXISTS carrito_pendiente VARCHAR(4000);
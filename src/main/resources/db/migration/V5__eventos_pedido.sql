@@ -0,0 +1,28 @@
+-- ===== OUTBOX DE EVENTOS DE PEDIDOS =====
+-- eventos_pedido: cada pedido creado y cada cambio de estado, insertado en la transacción
+-- del cambio (ver EventoPedido). posicion se asigna al publicarlo (PublicadorEventosPedido).
+-- offsets_consumidor: última posición procesada por cada consumidor del bus.
+
+CREATE SEQUENCE IF NOT EXISTS eventos_pedido_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS eventos_pedido (
+    id BIGINT NOT NULL,
+    pedido_id BIGINT NOT NULL,
+    cliente_id BIGINT NOT NULL,
+    estado_anterior VARCHAR(255) CHECK (estado_anterior IN ('NUEVO','PAGADO','ENVIADO','CANCELADO')),
+    estado VARCHAR(255) NOT NULL CHECK (estado IN ('NUEVO','PAGADO','ENVIADO','CANCELADO')),
+    total NUMERIC(10,2) NOT NULL,
+    fecha TIMESTAMP(6) NOT NULL,
+    posicion BIGINT,
+    PRIMARY KEY (id)
+);
+
+-- Único: dos nodos no pueden publicar la misma posición. Sirve también para buscar los
+-- eventos sin publicar (posicion IS NULL) y para leer desde un offset.
+CREATE UNIQUE INDEX IF NOT EXISTS idx_eventos_pedido_posicion ON eventos_pedido (posicion);
+
+CREATE TABLE IF NOT EXISTS offsets_consumidor (
+    consumidor VARCHAR(100) NOT NULL,
+    posicion BIGINT NOT NULL,
+    PRIMARY KEY (consumidor)
+);
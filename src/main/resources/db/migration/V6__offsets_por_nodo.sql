@@ -0,0 +1,9 @@
+-- ===== OFFSETS DE CONSUMIDOR POR NODO =====
+-- Los consumidores del bus son locales a cada nodo: cada nodo lleva su propio offset
+-- (tienda.eventos.nodo). Los offsets existentes quedan para el nodo por defecto.
+
+ALTER TABLE offsets_consumidor ADD COLUMN IF NOT EXISTS nodo VARCHAR(100) DEFAULT 'principal' NOT NULL;
+
+ALTER TABLE offsets_consumidor DROP PRIMARY KEY;
+
+ALTER TABLE offsets_consumidor ADD PRIMARY KEY (nodo, consumidor);
@@ -0,0 +1,184 @@
+package com.example.tienda.config;
+
+import com.example.tienda.dto.PedidoDTO;
+import com.example.tienda.repository.PedidoRepository;
+import com.example.tienda.service.ClienteService;
+import com.example.tienda.service.PedidoService;
+import com.example.tienda.service.PedidoService.ItemPedidoRequest;
+import com.example.tienda.service.ProductoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * DETECTOR N+1 EN EL PERFIL TEST (tienda.sentencias.fallar=true)
+ * Pedidos de un cliente con sus items, el caso típico de N+1: armados pedido por pedido
+ * (una consulta de items por pedido) la petición pasa el presupuesto y falla; el endpoint
+ * real los trae en una consulta y responde normalmente con los mismos datos.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(PresupuestoSentenciasTest.PedidosSinOptimizar.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PresupuestoSentenciasTest {
+
+    /**
+     * Más pedidos que el presupuesto por petición (50)
+     */
+    private static final int PEDIDOS = 60;
+
+    /**
+     * Líneas de un pedido grande (más que el presupuesto y que las repeticiones sospechosas)
+     */
+    private static final int LINEAS = 80;
+
+    /**
+     * Pedidos de la carga en lote: más de un bloque (200 por transacción)
+     */
+    private static final int PEDIDOS_LOTE = 250;
+
+    /**
+     * Clientes de la carga en lote: más que el presupuesto de un bloque (100), así una
+     * consulta por cliente lo pasa
+     */
+    private static final int CLIENTES_LOTE = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    private Long clienteId;
+    private Long primero;
+    private Long segundo;
+
+    @BeforeAll
+    void cargarPedidos() {
+        primero = productoService.crearProducto("Presupuesto-A-" + System.nanoTime(),
+                new BigDecimal("10.00"), 1000).getId();
+        segundo = productoService.crearProducto("Presupuesto-B-" + System.nanoTime(),
+                new BigDecimal("20.00"), 1000).getId();
+        clienteId = clienteService.crearClienteConDireccion("Cliente Presupuesto",
+                "presupuesto-" + System.nanoTime() + "@test.com", "Calle 1", "Ciudad", "País", "1000").getId();
+        for (int i = 0; i < PEDIDOS; i++) {
+            pedidoService.crearPedido(clienteId,
+                    List.of(new ItemPedidoRequest(primero, 1), new ItemPedidoRequest(segundo, 2)));
+        }
+    }
+
+    @Test
+    void pedidosArmadosUnoPorUnoPasanElPresupuesto() {
+        assertThatThrownBy(() -> mockMvc.perform(get("/api/pruebas/clientes/{clienteId}/pedidos", clienteId)))
+                .hasRootCauseInstanceOf(PresupuestoSentenciasExcedido.class)
+                .rootCause()
+                .hasMessageContaining("GET /api/pruebas/clientes/{clienteId}/pedidos");
+    }
+
+    @Test
+    void pedidosDelClienteEnUnaConsultaNoPasanElPresupuesto() throws Exception {
+        mockMvc.perform(get("/api/clientes/{clienteId}/pedidos", clienteId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PEDIDOS))
+                .andExpect(jsonPath("$[0].items.length()").value(2));
+    }
+
+    /**
+     * Un pedido con muchas más líneas que el presupuesto: una reserva de stock por línea es
+     * parte del diseño (UPDATE condicional), no un N+1
+     */
+    @Test
+    void pedidoConMuchasLineasNoPasaElPresupuesto() throws Exception {
+        String items = IntStream.range(0, LINEAS)
+                .mapToObj(i -> productoService.crearProducto("Linea-" + i + "-" + System.nanoTime(),
+                        new BigDecimal("1.00"), 10).getId())
+                .map(productoId -> "{\"productoId\":" + productoId + ",\"cantidad\":1}")
+                .collect(Collectors.joining(",", "[", "]"));
+        // Un cliente propio: el de los demás tests debe seguir con exactamente PEDIDOS pedidos
+        Long clienteLineas = clienteService.crearClienteConDireccion("Cliente Lineas",
+                "lineas-" + System.nanoTime() + "@test.com", "Calle 1", "Ciudad", "País", "1000").getId();
+
+        mockMvc.perform(post("/api/clientes/{clienteId}/pedidos", clienteLineas)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":" + items + "}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.items.length()").value(LINEAS));
+    }
+
+    /**
+     * Carga en lote con muchos clientes y algunos pedidos sin stock: cada bloque se mide con
+     * su propio presupuesto (no uno desactivado para toda la carga), y las sentencias que van
+     * de a una por línea, por cliente o por pedido rechazado cuentan aparte
+     */
+    @Test
+    void cargaEnLoteNoPasaElPresupuestoDeCadaBloque() throws Exception {
+        List<Long> clientes = IntStream.range(0, CLIENTES_LOTE)
+                .mapToObj(i -> clienteService.crearClienteConDireccion("Cliente Lote " + i,
+                        "lote-" + i + "-" + System.nanoTime() + "@test.com", "Calle 1", "Ciudad", "País", "1000").getId())
+                .collect(Collectors.toList());
+        String pedidos = IntStream.range(0, PEDIDOS_LOTE)
+                .mapToObj(i -> "{\"clienteId\":" + clientes.get(i % clientes.size()) + ",\"items\":[" +
+                        "{\"productoId\":" + primero + ",\"cantidad\":1}," +
+                        "{\"productoId\":" + segundo + ",\"cantidad\":" + (i % 50 == 0 ? 100000 : 1) + "}]}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post("/api/pedidos/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"pedidos\":" + pedidos + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PEDIDOS_LOTE))
+                .andExpect(jsonPath("$[0].estado").value("RECHAZADO"))
+                .andExpect(jsonPath("$[1].estado").value("ACEPTADO"))
+                .andExpect(jsonPath("$[249].estado").value("ACEPTADO"));
+    }
+
+    /**
+     * El mismo listado hecho como N+1: los pedidos en una consulta y los items de cada uno
+     * al recorrerlos (carga perezosa). Bajo /api para que el interceptor lo mida
+     */
+    @RestController
+    static class PedidosSinOptimizar {
+
+        @Autowired
+        private PedidoRepository pedidoRepository;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @GetMapping("/api/pruebas/clientes/{clienteId}/pedidos")
+        public List<PedidoDTO> listar(@PathVariable Long clienteId) {
+            return transactionTemplate.execute(estado ->
+                    pedidoRepository.findByClienteIdOrderByFechaDesc(clienteId).stream()
+                            .map(PedidoDTO::desde)
+                            .collect(Collectors.toList()));
+        }
+    }
+}
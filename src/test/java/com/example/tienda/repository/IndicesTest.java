@@ -0,0 +1,152 @@
+package com.example.tienda.repository;
+
+import com.example.tienda.entity.Pedido;
+import com.example.tienda.service.ClienteService;
+import com.example.tienda.service.PedidoService;
+import com.example.tienda.service.PedidoService.ItemPedidoRequest;
+import com.example.tienda.service.ProductoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ÍNDICES DE LAS CONSULTAS DE LOS REPOSITORIOS
+ * EXPLAIN de H2 sobre el SQL de cada consulta (mismas tablas, filtros y orden): el plan
+ * debe buscar por el índice declarado en la entidad, no recorrer la tabla ni el índice entero
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndicesTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    private Long clienteId;
+    private Long productoId;
+
+    /**
+     * Unos cientos de filas: con las tablas vacías H2 no distingue un índice de otro
+     * Unos pocos pedidos pagados, el resto nuevos: el estado filtra de verdad
+     */
+    @BeforeAll
+    void cargarDatos() {
+        List<Long> productos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            productos.add(productoService.crearProducto("Indexado-" + i + "-" + System.nanoTime(),
+                    new BigDecimal(10 + i * 20), 1000 + i).getId());
+        }
+        productoService.asignarCategorias(productos.get(0), Set.of("Indexada"));
+        for (int i = 0; i < 50; i++) {
+            Long cliente = clienteService.crearClienteConDireccion("Cliente " + i,
+                    "indexado-" + System.nanoTime() + "-" + i + "@test.com",
+                    "Calle " + i, "Ciudad " + i, "País", "1000").getId();
+            for (int j = 0; j < 4; j++) {
+                Long pedido = pedidoService.crearPedido(cliente,
+                        List.of(new ItemPedidoRequest(productos.get((i + j) % productos.size()), 1))).getId();
+                if (i % 10 == 0 && j == 0) {
+                    pedidoService.cambiarEstado(pedido, Pedido.EstadoPedido.PAGADO);
+                }
+            }
+            clienteId = cliente;
+        }
+        productoId = productos.get(0);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void historialDeUnClienteUsaElIndiceClienteFecha() {
+        assertThat(plan("SELECT p.id, p.fecha, p.estado, p.total FROM pedidos p " +
+                "WHERE p.cliente_id = " + clienteId + " ORDER BY p.fecha DESC"))
+                .contains(busquedaPor("IDX_PEDIDOS_CLIENTE_FECHA", "CLIENTE_ID"));
+    }
+
+    @Test
+    void pedidosPorEstadoAnterioresAUnaFechaUsanElIndiceEstadoFecha() {
+        String sql = "SELECT p.id FROM pedidos p " +
+                "WHERE p.estado = 'PAGADO' AND p.fecha < TIMESTAMP '2100-01-01 00:00:00'";
+        assertThat(plan(sql)).contains(busquedaPor("IDX_PEDIDOS_ESTADO_FECHA", "ESTADO"));
+        assertThat(jdbcTemplate.queryForList(sql, Long.class)).hasSize(5);
+    }
+
+    @Test
+    void pedidosEnUnRangoDeFechasUsanElIndiceFecha() {
+        assertThat(plan("SELECT p.id FROM pedidos p " +
+                "WHERE p.fecha BETWEEN TIMESTAMP '2000-01-01 00:00:00' AND TIMESTAMP '2000-01-02 00:00:00'"))
+                .contains(busquedaPor("IDX_PEDIDOS_FECHA", "FECHA"));
+    }
+
+    @Test
+    void exportacionPorTramoDeFechasUsaElIndiceFecha() {
+        assertThat(plan("SELECT p.id, i.id FROM pedidos p JOIN items_pedido i ON i.pedido_id = p.id " +
+                "WHERE p.carrito_pendiente IS NULL " +
+                "AND p.fecha >= TIMESTAMP '2000-01-01 00:00:00' AND p.fecha < TIMESTAMP '2000-01-02 00:00:00' " +
+                "ORDER BY p.fecha, p.id, i.id"))
+                .contains(busquedaPor("IDX_PEDIDOS_FECHA", "FECHA"));
+    }
+
+    @Test
+    void productosConStockBajoUsanElIndiceStock() {
+        assertThat(plan("SELECT p.id, p.nombre, p.precio, p.stock FROM productos p WHERE p.stock < 5"))
+                .contains(busquedaPor("IDX_PRODUCTOS_STOCK", "STOCK"));
+    }
+
+    @Test
+    void productosEnUnRangoDePrecioUsanElIndicePrecio() {
+        assertThat(plan("SELECT p.id FROM productos p WHERE p.precio >= 50 AND p.precio <= 60"))
+                .contains(busquedaPor("IDX_PRODUCTOS_PRECIO", "PRECIO"));
+    }
+
+    @Test
+    void clientesDeUnaCiudadUsanElIndiceCiudad() {
+        assertThat(plan("SELECT c.id, d.ciudad FROM clientes c JOIN direcciones d ON d.cliente_id = c.id " +
+                "WHERE d.ciudad = 'Ciudad 7'"))
+                .contains(busquedaPor("IDX_DIRECCIONES_CIUDAD", "CIUDAD"));
+    }
+
+    @Test
+    void itemsDeUnProductoUsanElIndiceProducto() {
+        assertThat(plan("SELECT i.id FROM items_pedido i WHERE i.producto_id = " + productoId))
+                .contains(busquedaPor("IDX_ITEMS_PEDIDO_PRODUCTO", "PRODUCTO_ID"));
+    }
+
+    @Test
+    void categoriasDeVariosProductosUsanElIndiceProductoCategoria() {
+        assertThat(plan("SELECT pc.producto_id, pc.categoria_id FROM producto_categoria pc " +
+                "WHERE pc.producto_id IN (" + productoId + ", " + (productoId + 1) + ")"))
+                .contains(busquedaPor("IDX_PRODUCTO_CATEGORIA_PRODUCTO", "PRODUCTO_ID"));
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    /**
+     * H2 anota el índice elegido y la condición con la que lo recorre. Si la condición no es
+     * sobre la primera columna del índice, lo está recorriendo entero (como una tabla)
+     */
+    private String busquedaPor(String indice, String primeraColumna) {
+        return "/* PUBLIC." + indice + ": " + primeraColumna + " ";
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.EventoPedidoDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BUS DE EVENTOS CON VARIOS NODOS
+ * Los eventos que otro nodo publica directamente en eventos_pedido llegan a los consumidores
+ * de este nodo, y el borrado respeta los offsets de todos los nodos
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(BusEventosPedidoTest.ConRegistro.class)
+class BusEventosPedidoTest {
+
+    @Autowired
+    private Registro registro;
+
+    @Autowired
+    private PublicadorEventosPedido publicadorEventosPedido;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lo que publica otro nodo no pasa por el bus de este: se lee de la tabla desde el offset
+     */
+    @Test
+    void eventosDeOtroNodoLleganALosConsumidores() throws InterruptedException {
+        long primera = publicarComoOtroNodo(LocalDateTime.now(), 3);
+
+        esperarHasta(() -> offsetMinimo("principal") >= primera + 2);
+
+        assertThat(registro.eventos.stream().map(EventoPedidoDTO::getPosicion).filter(p -> p >= primera))
+                .containsExactly(primera, primera + 1, primera + 2);
+    }
+
+    /**
+     * Un nodo atrasado frena el borrado aunque los consumidores de este ya hayan procesado todo
+     */
+    @Test
+    void borradoEsperaAlNodoMasAtrasado() throws InterruptedException {
+        long primera = publicarComoOtroNodo(LocalDateTime.now().minusYears(1), 3);
+        esperarHasta(() -> offsetMinimo("principal") >= primera + 2);
+        jdbcTemplate.update("INSERT INTO offsets_consumidor (nodo, consumidor, posicion) VALUES ('otro', ?, ?)",
+                Registro.NOMBRE, primera - 1);
+        try {
+            publicadorEventosPedido.borrarConsumidos();
+            assertThat(eventosDesde(primera)).isEqualTo(3);
+
+            jdbcTemplate.update("UPDATE offsets_consumidor SET posicion = ? WHERE nodo = 'otro'", primera + 2);
+            publicadorEventosPedido.borrarConsumidos();
+            // El último publicado se conserva siempre
+            assertThat(eventosDesde(primera)).isEqualTo(1);
+        } finally {
+            jdbcTemplate.update("DELETE FROM offsets_consumidor WHERE nodo = 'otro'");
+        }
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    /**
+     * Insertar eventos ya publicados, como haría el publicador de otro nodo; devuelve la primera posición
+     */
+    private long publicarComoOtroNodo(LocalDateTime fecha, int cantidad) {
+        synchronized (BusEventosPedidoTest.class) {
+            long ultima = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(posicion), 0) FROM eventos_pedido", Long.class);
+            long id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM eventos_pedido", Long.class) + 1_000_000;
+            for (int i = 1; i <= cantidad; i++) {
+                jdbcTemplate.update("INSERT INTO eventos_pedido (id, pedido_id, cliente_id, estado, total, fecha, posicion) " +
+                        "VALUES (?, 1, 1, 'NUEVO', 10.00, ?, ?)", id + i, fecha, ultima + i);
+            }
+            return ultima + 1;
+        }
+    }
+
+    /**
+     * Offset del consumidor más atrasado de un nodo
+     */
+    private long offsetMinimo(String nodo) {
+        return jdbcTemplate.queryForObject("SELECT MIN(posicion) FROM offsets_consumidor WHERE nodo = ?", Long.class, nodo);
+    }
+
+    private long eventosDesde(long posicion) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM eventos_pedido WHERE posicion >= ?", Long.class, posicion);
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("tiempo de espera agotado").isLessThan(limite);
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Consumidor que guarda todo lo que recibe
+     */
+    static class Registro implements ConsumidorEventosPedido {
+
+        static final String NOMBRE = "registro-test";
+
+        final List<EventoPedidoDTO> eventos = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String getNombre() {
+            return NOMBRE;
+        }
+
+        @Override
+        public void procesar(List<EventoPedidoDTO> lote) {
+            long ultima = ultimaPosicion();
+            lote.stream().filter(evento -> evento.getPosicion() > ultima).forEach(eventos::add);
+        }
+
+        long ultimaPosicion() {
+            return eventos.isEmpty() ? 0 : eventos.get(eventos.size() - 1).getPosicion();
+        }
+    }
+
+    @TestConfiguration
+    static class ConRegistro {
+
+        @Bean
+        Registro registro() {
+            return new Registro();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.tienda.service;
+
+import com.example.tienda.dto.PedidoDTO;
+import com.example.tienda.entity.Pedido;
+import com.example.tienda.repository.PedidoRepository;
+import com.example.tienda.repository.ProductoRepository;
+import com.example.tienda.repository.TotalClienteRepository;
+import com.example.tienda.service.PedidoService.ItemPedidoRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CONCURRENCIA EN PEDIDOS
+ * Muchos hilos a la vez sobre el mismo producto o el mismo pedido: el stock final y el
+ * estado final deben ser los mismos que si las operaciones se hubieran hecho de a una
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PedidoConcurrenciaTest {
+
+    private static final int HILOS = 16;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private TotalClienteRepository totalClienteRepository;
+
+    @Autowired
+    private TotalesClienteService totalesClienteService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdempotenciaPedidos idempotenciaPedidos;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService hilos;
+
+    @BeforeEach
+    void iniciar() {
+        hilos = Executors.newFixedThreadPool(HILOS);
+    }
+
+    @AfterEach
+    void detener() {
+        hilos.shutdownNow();
+    }
+
+    /**
+     * El doble de pedidos que unidades: se venden todas, ninguna de más
+     */
+    @Test
+    void pedidosConcurrentesNoVendenMasQueElStock() throws Exception {
+        int stock = HILOS * 2;
+        Long productoId = productoService.crearProducto("Concurrente-" + System.nanoTime(),
+                new BigDecimal("10.00"), stock).getId();
+        List<Long> clientes = crearClientes(HILOS);
+
+        List<Future<PedidoDTO>> resultados = aLaVez(stock * 2, i -> pedidoService.crearPedido(
+                clientes.get(i % clientes.size()), List.of(new ItemPedidoRequest(productoId, 1))));
+
+        int aceptados = contarAceptados(resultados);
+        assertThat(aceptados).isEqualTo(stock);
+        assertThat(productoRepository.findStockById(productoId)).contains(0);
+    }
+
+    /**
+     * Cancelar el mismo pedido desde varios hilos: una sola cancelación, el stock vuelve una vez
+     */
+    @Test
+    void cancelacionesConcurrentesDevuelvenElStockUnaVez() throws Exception {
+        int stock = 10;
+        Long productoId = productoService.crearProducto("Cancelado-" + System.nanoTime(),
+                new BigDecimal("10.00"), stock).getId();
+        Long clienteId = crearClientes(1).get(0);
+        Long pedidoId = pedidoService.crearPedido(clienteId, List.of(new ItemPedidoRequest(productoId, 3))).getId();
+        assertThat(productoRepository.findStockById(productoId)).contains(stock - 3);
+
+        List<Future<PedidoDTO>> resultados = aLaVez(HILOS, i -> pedidoService.cancelarPedido(pedidoId));
+
+        assertThat(contarAceptados(resultados)).isEqualTo(1);
+        assertThat(productoRepository.findStockById(productoId)).contains(stock);
+        assertThat(pedidoRepository.findEstadoById(pedidoId)).contains(Pedido.EstadoPedido.CANCELADO);
+    }
+
+    /**
+     * Reconstruir los totales por cliente mientras se crean y cancelan pedidos: al terminar,
+     * cada total debe ser la suma de sus pedidos no cancelados (ninguno perdido ni contado dos veces)
+     */
+    @Test
+    void reconstruirTotalesConPedidosEnCursoNoPierdeNiDuplica() throws Exception {
+        Long productoId = productoService.crearProducto("Totales-" + System.nanoTime(),
+                new BigDecimal("7.50"), 100000).getId();
+        List<Long> clientes = crearClientes(4);
+        AtomicBoolean terminado = new AtomicBoolean();
+        Future<Integer> reconstrucciones = hilos.submit(() -> {
+            int veces = 0;
+            while (!terminado.get()) {
+                totalesClienteService.reconstruir();
+                veces++;
+            }
+            return veces;
+        });
+
+        List<Future<PedidoDTO>> resultados = aLaVez(HILOS * 20, i -> {
+            PedidoDTO pedido = pedidoService.crearPedido(clientes.get(i % clientes.size()),
+                    List.of(new ItemPedidoRequest(productoId, 1 + i % 3)));
+            return i % 3 == 0 ? pedidoService.cancelarPedido(pedido.getId()) : pedido;
+        });
+        int aceptados = contarAceptados(resultados);
+        terminado.set(true);
+
+        assertThat(aceptados).isEqualTo(HILOS * 20);
+        assertThat(reconstrucciones.get(30, TimeUnit.SECONDS)).isPositive();
+        for (Long clienteId : clientes) {
+            BigDecimal esperado = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(total), 0) FROM pedidos WHERE cliente_id = ? AND estado <> 'CANCELADO'",
+                    BigDecimal.class, clienteId);
+            assertThat(totalClienteRepository.findById(clienteId))
+                    .hasValueSatisfying(total -> assertThat(total.getTotal()).isEqualByComparingTo(esperado));
+        }
+    }
+
+    /**
+     * Reintento con la misma Idempotency-Key en otro nodo mientras el primero sigue sin
+     * confirmar, más tiempo que el LOCK_TIMEOUT de H2: el INSERT de la clave vence su espera
+     * de bloqueo, y el reintento vuelve a intentar hasta encontrar el pedido del primero
+     */
+    @Test
+    void reintentoConLaMismaClaveEsperaAlPrimerIntentoDeOtroNodo() throws Exception {
+        Long productoId = productoService.crearProducto("Idempotente-" + System.nanoTime(),
+                new BigDecimal("10.00"), 10).getId();
+        Long clienteId = crearClientes(1).get(0);
+        List<ItemPedidoRequest> items = List.of(new ItemPedidoRequest(productoId, 1));
+        String clave = "otro-nodo-" + System.nanoTime();
+        CountDownLatch registrada = new CountDownLatch(1);
+
+        // El "otro nodo": registra la clave y crea el pedido, pero tarda en confirmar
+        Future<PedidoDTO> otroNodo = hilos.submit(() -> new TransactionTemplate(transactionManager).execute(estado -> {
+            PedidoDTO pedido = pedidoService.crearPedido(clienteId, items, clienteId + ":" + clave,
+                    IdempotenciaPedidos.huella(items));
+            registrada.countDown();
+            try {
+                Thread.sleep(2500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return pedido;
+        }));
+        assertThat(registrada.await(30, TimeUnit.SECONDS)).isTrue();
+
+        IdempotenciaPedidos.Resultado resultado = idempotenciaPedidos.crearPedido(clienteId, clave, items);
+
+        assertThat(resultado.isRepetido()).isTrue();
+        assertThat(resultado.getPedido().getId()).isEqualTo(otroNodo.get(30, TimeUnit.SECONDS).getId());
+        assertThat(productoRepository.findStockById(productoId)).contains(9);
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    private List<Long> crearClientes(int cantidad) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            String email = "concurrente-" + System.nanoTime() + "-" + i + "@test.com";
+            ids.add(clienteService.crearClienteConDireccion("Cliente " + i, email,
+                    "Calle " + i, "Ciudad", "País", "1000").getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Lanzar las operaciones juntas: todas esperan la misma señal antes de empezar
+     */
+    private <T> List<Future<T>> aLaVez(int cantidad, Operacion<T> operacion) {
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<T>> resultados = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            int indice = i;
+            Callable<T> tarea = () -> {
+                salida.await();
+                return operacion.ejecutar(indice);
+            };
+            resultados.add(hilos.submit(tarea));
+        }
+        salida.countDown();
+        return resultados;
+    }
+
+    /**
+     * Las operaciones rechazadas deben fallar con IllegalArgumentException (400), nada más
+     */
+    private int contarAceptados(List<? extends Future<?>> resultados) throws Exception {
+        int aceptados = 0;
+        for (Future<?> resultado : resultados) {
+            try {
+                resultado.get(30, TimeUnit.SECONDS);
+                aceptados++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+        return aceptados;
+    }
+
+    @FunctionalInterface
+    private interface Operacion<T> {
+        T ejecutar(int indice) throws Exception;
+    }
+}